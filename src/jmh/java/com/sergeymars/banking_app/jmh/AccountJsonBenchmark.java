@@ -0,0 +1,102 @@
+package com.sergeymars.banking_app.jmh;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AmountRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferResult;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Payloads of the controller endpoints, (de)serialized the way Spring MVC's message converter does it.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccountJsonBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_SIZE = 100;
+
+    private ObjectWriter accountWriter;
+    private ObjectWriter pageWriter;
+    private ObjectWriter transferResultsWriter;
+    private ObjectReader accountReader;
+    private ObjectReader amountReader;
+    private ObjectReader transferBatchReader;
+
+    private AccountDto account;
+    private KeysetPage<AccountDto> page;
+    private List<TransferResult> transferResults;
+    private byte[] accountJson;
+    private byte[] amountJson;
+    private byte[] transferBatchJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        accountWriter = objectMapper.writerFor(AccountDto.class);
+        pageWriter = objectMapper.writerFor(new TypeReference<KeysetPage<AccountDto>>() {});
+        transferResultsWriter = objectMapper.writerFor(new TypeReference<List<TransferResult>>() {});
+        accountReader = objectMapper.readerFor(AccountDto.class);
+        amountReader = objectMapper.readerFor(AmountRequest.class);
+        transferBatchReader = objectMapper.readerFor(new TypeReference<List<TransferRequest>>() {});
+
+        account = new AccountDto(42L, "John Doe", 100_000);
+        List<AccountDto> content = new ArrayList<>(PAGE_SIZE);
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            content.add(new AccountDto(id, "Holder " + id, id * 1000));
+        }
+        page = new KeysetPage<>(content, (long) PAGE_SIZE);
+        List<TransferRequest> transfers = new ArrayList<>(BATCH_SIZE);
+        transferResults = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            transfers.add(new TransferRequest((long) i, (long) i + 1, 2500));
+            transferResults.add(new TransferResult(i, (long) i, (long) i + 1, TransferResult.Status.COMPLETED, null));
+        }
+        accountJson = accountWriter.writeValueAsBytes(account);
+        amountJson = objectMapper.writeValueAsBytes(Map.of("amount", 200.0));
+        transferBatchJson = objectMapper.writeValueAsBytes(transfers);
+    }
+
+    @Benchmark
+    public byte[] writeAccount() throws Exception {
+        return accountWriter.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    public AccountDto readAccount() throws Exception {
+        return accountReader.readValue(accountJson);
+    }
+
+    @Benchmark
+    public byte[] writeAccountPage() throws Exception {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public AmountRequest readAmountRequest() throws Exception {
+        return amountReader.readValue(amountJson);
+    }
+
+    @Benchmark
+    public List<TransferRequest> readTransferBatch() throws Exception {
+        return transferBatchReader.readValue(transferBatchJson);
+    }
+
+    @Benchmark
+    public byte[] writeTransferResults() throws Exception {
+        return transferResultsWriter.writeValueAsBytes(transferResults);
+    }
+}
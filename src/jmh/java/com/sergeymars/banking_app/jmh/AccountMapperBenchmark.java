@@ -0,0 +1,36 @@
+package com.sergeymars.banking_app.jmh;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.mapper.AccountMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccountMapperBenchmark {
+
+    private Account account;
+    private AccountDto accountDto;
+
+    @Setup
+    public void setUp() {
+        account = new Account(42L, "John Doe", 100_000);
+        accountDto = new AccountDto(42L, "John Doe", 100_000);
+    }
+
+    @Benchmark
+    public AccountDto mapToAccountDto() {
+        return AccountMapper.mapToAccountDto(account);
+    }
+
+    @Benchmark
+    public Account mapToAccount() {
+        return AccountMapper.mapToAccount(accountDto);
+    }
+}
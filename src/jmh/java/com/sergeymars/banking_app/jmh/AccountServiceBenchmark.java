@@ -0,0 +1,75 @@
+package com.sergeymars.banking_app.jmh;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountServiceBenchmark {
+
+    private static final int ACCOUNTS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private Long firstId;
+    private Long secondId;
+    private boolean forward;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        accountService = context.getBean(AccountService.class);
+        List<AccountDto> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(new AccountDto(null, "Holder " + i, 100_000_000));
+        }
+        List<AccountDto> created = accountService.createAccounts(accounts);
+        firstId = created.get(0).id();
+        secondId = created.get(1).id();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AccountDto getAccountById() {
+        return accountService.getAccountById(firstId);
+    }
+
+    @Benchmark
+    public KeysetPage<AccountDto> getAccountsPage() {
+        return accountService.getAccountsPage(null, 50);
+    }
+
+    @Benchmark
+    public AccountDto addDeposit() {
+        return accountService.addDeposit(firstId, 100);
+    }
+
+    @Benchmark
+    public AccountDto withdrawDeposit() {
+        return accountService.withdrawDeposit(secondId, 1);
+    }
+
+    // Alternates direction so the balances stay put however long the benchmark runs.
+    @Benchmark
+    public List<AccountDto> transferMoneyTo() {
+        forward = !forward;
+        return forward
+                ? accountService.transferMoneyTo(firstId, secondId, 100)
+                : accountService.transferMoneyTo(secondId, firstId, 100);
+    }
+}
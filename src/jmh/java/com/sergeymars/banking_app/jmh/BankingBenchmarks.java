@@ -0,0 +1,45 @@
+package com.sergeymars.banking_app.jmh;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+// Entry point of the jmh Maven profile. Single threaded benchmarks matching jmh.include run once,
+// then ContendedAccountBenchmark runs once per thread count in jmh.threads (leave it empty to skip).
+public class BankingBenchmarks {
+
+    private static final String RESULTS_DIR = "target/jmh";
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("jmh.include", ".*");
+        String threads = System.getProperty("jmh.threads", "1,4,16");
+        new File(RESULTS_DIR).mkdirs();
+
+        new Runner(options(RESULTS_DIR + "/single-threaded.json")
+                .include(include)
+                .exclude(ContendedAccountBenchmark.class.getName())
+                .build()).run();
+
+        for (String count : threads.split(",")) {
+            if (count.isBlank()) {
+                continue;
+            }
+            int threadCount = Integer.parseInt(count.trim());
+            new Runner(options(RESULTS_DIR + "/contended-" + threadCount + "-threads.json")
+                    .include(ContendedAccountBenchmark.class.getName())
+                    .threads(threadCount)
+                    .build()).run();
+        }
+    }
+
+    private static ChainedOptionsBuilder options(String result) {
+        return new OptionsBuilder()
+                .shouldFailOnError(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result);
+    }
+}
@@ -0,0 +1,58 @@
+package com.sergeymars.banking_app.jmh;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Thread counts come from BankingBenchmarks (jmh.threads); the accounts parameter sets how many rows
+// the threads fight over, 2 being the worst case for transfers.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContendedAccountBenchmark {
+
+    @Param({"2", "64"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        accountService = context.getBean(AccountService.class);
+        List<AccountDto> created = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            created.add(new AccountDto(null, "Holder " + i, 100_000_000_000L));
+        }
+        ids = accountService.createAccounts(created).stream().map(AccountDto::id).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AccountDto deposit() {
+        return accountService.addDeposit(ids.get(ThreadLocalRandom.current().nextInt(accounts)), 100);
+    }
+
+    @Benchmark
+    public List<AccountDto> transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+        return accountService.transferMoneyTo(ids.get(from), ids.get(to), 100);
+    }
+}
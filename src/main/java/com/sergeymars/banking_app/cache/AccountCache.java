@@ -0,0 +1,144 @@
+package com.sergeymars.banking_app.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sergeymars.banking_app.dto.VersionedAccount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+// Size-bounded (W-TinyLFU) read-through cache of account reads. Writers evict once their
+// transaction completes; a per-stripe generation stops a reader that loaded before that
+// commit from putting the old balance back. Entries carry the version they were read at,
+// so a cached body and its ETag never disagree.
+@Component
+public class AccountCache {
+
+    private static final int STRIPES = 64;
+
+    private final Cache<Long, VersionedAccount> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    public AccountCache(@Value("${banking.cache.accounts.maximum-size:100000}") long maximumSize,
+                        @Value("${banking.cache.accounts.ttl:30s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public VersionedAccount get(Long id, Function<Long, VersionedAccount> loader) {
+        VersionedAccount cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(id);
+        long generation = generations.get(stripe);
+        VersionedAccount loaded = loader.apply(id);
+        if (generations.get(stripe) == generation) {
+            cache.put(id, loaded);
+            if (generations.get(stripe) != generation) {
+                cache.invalidate(id);
+            }
+        }
+        return loaded;
+    }
+
+    // Peeks without loading, for callers that have a cheaper fallback than a full read.
+    public VersionedAccount getIfPresent(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    public void put(VersionedAccount versionedAccount) {
+        cache.put(versionedAccount.account().id(), versionedAccount);
+    }
+
+    // For an account written in the current transaction: cached only once it commits, and not at all if the
+    // account is evicted in between, by a write that committed right after it.
+    public void putAfterCommit(VersionedAccount versionedAccount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(versionedAccount);
+            return;
+        }
+        Long id = versionedAccount.account().id();
+        int stripe = stripe(id);
+        long generation = generations.get(stripe);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (generations.get(stripe) == generation) {
+                    cache.put(id, versionedAccount);
+                    if (generations.get(stripe) != generation) {
+                        cache.invalidate(id);
+                    }
+                }
+            }
+        });
+    }
+
+    public void evict(Long id) {
+        generations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    public void evictAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    public void evictAfterCompletion(Long id) {
+        evictAfterCompletion(List.of(id));
+    }
+
+    public void evictAfterCompletion(Collection<Long> ids) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(AccountCache.this::evict);
+                }
+            });
+        } else {
+            ids.forEach(this::evict);
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private static int stripe(Long id) {
+        return (Long.hashCode(id) & 0x7fffffff) % STRIPES;
+    }
+}
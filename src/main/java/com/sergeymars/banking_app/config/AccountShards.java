@@ -0,0 +1,71 @@
+package com.sergeymars.banking_app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The account databases of the sharded profile. An account id is its shard's local sequence value times
+// the shard count plus the shard index, so id % count names the shard without a directory lookup.
+// Changing the number of shards moves almost every account and needs a re-sharding of existing data.
+public class AccountShards implements AutoCloseable {
+
+    private final List<HikariDataSource> pools;
+    private final List<Shard> shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public AccountShards(List<HikariDataSource> pools) {
+        this.pools = pools;
+        List<Shard> shards = new ArrayList<>(pools.size());
+        for (int i = 0; i < pools.size(); i++) {
+            HikariDataSource pool = pools.get(i);
+            shards.add(new Shard(i, new JdbcTemplate(pool),
+                    new TransactionTemplate(new DataSourceTransactionManager(pool)), isPostgres(pool)));
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    private static boolean isPostgres(HikariDataSource pool) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(pool, DatabaseMetaData::getDatabaseProductName).startsWith("PostgreSQL");
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot reach shard " + pool.getPoolName(), e);
+        }
+    }
+
+    public int count() {
+        return shards.size();
+    }
+
+    public List<Shard> all() {
+        return shards;
+    }
+
+    public Shard forAccount(long accountId) {
+        return shards.get(Math.floorMod(accountId, shards.size()));
+    }
+
+    // New accounts are spread round-robin.
+    public Shard forNewAccount() {
+        return shards.get(Math.floorMod(nextShard.getAndIncrement(), shards.size()));
+    }
+
+    public long accountId(Shard shard, long localId) {
+        return Math.addExact(Math.multiplyExact(localId, (long) shards.size()), shard.index());
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    public record Shard(int index, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, boolean postgres) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.sergeymars.banking_app.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+// R2DBC auto-configuration is excluded and the pool is not a bean on purpose: a ConnectionFactory bean
+// makes the DataSource auto-configuration back off, and an R2dbcTransactionManager bean would compete
+// with JPA's for @Transactional. The blocking stack stays as it is (it still owns the schema and the
+// scheduled jobs); the reactive stack gets its transactions from this TransactionalOperator.
+@Configuration
+@Profile("reactive")
+public class ReactiveDataConfig {
+
+    private final ConnectionPool connectionPool;
+
+    public ReactiveDataConfig(@Value("${banking.reactive.r2dbc.url}") String url,
+                              @Value("${banking.reactive.r2dbc.username}") String username,
+                              @Value("${banking.reactive.r2dbc.password}") String password,
+                              @Value("${banking.reactive.r2dbc.pool-size:20}") int poolSize) {
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(
+                        ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                                .option(ConnectionFactoryOptions.USER, username)
+                                .option(ConnectionFactoryOptions.PASSWORD, password)
+                                .build()))
+                .initialSize(Math.min(poolSize, 2))
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator transactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+    }
+
+    @PreDestroy
+    void close() {
+        connectionPool.dispose();
+    }
+}
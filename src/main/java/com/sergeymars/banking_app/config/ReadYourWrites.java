@@ -0,0 +1,45 @@
+package com.sergeymars.banking_app.config;
+
+import java.util.function.Supplier;
+
+// Read-your-writes for the work of one request on one thread: once it has opened a read-write
+// transaction, its later read-only transactions go to the primary instead of a lagging replica.
+// Work run through onPrimary reads the primary regardless, e.g. loads that fill a shared cache.
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> WROTE = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void enable() {
+        WROTE.set(Boolean.FALSE);
+    }
+
+    public static void clear() {
+        WROTE.remove();
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (PRIMARY.get() != null) {
+            return work.get();
+        }
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    static void markWrite() {
+        if (WROTE.get() != null) {
+            WROTE.set(Boolean.TRUE);
+        }
+    }
+
+    static boolean isPinned() {
+        return Boolean.TRUE.equals(WROTE.get()) || PRIMARY.get() != null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.sergeymars.banking_app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Turns on ReadYourWrites for requests sending "X-Read-Your-Writes: true", or for every request when
+// banking.datasource.replica.read-your-writes is set. Work the request hands to other threads (async
+// transfers, coalesced deposits) is not covered.
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "X-Read-Your-Writes";
+
+    private final boolean alwaysEnabled;
+
+    public ReadYourWritesFilter(boolean alwaysEnabled) {
+        this.alwaysEnabled = alwaysEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!alwaysEnabled && !Boolean.parseBoolean(request.getHeader(HEADER))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReadYourWrites.enable();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+}
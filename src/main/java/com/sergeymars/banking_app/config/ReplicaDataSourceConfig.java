@@ -0,0 +1,84 @@
+package com.sergeymars.banking_app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Only active when banking.datasource.replica.url is set. The primary pool keeps Spring Boot's
+// spring.datasource.* settings; the replica pool takes url, username, password and hikari.* under
+// banking.datasource.replica. Both stay beans so the Hikari metrics and health checks see them.
+//
+// Account cache misses and ETag lookups read the primary, so a single-account read never returns a
+// balance older than a write committed on this node, whatever the replica lag. Lists, pages, searches
+// and aggregates read the replica; requests that need their own writes back there send
+// X-Read-Your-Writes (or set banking.datasource.replica.read-your-writes).
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "banking.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    static final String REPLICA_PREFIX = "banking.datasource.replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(Environment environment) throws Exception {
+        Binder binder = Binder.get(environment);
+        DataSourceProperties properties = binder.bind(REPLICA_PREFIX, DataSourceProperties.class).get();
+        properties.afterPropertiesSet();
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        // Fail over to the primary quickly, and let the application start while the replica is down.
+        dataSource.setConnectionTimeout(2_000);
+        dataSource.setInitializationFailTimeout(-1);
+        binder.bind(REPLICA_PREFIX + ".hikari", Bindable.ofInstance(dataSource));
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${banking.datasource.replica.read-your-writes:false}") boolean always) {
+        return new ReadYourWritesFilter(always);
+    }
+
+    @Bean
+    public MeterBinder replicaRoutingMeterBinder(DataSource dataSource) throws Exception {
+        ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        return registry -> {
+            FunctionCounter.builder("banking.datasource.replica.connections", routing,
+                            ReplicaRoutingDataSource::getReplicaConnectionCount)
+                    .description("Connections read-only transactions took from the replica")
+                    .register(registry);
+            FunctionCounter.builder("banking.datasource.replica.fallbacks", routing,
+                            ReplicaRoutingDataSource::getFallbackCount)
+                    .description("Read-only transactions sent to the primary because the replica was unavailable")
+                    .register(registry);
+        };
+    }
+}
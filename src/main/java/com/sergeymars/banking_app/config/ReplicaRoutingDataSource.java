@@ -0,0 +1,72 @@
+package com.sergeymars.banking_app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hands read-only transactions a replica connection and everything else a primary one. If the replica
+// cannot give a connection, the read falls back to the primary.
+//
+// The transaction manager publishes the read-only flag only after it has begun the transaction, so this
+// has to sit behind a LazyConnectionDataSourceProxy that fetches the real connection at the first statement.
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final AtomicLong replicaConnectionCount = new AtomicLong();
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!useReplica()) {
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.getConnection();
+            replicaConnectionCount.incrementAndGet();
+            return connection;
+        } catch (SQLException e) {
+            fallbackCount.incrementAndGet();
+            log.warn("Replica is unavailable, reading from the primary: {}", e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials come from the pool configuration");
+    }
+
+    private boolean useReplica() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ReadYourWrites.markWrite();
+            return false;
+        }
+        return !ReadYourWrites.isPinned();
+    }
+
+    public long getReplicaConnectionCount() {
+        return replicaConnectionCount.get();
+    }
+
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+}
@@ -0,0 +1,60 @@
+package com.sergeymars.banking_app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Shard pools are not DataSource beans for the same reason as the reactive pool: a DataSource bean makes
+// the DataSource auto-configuration back off. The primary database keeps everything that is not an account
+// balance (ledger, idempotency keys); the accounts themselves live on banking.sharding.shards[n].
+@Configuration
+@Profile("sharded")
+public class ShardingConfig {
+
+    static final String SHARDS_PREFIX = "banking.sharding.shards";
+
+    @Bean(destroyMethod = "close")
+    public AccountShards accountShards(Environment environment,
+                                       @Value("${banking.sharding.pool-size:10}") int poolSize) throws Exception {
+        List<DataSourceProperties> shardProperties = Binder.get(environment)
+                .bind(SHARDS_PREFIX, Bindable.listOf(DataSourceProperties.class))
+                .orElse(List.of());
+        if (shardProperties.isEmpty()) {
+            throw new IllegalStateException(SHARDS_PREFIX + " must list at least one shard database");
+        }
+        List<HikariDataSource> pools = new ArrayList<>(shardProperties.size());
+        for (DataSourceProperties properties : shardProperties) {
+            properties.afterPropertiesSet();
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            pool.setPoolName("shard-" + pools.size());
+            pool.setMaximumPoolSize(poolSize);
+            new ResourceDatabasePopulator(schemaScripts(properties.determineUrl()).toArray(Resource[]::new)).execute(pool);
+            pools.add(pool);
+        }
+        return new AccountShards(pools);
+    }
+
+    // The portable schema, then db/sharded-schema-<platform>.sql if there is one for the shard's database.
+    static List<Resource> schemaScripts(String url) {
+        List<Resource> scripts = new ArrayList<>(2);
+        scripts.add(new ClassPathResource("db/sharded-schema.sql"));
+        Resource platform = new ClassPathResource("db/sharded-schema-" + DatabaseDriver.fromJdbcUrl(url).getId() + ".sql");
+        if (platform.exists()) {
+            scripts.add(platform);
+        }
+        return scripts;
+    }
+}
@@ -0,0 +1,67 @@
+package com.sergeymars.banking_app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+// Endpoints that return a StreamingResponseBody (the NDJSON stream, the CSV export) write for as long as
+// the table takes, so they get banking.accounts.stream-timeout instead of spring.mvc.async.request-timeout,
+// which is sized for requests that wait on a result. Zero, the default, means no timeout.
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class StreamingAsyncConfig implements WebMvcConfigurer {
+
+    private final Duration streamTimeout;
+
+    public StreamingAsyncConfig(@Value("${banking.accounts.stream-timeout:0}") Duration streamTimeout) {
+        this.streamTimeout = streamTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new StreamTimeoutInterceptor(streamTimeout.toMillis()));
+    }
+
+    // Runs before the async request starts, while its timeout can still be changed.
+    static final class StreamTimeoutInterceptor implements CallableProcessingInterceptor {
+
+        private final long timeoutMillis;
+
+        StreamTimeoutInterceptor(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            if (request instanceof AsyncWebRequest asyncWebRequest && isStreaming(request)) {
+                asyncWebRequest.setTimeout(timeoutMillis);
+            }
+        }
+
+        private static boolean isStreaming(NativeWebRequest request) {
+            Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (!(handler instanceof HandlerMethod handlerMethod)) {
+                return false;
+            }
+            ResolvableType returnType = ResolvableType.forMethodParameter(handlerMethod.getReturnType());
+            if (ResponseEntity.class.isAssignableFrom(returnType.toClass())) {
+                returnType = returnType.getGeneric(0);
+            }
+            return StreamingResponseBody.class.isAssignableFrom(returnType.toClass());
+        }
+    }
+}
@@ -1,54 +1,161 @@
 package com.sergeymars.banking_app.controller;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.sergeymars.banking_app.dto.AccountAggregatesDto;
 import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountImportResult;
+import com.sergeymars.banking_app.dto.AccountSearchPage;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.AmountRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.LedgerEntryDto;
+import com.sergeymars.banking_app.dto.TransferMoneyRequest;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferResult;
+import com.sergeymars.banking_app.dto.TransferStatusDto;
+import com.sergeymars.banking_app.dto.VersionedAccount;
 import com.sergeymars.banking_app.service.AccountService;
+import com.sergeymars.banking_app.service.LedgerService;
+import com.sergeymars.banking_app.service.impl.AdmissionControl;
+import com.sergeymars.banking_app.service.impl.DepositCoalescer;
+import com.sergeymars.banking_app.service.impl.IdempotencyStore;
+import com.sergeymars.banking_app.service.impl.TransferDispatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/accounts")
 public class AccountController {
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final MediaType CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    static final MediaType GZIP = new MediaType("application", "gzip");
+
     private AccountService accountService;
+    private LedgerService ledgerService;
+    private ObjectMapper objectMapper;
+    private DepositCoalescer depositCoalescer;
+    private IdempotencyStore idempotencyStore;
+    private TransferDispatcher transferDispatcher;
+    private AdmissionControl admissionControl;
+    private Duration maxStatusWait;
+    private JavaType accountType;
+    private JavaType accountListType;
 
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService,
+                             LedgerService ledgerService,
+                             ObjectMapper objectMapper,
+                             DepositCoalescer depositCoalescer,
+                             IdempotencyStore idempotencyStore,
+                             TransferDispatcher transferDispatcher,
+                             AdmissionControl admissionControl,
+                             @Value("${banking.transfers.async.max-wait:30s}") Duration maxStatusWait) {
         this.accountService = accountService;
+        this.ledgerService = ledgerService;
+        this.objectMapper = objectMapper;
+        this.depositCoalescer = depositCoalescer;
+        this.idempotencyStore = idempotencyStore;
+        this.transferDispatcher = transferDispatcher;
+        this.admissionControl = admissionControl;
+        this.maxStatusWait = maxStatusWait;
+        this.accountType = objectMapper.constructType(AccountDto.class);
+        this.accountListType = objectMapper.getTypeFactory().constructCollectionType(List.class, AccountDto.class);
     }
 
     @PostMapping
     public ResponseEntity<AccountDto> addAccount(@RequestBody AccountDto accountDto) {
-        return new ResponseEntity<>(accountService.createAccount(accountDto), HttpStatus.CREATED);
+        return new ResponseEntity<>(admissionControl.run(null, () -> accountService.createAccount(accountDto)), HttpStatus.CREATED);
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<AccountDto>> addAccounts(@RequestBody List<AccountDto> accountDtos) {
+        return new ResponseEntity<>(admissionControl.run(null, () -> accountService.createAccounts(accountDtos)), HttpStatus.CREATED);
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<AccountImportResult> importAccounts(InputStream body) {
+        long created = admissionControl.run(null, () -> {
+            try (MappingIterator<AccountDto> accountDtos = objectMapper.readerFor(AccountDto.class).readValues(body)) {
+                return accountService.importAccounts(accountDtos);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return new ResponseEntity<>(new AccountImportResult(created), HttpStatus.CREATED);
     }
 
+    // A poll that sends its ETag back is answered from the cached version, or from the version alone on a miss,
+    // without loading the account. Otherwise the body and ETag come from one read; Spring still answers 304 if
+    // that ETag matches after all.
     @GetMapping("/{id}")
-    public ResponseEntity<AccountDto> getAccountById(@PathVariable Long id) {
-        AccountDto accountDto = accountService.getAccountById(id);
-        return ResponseEntity.ok(accountDto);
+    public ResponseEntity<AccountDto> getAccountById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(etag(accountService.getAccountVersion(id)))) {
+            return null;
+        }
+        VersionedAccount account = accountService.getVersionedAccount(id);
+        return ResponseEntity.ok().eTag(etag(account.version())).body(account.account());
+    }
+
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<KeysetPage<LedgerEntryDto>> getTransactions(@PathVariable Long id,
+                                                                      @RequestParam(required = false) Long before,
+                                                                      @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ledgerService.getTransactions(id, before, limit));
     }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteAccount(@PathVariable Long id){
-        accountService.deleteAccount(id);
+        admissionControl.run(id, () -> accountService.deleteAccount(id));
         return ResponseEntity.ok("Account is deleted successfully!");
     }
 
     @PutMapping("/{id}/add_deposit")
-    public ResponseEntity<AccountDto> addDeposit(@PathVariable Long id,
-                                                 @RequestBody Map<String, Double> request) {
-        Double amount = request.get("amount");
-        AccountDto accountDto = accountService.addDeposit(id, amount);
-        return ResponseEntity.ok(accountDto);
+    public CompletableFuture<ResponseEntity<AccountDto>> addDeposit(@PathVariable Long id,
+                                                                    @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                    @RequestBody AmountRequest request) {
+        if (idempotencyKey != null) {
+            // The key's response is the deposit's own, so a keyed deposit skips the coalescer.
+            return admissionControl.run(id, () -> idempotencyStore.execute(idempotencyKey,
+                            "add_deposit " + id + " " + request.amount(), accountType, () -> accountService.addDeposit(id, request.amount())))
+                    .thenApply(ResponseEntity::ok);
+        }
+        return admissionControl.runAsync(id, () -> depositCoalescer.addDeposit(id, request.amount()))
+                .thenApply(ResponseEntity::ok);
     }
 
+    // A keyed duplicate of a request still running on this node completes when that request does.
     @PutMapping("/{id}/withdraw_deposit")
-    public ResponseEntity<AccountDto> withdrawDeposit(@PathVariable Long id,
-                                                      @RequestBody Map<String, Double> request) {
-        Double amount = request.get("amount");
-        AccountDto accountDto = accountService.withdrawDeposit(id, amount);
-        return ResponseEntity.ok(accountDto);
+    public CompletableFuture<ResponseEntity<AccountDto>> withdrawDeposit(@PathVariable Long id,
+                                                                         @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                         @RequestBody AmountRequest request) {
+        return admissionControl.run(id, () -> idempotencyKey == null
+                        ? CompletableFuture.completedFuture(accountService.withdrawDeposit(id, request.amount()))
+                        : idempotencyStore.execute(idempotencyKey, "withdraw_deposit " + id + " " + request.amount(),
+                                accountType, () -> accountService.withdrawDeposit(id, request.amount())))
+                .thenApply(ResponseEntity::ok);
     }
 
     @GetMapping
@@ -57,11 +164,111 @@ public class AccountController {
         return ResponseEntity.ok(accounts);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<KeysetPage<AccountDto>> getAccountsPage(@RequestParam(required = false) Long after,
+                                                                  @RequestParam int limit) {
+        return ResponseEntity.ok(accountService.getAccountsPage(after, limit));
+    }
+
+    @GetMapping("/aggregates")
+    public ResponseEntity<AccountAggregatesDto> getAggregates() {
+        return ResponseEntity.ok(accountService.getAggregates());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<AccountSearchPage> searchAccounts(@RequestParam String name,
+                                                            @RequestParam(required = false) String afterName,
+                                                            @RequestParam(required = false) Long afterId,
+                                                            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(accountService.searchByHolderName(name, afterName, afterId, limit));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAccounts() {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writerFor(AccountDto.class)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                accountService.streamAllAccounts(accountDto -> {
+                    try {
+                        writer.write(accountDto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // gzip=true compresses on the fly into an accounts.csv.gz download.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAccounts(@RequestParam(required = false) Long fromId,
+                                                                @RequestParam(required = false) Long toId,
+                                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                try (GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 64 * 1024)) {
+                    accountService.exportAccountsCsv(fromId, toId, gzipStream);
+                }
+            } else {
+                accountService.exportAccountsCsv(fromId, toId, outputStream);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(gzip ? "accounts.csv.gz" : "accounts.csv").build().toString())
+                .body(body);
+    }
+
     @PutMapping("/{id}/transfer_money")
-    public ResponseEntity<List<AccountDto>> transferMoneyTo(@PathVariable Long id, @RequestBody Map<String, Object> request){
-        Long toId = Long.valueOf(request.get("toAccountId").toString());
-        Double amount = Double.valueOf(request.get("amount").toString());
-        List<AccountDto> accounts = accountService.transferMoneyTo(id, toId, amount);
-        return ResponseEntity.ok(accounts);
+    public CompletableFuture<ResponseEntity<List<AccountDto>>> transferMoneyTo(@PathVariable Long id,
+                                                                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                                               @RequestBody TransferMoneyRequest request){
+        return admissionControl.run(id, () -> idempotencyKey == null
+                        ? CompletableFuture.completedFuture(accountService.transferMoneyTo(id, request.toAccountId(), request.amount()))
+                        : idempotencyStore.execute(idempotencyKey,
+                                "transfer_money " + id + " " + request.toAccountId() + " " + request.amount(),
+                                accountListType, () -> accountService.transferMoneyTo(id, request.toAccountId(), request.amount())))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @PutMapping("/{id}/hot_mode")
+    public ResponseEntity<AccountDto> enableHotMode(@PathVariable Long id, @RequestParam int slots) {
+        return ResponseEntity.ok(admissionControl.run(id, () -> accountService.enableHotMode(id, slots)));
+    }
+
+    @DeleteMapping("/{id}/hot_mode")
+    public ResponseEntity<AccountDto> disableHotMode(@PathVariable Long id) {
+        return ResponseEntity.ok(admissionControl.run(id, () -> accountService.disableHotMode(id)));
+    }
+
+    @PostMapping("/transfers")
+    public ResponseEntity<TransferStatusDto> submitTransfer(@RequestBody TransferRequest transfer) {
+        TransferStatusDto status = admissionControl.run(transfer.fromAccountId(), () -> transferDispatcher.submit(transfer));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/accounts/transfers/" + status.transferId()))
+                .body(status);
+    }
+
+    // With waitMillis the request is held until the transfer finishes or the wait (capped at max-wait) runs out.
+    @GetMapping("/transfers/{transferId}")
+    public CompletableFuture<ResponseEntity<TransferStatusDto>> getTransferStatus(@PathVariable String transferId,
+                                                                                  @RequestParam(defaultValue = "0") long waitMillis) {
+        Duration wait = Duration.ofMillis(Math.max(0, waitMillis));
+        return transferDispatcher.awaitStatus(transferId, wait.compareTo(maxStatusWait) > 0 ? maxStatusWait : wait)
+                .map(status -> status.thenApply(ResponseEntity::ok))
+                .orElseGet(() -> CompletableFuture.completedFuture(ResponseEntity.notFound().build()));
+    }
+
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<List<TransferResult>> transferBatch(@RequestBody List<TransferRequest> transfers) {
+        return ResponseEntity.ok(admissionControl.run(null, () -> accountService.transferBatch(transfers)));
+    }
+
+    // Strong: the body is fully determined by the row version and, for a hot account, its slot total.
+    static String etag(AccountVersion version) {
+        return "\"" + version.rowVersion() + (version.slotBalance() == 0 ? "" : "-" + version.slotBalance()) + "\"";
     }
 }
@@ -0,0 +1,28 @@
+package com.sergeymars.banking_app.controller;
+
+import com.sergeymars.banking_app.dto.EndOfDayReport;
+import com.sergeymars.banking_app.service.impl.EndOfDayBatch;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@Profile("!reactive & !sharded & !in-memory")
+@RequestMapping("api/end-of-day")
+public class EndOfDayController {
+
+    private EndOfDayBatch endOfDayBatch;
+
+    public EndOfDayController(EndOfDayBatch endOfDayBatch) {
+        this.endOfDayBatch = endOfDayBatch;
+    }
+
+    // Safe to repeat: chunks already done for the date are skipped, so this also resumes a failed run.
+    @PostMapping("/{businessDate}")
+    public ResponseEntity<EndOfDayReport> runEndOfDay(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate businessDate) {
+        return ResponseEntity.ok(endOfDayBatch.run(businessDate));
+    }
+}
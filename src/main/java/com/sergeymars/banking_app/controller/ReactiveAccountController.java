@@ -0,0 +1,76 @@
+package com.sergeymars.banking_app.controller;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AmountRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.TransferMoneyRequest;
+import com.sergeymars.banking_app.service.ReactiveAccountService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("api/accounts")
+public class ReactiveAccountController {
+
+    private ReactiveAccountService reactiveAccountService;
+
+    public ReactiveAccountController(ReactiveAccountService reactiveAccountService) {
+        this.reactiveAccountService = reactiveAccountService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<AccountDto>> addAccount(@RequestBody AccountDto accountDto) {
+        return reactiveAccountService.createAccount(accountDto)
+                .map(created -> new ResponseEntity<>(created, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<AccountDto>> getAccountById(@PathVariable Long id) {
+        return reactiveAccountService.getAccountById(id).map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteAccount(@PathVariable Long id) {
+        return reactiveAccountService.deleteAccount(id)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok("Account is deleted successfully!")));
+    }
+
+    @PutMapping("/{id}/add_deposit")
+    public Mono<ResponseEntity<AccountDto>> addDeposit(@PathVariable Long id,
+                                                       @RequestBody AmountRequest request) {
+        return reactiveAccountService.addDeposit(id, request.amount()).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/{id}/withdraw_deposit")
+    public Mono<ResponseEntity<AccountDto>> withdrawDeposit(@PathVariable Long id,
+                                                            @RequestBody AmountRequest request) {
+        return reactiveAccountService.withdrawDeposit(id, request.amount()).map(ResponseEntity::ok);
+    }
+
+    // Encoded element by element as the database cursor yields them; demand from the client paces the query.
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<AccountDto> getAllAccounts() {
+        return reactiveAccountService.getAllAccounts();
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<KeysetPage<AccountDto>>> getAccountsPage(@RequestParam(required = false) Long after,
+                                                                        @RequestParam int limit) {
+        return reactiveAccountService.getAccountsPage(after, limit).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/{id}/transfer_money")
+    public Mono<ResponseEntity<List<AccountDto>>> transferMoneyTo(@PathVariable Long id,
+                                                                  @RequestBody TransferMoneyRequest request) {
+        return reactiveAccountService.transferMoneyTo(id, request.toAccountId(), request.amount())
+                .map(ResponseEntity::ok);
+    }
+}
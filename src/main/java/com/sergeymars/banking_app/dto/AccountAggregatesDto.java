@@ -0,0 +1,22 @@
+package com.sergeymars.banking_app.dto;
+
+import com.sergeymars.banking_app.money.JsonAmount;
+
+import java.time.Instant;
+import java.util.List;
+
+// reconciledAt is the last time the values were checked against the database, null before the first check.
+public record AccountAggregatesDto(
+        long accountCount,
+        @JsonAmount long totalBalance,
+        List<BalanceBucket> balanceHistogram,
+        Instant reconciledAt
+) {
+    // Balances from lowerBound inclusive up to upperBound exclusive; the last bucket has no upper bound.
+    public record BalanceBucket(
+            @JsonAmount long lowerBound,
+            @JsonAmount Long upperBound,
+            long count
+    ) {
+    }
+}
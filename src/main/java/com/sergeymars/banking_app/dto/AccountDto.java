@@ -1,8 +1,10 @@
 package com.sergeymars.banking_app.dto;
 
+import com.sergeymars.banking_app.money.JsonAmount;
+
 public record AccountDto(
         Long id,
         String accountHolderName,
-        double balance
+        @JsonAmount long balance
 ) {
 }
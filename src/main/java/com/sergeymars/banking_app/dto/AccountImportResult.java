@@ -0,0 +1,6 @@
+package com.sergeymars.banking_app.dto;
+
+public record AccountImportResult(
+        long created
+) {
+}
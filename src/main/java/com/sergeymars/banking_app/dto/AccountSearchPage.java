@@ -0,0 +1,11 @@
+package com.sergeymars.banking_app.dto;
+
+import java.util.List;
+
+// The next page starts after (nextName, nextId); both are null on the last page.
+public record AccountSearchPage(
+        List<AccountDto> content,
+        String nextName,
+        Long nextId
+) {
+}
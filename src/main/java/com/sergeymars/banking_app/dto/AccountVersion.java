@@ -0,0 +1,9 @@
+package com.sergeymars.banking_app.dto;
+
+// Identifies what an account read returns: the row version covers the name and row balance, slotBalance
+// the part of a hot account's balance that sits in its slots, which are credited without touching the row.
+public record AccountVersion(
+        long rowVersion,
+        long slotBalance
+) {
+}
@@ -0,0 +1,8 @@
+package com.sergeymars.banking_app.dto;
+
+import com.sergeymars.banking_app.money.JsonAmount;
+
+public record AmountRequest(
+        @JsonAmount long amount
+) {
+}
@@ -0,0 +1,7 @@
+package com.sergeymars.banking_app.dto;
+
+public record DepositRequest(
+        Long accountId,
+        long amount
+) {
+}
@@ -0,0 +1,30 @@
+package com.sergeymars.banking_app.dto;
+
+import com.sergeymars.banking_app.money.JsonAmount;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Totals cover the chunks processed by this run; skippedChunks were already done by an earlier run.
+public record EndOfDayReport(
+        LocalDate businessDate,
+        int totalChunks,
+        int skippedChunks,
+        int failedChunks,
+        long accountCount,
+        @JsonAmount long interest,
+        @JsonAmount long fees,
+        long durationMillis,
+        List<ChunkResult> chunks
+) {
+    public record ChunkResult(
+            long fromId,
+            long toId,
+            long accountCount,
+            @JsonAmount long interest,
+            @JsonAmount long fees,
+            long durationMillis,
+            double accountsPerSecond
+    ) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.sergeymars.banking_app.dto;
+
+import java.util.List;
+
+public record KeysetPage<T>(
+        List<T> content,
+        Long next
+) {
+}
@@ -0,0 +1,16 @@
+package com.sergeymars.banking_app.dto;
+
+import com.sergeymars.banking_app.entity.LedgerEntryType;
+import com.sergeymars.banking_app.money.JsonAmount;
+
+import java.time.Instant;
+
+public record LedgerEntryDto(
+        Long id,
+        Long accountId,
+        LedgerEntryType type,
+        @JsonAmount long amount,
+        Long counterpartyAccountId,
+        Instant createdAt
+) {
+}
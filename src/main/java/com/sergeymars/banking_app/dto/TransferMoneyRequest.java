@@ -0,0 +1,9 @@
+package com.sergeymars.banking_app.dto;
+
+import com.sergeymars.banking_app.money.JsonAmount;
+
+public record TransferMoneyRequest(
+        Long toAccountId,
+        @JsonAmount long amount
+) {
+}
@@ -0,0 +1,10 @@
+package com.sergeymars.banking_app.dto;
+
+import com.sergeymars.banking_app.money.JsonAmount;
+
+public record TransferRequest(
+        Long fromAccountId,
+        Long toAccountId,
+        @JsonAmount long amount
+) {
+}
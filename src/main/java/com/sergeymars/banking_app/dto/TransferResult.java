@@ -0,0 +1,16 @@
+package com.sergeymars.banking_app.dto;
+
+public record TransferResult(
+        int index,
+        Long fromAccountId,
+        Long toAccountId,
+        Status status,
+        String message
+) {
+    public enum Status {
+        COMPLETED,
+        INSUFFICIENT_FUNDS,
+        ACCOUNT_NOT_FOUND,
+        INVALID
+    }
+}
@@ -0,0 +1,21 @@
+package com.sergeymars.banking_app.dto;
+
+import com.sergeymars.banking_app.money.JsonAmount;
+
+import java.util.List;
+
+public record TransferStatusDto(
+        String transferId,
+        Long fromAccountId,
+        Long toAccountId,
+        @JsonAmount long amount,
+        Status status,
+        List<AccountDto> accounts,
+        String message
+) {
+    public enum Status {
+        PENDING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,14 @@
+package com.sergeymars.banking_app.dto;
+
+import com.sergeymars.banking_app.money.Money;
+
+// An account together with the version it was read at, so an ETag always describes the body it is sent with.
+public record VersionedAccount(
+        AccountDto account,
+        AccountVersion version
+) {
+    public VersionedAccount(Long id, String accountHolderName, long rowBalance, long rowVersion, long slotBalance) {
+        this(new AccountDto(id, accountHolderName, Money.add(rowBalance, slotBalance)),
+                new AccountVersion(rowVersion, slotBalance));
+    }
+}
@@ -0,0 +1,189 @@
+package com.sergeymars.banking_app.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Append-only command journal in a fixed-size memory-mapped file. A record is
+//   length (int) | CRC32C of the payload (int) | sequence (long) | type (byte) | account id (long)
+//   | counterparty id (long) | amount (long) | holder name length (int, -1 for none) | holder name (UTF-8)
+// and sequences increase by one from record to record.
+//
+// Once everything in it is persisted the journal is reset and written again from the start. Replay stops at
+// the first record that is torn, fails its checksum or breaks the sequence, so leftovers of an earlier pass
+// behind the live records, all of which have lower sequences, are never replayed.
+public final class BalanceJournal implements Closeable {
+
+    public static final byte CREATE = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte WITHDRAW = 3;
+    public static final byte TRANSFER = 4;
+    public static final byte DELETE = 5;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int FIXED_PAYLOAD_SIZE = 8 + 1 + 8 + 8 + 8 + 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    private long lastSequence;
+    private int forcedPosition;
+
+    private BalanceJournal(FileChannel channel, MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    public static BalanceJournal open(Path path, int capacity) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new BalanceJournal(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(capacity, channel.size())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Hands every record with a sequence above afterSequence to the consumer, in order. The journal then
+    // continues after the highest sequence seen or afterSequence, whichever is greater, and must be reset
+    // before the next append.
+    public void replay(long afterSequence, Consumer<JournalRecord> consumer) {
+        long previous = -1;
+        int position = 0;
+        while (true) {
+            JournalRecord record = read(position);
+            if (record == null || previous != -1 && record.sequence() != previous + 1) {
+                break;
+            }
+            if (record.sequence() > afterSequence) {
+                consumer.accept(record);
+            }
+            previous = record.sequence();
+            position += HEADER_SIZE + buffer.getInt(position);
+        }
+        lastSequence = Math.max(previous, afterSequence);
+    }
+
+    public boolean hasRoom(String accountHolderName) {
+        return buffer.capacity() - buffer.position() >= recordSize(accountHolderName);
+    }
+
+    public boolean fits(String accountHolderName) {
+        return buffer.capacity() >= recordSize(accountHolderName);
+    }
+
+    // Returns the sequence of the appended record. The caller checks hasRoom first.
+    public long append(byte type, long accountId, long counterpartyId, long amount, String accountHolderName) {
+        byte[] name = accountHolderName == null ? null : accountHolderName.getBytes(StandardCharsets.UTF_8);
+        int payloadSize = FIXED_PAYLOAD_SIZE + (name == null ? 0 : name.length);
+        int start = buffer.position();
+        long sequence = lastSequence + 1;
+        buffer.position(start + HEADER_SIZE);
+        buffer.putLong(sequence)
+                .put(type)
+                .putLong(accountId)
+                .putLong(counterpartyId)
+                .putLong(amount)
+                .putInt(name == null ? -1 : name.length);
+        if (name != null) {
+            buffer.put(name);
+        }
+        crc.reset();
+        crc.update(buffer.slice(start + HEADER_SIZE, payloadSize));
+        buffer.putInt(start, payloadSize);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    // Writes the records appended since the last force through to the device.
+    public void force() {
+        int position = buffer.position();
+        if (position > forcedPosition) {
+            buffer.force(forcedPosition, position - forcedPosition);
+        }
+        forcedPosition = position;
+    }
+
+    // Only once every record up to lastSequence() is persisted elsewhere.
+    public void reset() {
+        buffer.position(0);
+        forcedPosition = 0;
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public int position() {
+        return buffer.position();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JournalRecord read(int position) {
+        if (buffer.capacity() - position < HEADER_SIZE + FIXED_PAYLOAD_SIZE) {
+            return null;
+        }
+        int payloadSize = buffer.getInt(position);
+        if (payloadSize < FIXED_PAYLOAD_SIZE || payloadSize > buffer.capacity() - position - HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer payload = buffer.slice(position + HEADER_SIZE, payloadSize);
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+            return null;
+        }
+        long sequence = payload.getLong();
+        byte type = payload.get();
+        long accountId = payload.getLong();
+        long counterpartyId = payload.getLong();
+        long amount = payload.getLong();
+        int nameLength = payload.getInt();
+        if (nameLength > payload.remaining()) {
+            return null;
+        }
+        String name = null;
+        if (nameLength >= 0) {
+            byte[] bytes = new byte[nameLength];
+            payload.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new JournalRecord(sequence, type, accountId, counterpartyId, amount, name);
+    }
+
+    // Upper bound, a char never takes more than three bytes in UTF-8.
+    private static int recordSize(String accountHolderName) {
+        return HEADER_SIZE + FIXED_PAYLOAD_SIZE + (accountHolderName == null ? 0 : accountHolderName.length() * 3);
+    }
+
+    public record JournalRecord(long sequence, byte type, long accountId, long counterpartyId, long amount,
+                                String accountHolderName) {
+    }
+}
@@ -0,0 +1,165 @@
+package com.sergeymars.banking_app.engine;
+
+import com.sergeymars.banking_app.entity.Account;
+
+import java.util.Arrays;
+
+// Accounts in parallel primitive arrays, one slot per account in ascending id order, plus an open-addressing
+// id -> slot table, so a lookup is a hash probe and a balance change a store into a long[].
+//
+// Every balance write also bumps the account's version, the row_version it will have once persisted.
+//
+// Not thread-safe: it belongs to the thread of the engine that owns it. Ids must be added in ascending
+// order, which holds for ids handed out by the account sequence. Slots of deleted accounts are not reused.
+public final class BalanceStore {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] ids;
+    private long[] balances;
+    private long[] versions;
+    private String[] names;
+    private String[] nameKeys;
+    private boolean[] deleted;
+    private int slots;
+    private int live;
+
+    private long[] tableIds;
+    private int[] tableSlots;
+    private int mask;
+
+    public BalanceStore(int expectedAccounts) {
+        int capacity = Math.max(16, expectedAccounts);
+        ids = new long[capacity];
+        balances = new long[capacity];
+        versions = new long[capacity];
+        names = new String[capacity];
+        nameKeys = new String[capacity];
+        deleted = new boolean[capacity];
+        resizeTable(tableSizeFor(capacity));
+    }
+
+    public void add(long id, String accountHolderName, long balance) {
+        add(id, accountHolderName, balance, 0);
+    }
+
+    public void add(long id, String accountHolderName, long balance, long version) {
+        if (id == EMPTY || slots > 0 && id <= ids[slots - 1]) {
+            throw new IllegalStateException("Account ids must be added in ascending order, got " + id);
+        }
+        if (slots == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            balances = Arrays.copyOf(balances, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            names = Arrays.copyOf(names, capacity);
+            nameKeys = Arrays.copyOf(nameKeys, capacity);
+            deleted = Arrays.copyOf(deleted, capacity);
+        }
+        if (slots + 1 > tableIds.length / 2) {
+            resizeTable(tableIds.length * 2);
+        }
+        int slot = slots++;
+        ids[slot] = id;
+        balances[slot] = balance;
+        versions[slot] = version;
+        names[slot] = accountHolderName;
+        nameKeys[slot] = Account.holderNameKey(accountHolderName);
+        insert(id, slot);
+        live++;
+    }
+
+    // Slot of a live account, or -1.
+    public int slotOf(long id) {
+        for (int i = index(id); tableIds[i] != EMPTY; i = i + 1 & mask) {
+            if (tableIds[i] == id) {
+                int slot = tableSlots[i];
+                return deleted[slot] ? -1 : slot;
+            }
+        }
+        return -1;
+    }
+
+    // First slot, live or not, whose id is greater than afterId; slots() if there is none.
+    public int slotAfter(long afterId) {
+        int index = Arrays.binarySearch(ids, 0, slots, afterId);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    public void remove(int slot) {
+        deleted[slot] = true;
+        names[slot] = null;
+        nameKeys[slot] = null;
+        balances[slot] = 0;
+        live--;
+    }
+
+    public boolean isLive(int slot) {
+        return !deleted[slot];
+    }
+
+    public long idAt(int slot) {
+        return ids[slot];
+    }
+
+    public long balanceAt(int slot) {
+        return balances[slot];
+    }
+
+    public void setBalanceAt(int slot, long balance) {
+        balances[slot] = balance;
+        versions[slot]++;
+    }
+
+    public long versionAt(int slot) {
+        return versions[slot];
+    }
+
+    public String nameAt(int slot) {
+        return names[slot];
+    }
+
+    public String nameKeyAt(int slot) {
+        return nameKeys[slot];
+    }
+
+    public long lastId() {
+        return slots == 0 ? 0 : ids[slots - 1];
+    }
+
+    public int slots() {
+        return slots;
+    }
+
+    public int size() {
+        return live;
+    }
+
+    private int index(long id) {
+        // Fibonacci hashing spreads the sequential ids over the whole table.
+        return (int) (id * 0x9E3779B97F4A7C15L >>> 32) & mask;
+    }
+
+    private void insert(long id, int slot) {
+        int i = index(id);
+        while (tableIds[i] != EMPTY) {
+            i = i + 1 & mask;
+        }
+        tableIds[i] = id;
+        tableSlots[i] = slot;
+    }
+
+    private void resizeTable(int size) {
+        tableIds = new long[size];
+        tableSlots = new int[size];
+        Arrays.fill(tableIds, EMPTY);
+        mask = size - 1;
+        for (int slot = 0; slot < slots; slot++) {
+            insert(ids[slot], slot);
+        }
+    }
+
+    private static int tableSizeFor(int accounts) {
+        return Integer.highestOneBit(Math.max(8, accounts) * 2 - 1) * 2;
+    }
+}
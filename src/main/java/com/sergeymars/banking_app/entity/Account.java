@@ -5,18 +5,54 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.util.Locale;
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
-@Table(name = "accounts")
+// idx_accounts_holder_name_key gives the prefix search its keyset order. On PostgreSQL with a collation
+// other than C the LIKE cannot use it; db/schema-postgresql.sql adds idx_accounts_holder_name_pattern
+// with text_pattern_ops for that.
+@Table(name = "accounts", indexes = @Index(name = "idx_accounts_holder_name_key", columnList = "holder_name_key, id"))
 @Entity
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
     @Column(name = "account_holder_name")
     private String accountHolderName;
-    private double balance;
+    // Minor units, see Money.
+    @ColumnDefault("0")
+    @Column(name = "balance_minor", nullable = false)
+    private long balance;
+    // Number of account_balance_slots rows credits are spread across; 0 for a regular account.
+    @ColumnDefault("0")
+    @Column(name = "balance_slots", nullable = false)
+    private int balanceSlots;
+    // Lowercased accountHolderName, maintained on every write, for case-insensitive prefix search.
+    @Column(name = "holder_name_key")
+    private String holderNameKey;
+    // Bumped by every write to the row, bulk updates and JDBC included; the ETag of account reads.
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "row_version", nullable = false)
+    private long version;
+
+    public Account(Long id, String accountHolderName, long balance) {
+        this(id, accountHolderName, balance, 0, null, 0);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateHolderNameKey() {
+        holderNameKey = holderNameKey(accountHolderName);
+    }
+
+    public static String holderNameKey(String accountHolderName) {
+        return accountHolderName == null ? null : accountHolderName.toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,37 @@
+package com.sergeymars.banking_app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.io.Serializable;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Table(name = "account_balance_slots")
+@IdClass(AccountBalanceSlot.SlotId.class)
+@Entity
+public class AccountBalanceSlot {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+    @Id
+    private int slot;
+    @ColumnDefault("0")
+    @Column(name = "balance_minor", nullable = false)
+    private long balance;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class SlotId implements Serializable {
+        private Long accountId;
+        private int slot;
+    }
+}
@@ -0,0 +1,39 @@
+package com.sergeymars.banking_app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Table(name = "balance_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_snapshots_account_id_sequence", columnNames = {"account_id", "sequence_number"})
+})
+@Entity
+public class BalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_snapshots_seq")
+    @SequenceGenerator(name = "balance_snapshots_seq", sequenceName = "balance_snapshots_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    @Column(name = "sequence_number", nullable = false)
+    private long sequenceNumber;
+    @ColumnDefault("0")
+    @Column(name = "balance_minor", nullable = false)
+    private long balance;
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+    // The snapshot covers the account's entries up to and including this sequence number.
+    @Column(name = "last_sequence_number", nullable = false)
+    private long lastSequenceNumber;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,43 @@
+package com.sergeymars.banking_app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+// Checkpoint of an end-of-day chunk, written in the transaction that applied it: a row means the accounts
+// with chunkFrom <= id <= chunkTo got their interest and fees for businessDate, exactly once.
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Table(name = "end_of_day_chunks", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_end_of_day_chunks_date_from", columnNames = {"business_date", "chunk_from"})
+})
+@Entity
+public class EndOfDayChunk {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "end_of_day_chunks_seq")
+    @SequenceGenerator(name = "end_of_day_chunks_seq", sequenceName = "end_of_day_chunks_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+    @Column(name = "chunk_from", nullable = false)
+    private long chunkFrom;
+    @Column(name = "chunk_to", nullable = false)
+    private long chunkTo;
+    @Column(name = "account_count", nullable = false)
+    private long accountCount;
+    @Column(name = "interest_minor", nullable = false)
+    private long interest;
+    @Column(name = "fees_minor", nullable = false)
+    private long fees;
+    @Column(name = "duration_ms", nullable = false)
+    private long durationMillis;
+    @Column(name = "finished_at", nullable = false)
+    private Instant finishedAt;
+}
@@ -0,0 +1,33 @@
+package com.sergeymars.banking_app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Entity
+public class IdempotencyKey {
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+    // Operation, account and amount of the first request; a replay has to match it.
+    @Column(name = "request_fingerprint", nullable = false)
+    private String requestFingerprint;
+    // Null while the request that reserved the key is still running.
+    @Column(name = "response_body", length = 4000)
+    private String responseBody;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
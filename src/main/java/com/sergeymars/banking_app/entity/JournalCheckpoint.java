@@ -0,0 +1,23 @@
+package com.sergeymars.banking_app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Highest journal sequence of the in-memory engine whose effect is in the database, updated in the same
+// transaction as the accounts; recovery replays the journal from the next sequence on.
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Table(name = "journal_checkpoints")
+@Entity
+public class JournalCheckpoint {
+    @Id
+    @Column(name = "journal_name")
+    private String journalName;
+    @Column(name = "journal_sequence", nullable = false)
+    private long sequence;
+}
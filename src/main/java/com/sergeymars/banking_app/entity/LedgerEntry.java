@@ -0,0 +1,45 @@
+package com.sergeymars.banking_app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+// Rows are only ever inserted. idx_ledger_entries_account_id_sequence serves the entries after a balance
+// snapshot, idx_ledger_entries_created_at the snapshot job's look at recently active accounts.
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_account_id_id", columnList = "account_id, id"),
+        @Index(name = "idx_ledger_entries_account_id_sequence", columnList = "account_id, sequence_number"),
+        @Index(name = "idx_ledger_entries_created_at", columnList = "created_at")
+})
+@Entity
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+    @SequenceGenerator(name = "ledger_entries_seq", sequenceName = "ledger_entries_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 16)
+    private LedgerEntryType type;
+    @ColumnDefault("0")
+    @Column(name = "amount_minor", nullable = false)
+    private long amount;
+    @Column(name = "counterparty_account_id")
+    private Long counterpartyAccountId;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    // One past the account's last committed entry when written, under the lock of the account row or of the
+    // hot account slot being credited. Concurrent credits to different slots of a hot account can share a number.
+    @Column(name = "sequence_number", nullable = false)
+    private long sequenceNumber;
+}
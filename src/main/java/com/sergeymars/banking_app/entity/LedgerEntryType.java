@@ -0,0 +1,11 @@
+package com.sergeymars.banking_app.entity;
+
+public enum LedgerEntryType {
+    OPENING,
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER_IN,
+    TRANSFER_OUT,
+    INTEREST,
+    FEE
+}
@@ -0,0 +1,7 @@
+package com.sergeymars.banking_app.exception;
+
+public class AccountNotFoundException extends AccountException {
+    public AccountNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.sergeymars.banking_app.exception;
+
+public class EndOfDayConflictException extends RuntimeException {
+    public EndOfDayConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.sergeymars.banking_app.exception;
+
+public class IdempotencyKeyException extends RuntimeException {
+    public IdempotencyKeyException(String message) {
+        super(message);
+    }
+}
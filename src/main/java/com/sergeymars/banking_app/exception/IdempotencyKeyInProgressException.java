@@ -0,0 +1,7 @@
+package com.sergeymars.banking_app.exception;
+
+public class IdempotencyKeyInProgressException extends IdempotencyKeyException {
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
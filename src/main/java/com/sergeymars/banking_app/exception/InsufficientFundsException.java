@@ -0,0 +1,7 @@
+package com.sergeymars.banking_app.exception;
+
+public class InsufficientFundsException extends AccountException {
+    public InsufficientFundsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.sergeymars.banking_app.exception;
+
+public class OperationNotAvailableException extends AccountException {
+    public OperationNotAvailableException(String message) {
+        super(message);
+    }
+}
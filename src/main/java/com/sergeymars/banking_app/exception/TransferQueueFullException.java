@@ -0,0 +1,7 @@
+package com.sergeymars.banking_app.exception;
+
+public class TransferQueueFullException extends RuntimeException {
+    public TransferQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.sergeymars.banking_app.mapper;
+
+import com.sergeymars.banking_app.dto.LedgerEntryDto;
+import com.sergeymars.banking_app.entity.LedgerEntry;
+
+public class LedgerEntryMapper {
+    public static LedgerEntryDto mapToLedgerEntryDto(LedgerEntry ledgerEntry) {
+        return new LedgerEntryDto(
+                ledgerEntry.getId(),
+                ledgerEntry.getAccountId(),
+                ledgerEntry.getType(),
+                ledgerEntry.getAmount(),
+                ledgerEntry.getCounterpartyAccountId(),
+                ledgerEntry.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,147 @@
+package com.sergeymars.banking_app.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times every AccountService call end to end and, separately, the part of it spent in the database:
+// repository calls plus the transaction commit, which is where Hibernate flushes dirty entities.
+// The aspect wraps the transactional proxy, so the total includes the commit as well.
+// AbstractPlatformTransactionManager.commit is final and cannot be advised, so the commit is timed
+// by a synchronization registered on the first repository call of each transaction.
+//
+// Timers are registered once per operation and outcome and then reused, so recording a call costs two
+// nanoTime reads and two timer updates on top of the join point itself.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccountServiceMetrics {
+
+    static final String OPERATION_TIMER = "banking.account.operation";
+    static final String DB_TIMER = "banking.account.operation.db";
+
+    private static final Object COMMIT_TIMER_KEY = new Object();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, OperationMeters> operations = new ConcurrentHashMap<>();
+
+    // Nanoseconds spent in the database by the AccountService call running on this thread, -1 outside of one.
+    private final ThreadLocal<long[]> dbNanos = ThreadLocal.withInitial(() -> new long[]{-1});
+
+    public AccountServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.sergeymars.banking_app.service.AccountService.*(..))")
+    public Object timeOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = joinPoint.getSignature().getName();
+        OperationMeters meters = operations.get(name);
+        if (meters == null) {
+            meters = operations.computeIfAbsent(name, OperationMeters::new);
+        }
+        long[] db = dbNanos.get();
+        long enclosingDb = db[0];
+        db[0] = 0;
+        Outcome outcome = Outcome.ERROR;
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            outcome = Outcome.SUCCESS;
+            return result;
+        } catch (Throwable e) {
+            outcome = Outcome.of(e);
+            throw e;
+        } finally {
+            long total = System.nanoTime() - start;
+            long inDb = db[0];
+            db[0] = enclosingDb < 0 ? -1 : enclosingDb + inDb;
+            meters.record(outcome, total, inDb);
+        }
+    }
+
+    @Around("this(org.springframework.data.repository.Repository) || @within(org.springframework.stereotype.Repository)")
+    public Object timeDatabaseCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        long[] db = dbNanos.get();
+        if (db[0] < 0) {
+            return joinPoint.proceed();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(COMMIT_TIMER_KEY)) {
+            CommitTimer commitTimer = new CommitTimer(db);
+            TransactionSynchronizationManager.bindResource(COMMIT_TIMER_KEY, commitTimer);
+            TransactionSynchronizationManager.registerSynchronization(commitTimer);
+        }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            db[0] += System.nanoTime() - start;
+        }
+    }
+
+    private static final class CommitTimer implements TransactionSynchronization {
+
+        private final long[] db;
+        private boolean committing;
+        private long commitStart;
+
+        CommitTimer(long[] db) {
+            this.db = db;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            committing = true;
+            commitStart = System.nanoTime();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(COMMIT_TIMER_KEY);
+            if (committing && db[0] >= 0) {
+                db[0] += System.nanoTime() - commitStart;
+            }
+        }
+    }
+
+    private final class OperationMeters {
+
+        private final String operation;
+        private final Timer[] byOutcome = new Timer[Outcome.values().length];
+        private final Timer db;
+
+        OperationMeters(String operation) {
+            this.operation = operation;
+            this.db = Timer.builder(DB_TIMER)
+                    .description("Time an AccountService operation spends in repositories and commit")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+
+        void record(Outcome outcome, long totalNanos, long dbNanos) {
+            Timer timer = byOutcome[outcome.ordinal()];
+            if (timer == null) {
+                // Registration is idempotent, so a race here only registers the same timer twice.
+                timer = Timer.builder(OPERATION_TIMER)
+                        .description("Latency of AccountService operations by outcome")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome.tag())
+                        .register(meterRegistry);
+                byOutcome[outcome.ordinal()] = timer;
+            }
+            timer.record(totalNanos, TimeUnit.NANOSECONDS);
+            db.record(dbNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.sergeymars.banking_app.metrics;
+
+import com.sergeymars.banking_app.cache.AccountCache;
+import com.sergeymars.banking_app.service.impl.AdmissionControl;
+import com.sergeymars.banking_app.service.impl.DepositCoalescer;
+import com.sergeymars.banking_app.service.impl.IdempotencyStore;
+import com.sergeymars.banking_app.service.impl.TransferDispatcher;
+import com.sergeymars.banking_app.service.impl.RetryingTransactionExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+// Publishes the counters the components already keep, so nothing extra happens on their hot paths.
+// Connection pool gauges (hikaricp.connections.*) come from Spring Boot's own HikariCP binding.
+@Component
+public class BankingMeterBinder implements MeterBinder {
+
+    private final RetryingTransactionExecutor retryingTransactionExecutor;
+    private final AccountCache accountCache;
+    private final DepositCoalescer depositCoalescer;
+    private final IdempotencyStore idempotencyStore;
+    private final TransferDispatcher transferDispatcher;
+    private final AdmissionControl admissionControl;
+
+    public BankingMeterBinder(RetryingTransactionExecutor retryingTransactionExecutor,
+                              AccountCache accountCache,
+                              DepositCoalescer depositCoalescer,
+                              IdempotencyStore idempotencyStore,
+                              TransferDispatcher transferDispatcher,
+                              AdmissionControl admissionControl) {
+        this.retryingTransactionExecutor = retryingTransactionExecutor;
+        this.accountCache = accountCache;
+        this.depositCoalescer = depositCoalescer;
+        this.idempotencyStore = idempotencyStore;
+        this.transferDispatcher = transferDispatcher;
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("banking.transactions.retries", retryingTransactionExecutor,
+                        RetryingTransactionExecutor::getRetryCount)
+                .description("Transactions replayed after a deadlock, lock timeout or serialization failure")
+                .register(registry);
+        FunctionCounter.builder("banking.transactions.retries.exhausted", retryingTransactionExecutor,
+                        RetryingTransactionExecutor::getExhaustedCount)
+                .description("Transactions that failed on their last allowed attempt")
+                .register(registry);
+
+        FunctionCounter.builder("banking.cache.accounts.requests", accountCache, AccountCache::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("banking.cache.accounts.requests", accountCache, AccountCache::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("banking.cache.accounts.evictions", accountCache, AccountCache::getEvictionCount)
+                .register(registry);
+        Gauge.builder("banking.cache.accounts.size", accountCache, AccountCache::size)
+                .register(registry);
+
+        FunctionCounter.builder("banking.deposits.coalesced", depositCoalescer, DepositCoalescer::getDepositCount)
+                .description("Deposits written through the coalescer")
+                .register(registry);
+        FunctionCounter.builder("banking.deposits.batches", depositCoalescer, DepositCoalescer::getBatchCount)
+                .description("Transactions the coalescer used to write them")
+                .register(registry);
+
+        FunctionCounter.builder("banking.idempotency.replays", idempotencyStore, IdempotencyStore::getReplayCount)
+                .description("Requests answered with the stored response of their Idempotency-Key")
+                .register(registry);
+        Gauge.builder("banking.idempotency.cache.size", idempotencyStore, IdempotencyStore::getCachedKeyCount)
+                .register(registry);
+
+        Gauge.builder("banking.transfers.async.queued", transferDispatcher, TransferDispatcher::getQueuedCount)
+                .description("Submitted transfers waiting for their worker")
+                .register(registry);
+        FunctionCounter.builder("banking.transfers.async.rejected", transferDispatcher, TransferDispatcher::getRejectedCount)
+                .description("Transfers rejected because the queue of their worker was full")
+                .register(registry);
+
+        Gauge.builder("banking.admission.in-flight", admissionControl, AdmissionControl::getInFlight)
+                .description("Admitted mutations still running")
+                .register(registry);
+        FunctionCounter.builder("banking.admission.rejected", admissionControl, AdmissionControl::getRejectedCount)
+                .description("Mutations shed by the rate or concurrency limits")
+                .register(registry);
+        Gauge.builder("banking.admission.accounts.tracked", admissionControl, AdmissionControl::getTrackedAccounts)
+                .register(registry);
+    }
+}
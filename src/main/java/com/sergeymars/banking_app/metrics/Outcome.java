@@ -0,0 +1,42 @@
+package com.sergeymars.banking_app.metrics;
+
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import org.springframework.dao.ConcurrencyFailureException;
+
+enum Outcome {
+    SUCCESS("success"),
+    INSUFFICIENT_FUNDS("insufficient_funds"),
+    NOT_FOUND("not_found"),
+    REJECTED("rejected"),
+    CONFLICT("conflict"),
+    ERROR("error");
+
+    private final String tag;
+
+    Outcome(String tag) {
+        this.tag = tag;
+    }
+
+    String tag() {
+        return tag;
+    }
+
+    // CONFLICT means a deadlock or lock timeout that outlived every retry of RetryingTransactionExecutor.
+    static Outcome of(Throwable throwable) {
+        if (throwable instanceof InsufficientFundsException) {
+            return INSUFFICIENT_FUNDS;
+        }
+        if (throwable instanceof AccountNotFoundException) {
+            return NOT_FOUND;
+        }
+        if (throwable instanceof AccountException) {
+            return REJECTED;
+        }
+        if (throwable instanceof ConcurrencyFailureException) {
+            return CONFLICT;
+        }
+        return ERROR;
+    }
+}
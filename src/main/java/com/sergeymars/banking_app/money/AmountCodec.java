@@ -0,0 +1,71 @@
+package com.sergeymars.banking_app.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+import java.io.IOException;
+
+// JSON keeps amounts as decimal numbers ("balance": 1000.50) while Java sees minor units. The digits are
+// read straight from the parser's text buffer and written from a short local char buffer, which the generator
+// copies into its own output buffer, so no double or BigDecimal sits in between.
+public final class AmountCodec {
+
+    private AmountCodec() {
+    }
+
+    public static class Serializer extends StdScalarSerializer<Long> {
+
+        public Serializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long minorUnits, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            char[] chars = new char[Money.MAX_FORMATTED_LENGTH];
+            int start = Money.format(minorUnits, chars);
+            generator.writeNumber(chars, start, chars.length - start);
+        }
+    }
+
+    public static class Deserializer extends StdScalarDeserializer<Long> {
+
+        public Deserializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            try {
+                if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                    return Money.ofUnits(parser.getLongValue());
+                }
+                if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT
+                        || token == JsonToken.VALUE_STRING) {
+                    return Money.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                }
+            } catch (NumberFormatException | ArithmeticException e) {
+                return (Long) context.handleWeirdStringValue(Long.class, parser.getText(), e.getMessage());
+            }
+            return (Long) context.handleUnexpectedToken(Long.class, parser);
+        }
+
+        // An explicit null is rejected instead of silently becoming a zero amount.
+        @Override
+        public Long getNullValue(DeserializationContext context) throws JsonMappingException {
+            return context.reportInputMismatch(this, "Amount must not be null");
+        }
+
+        // A missing amount reads as zero, like the primitive it fills; the services refuse zero amounts.
+        @Override
+        public Long getAbsentValue(DeserializationContext context) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.sergeymars.banking_app.money;
+
+import com.sergeymars.banking_app.exception.AccountException;
+
+import java.math.BigDecimal;
+
+// Amounts and balances are longs of minor units (cents): every account holds the same currency with
+// SCALE decimal places. The arithmetic works on primitives only and fails instead of wrapping around.
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final long MINOR_UNITS_PER_UNIT = 100;
+
+    // Enough for "-92233720368547758.08".
+    public static final int MAX_FORMATTED_LENGTH = 21;
+
+    private Money() {
+    }
+
+    public static long add(long minorUnits, long otherMinorUnits) {
+        long result = minorUnits + otherMinorUnits;
+        if (((minorUnits ^ result) & (otherMinorUnits ^ result)) < 0) {
+            throw outOfRange();
+        }
+        return result;
+    }
+
+    public static long subtract(long minorUnits, long otherMinorUnits) {
+        long result = minorUnits - otherMinorUnits;
+        if (((minorUnits ^ otherMinorUnits) & (minorUnits ^ result)) < 0) {
+            throw outOfRange();
+        }
+        return result;
+    }
+
+    public static long negate(long minorUnits) {
+        if (minorUnits == Long.MIN_VALUE) {
+            throw outOfRange();
+        }
+        return -minorUnits;
+    }
+
+    public static long ofUnits(long units) {
+        long high = Math.multiplyHigh(units, MINOR_UNITS_PER_UNIT);
+        long result = units * MINOR_UNITS_PER_UNIT;
+        if (high != result >> 63) {
+            throw outOfRange();
+        }
+        return result;
+    }
+
+    public static long parse(String text) {
+        return parse(text.toCharArray(), 0, text.length());
+    }
+
+    // Accepts a plain decimal such as "-12.5" or "1000.00"; digits past SCALE must be zeros.
+    // Exponent notation is rare enough in requests to go through BigDecimal.
+    public static long parse(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative || i < end && chars[i] == '+') {
+            i++;
+        }
+        long value = 0;
+        int integerDigits = 0;
+        for (; i < end && isDigit(chars[i]); i++, integerDigits++) {
+            value = accumulate(value, chars[i]);
+        }
+        int fractionDigits = 0;
+        if (i < end && chars[i] == '.') {
+            for (i++; i < end && isDigit(chars[i]); i++, fractionDigits++) {
+                if (fractionDigits < SCALE) {
+                    value = accumulate(value, chars[i]);
+                } else if (chars[i] != '0') {
+                    throw new NumberFormatException("Amount has more than " + SCALE + " decimal places");
+                }
+            }
+        }
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            return parseExponent(new String(chars, offset, length));
+        }
+        if (i != end || integerDigits + fractionDigits == 0) {
+            throw new NumberFormatException("Not an amount: " + new String(chars, offset, length));
+        }
+        for (int missing = Math.min(fractionDigits, SCALE); missing < SCALE; missing++) {
+            value = accumulate(value, '0');
+        }
+        // The magnitude is accumulated as a negative number, so Long.MIN_VALUE parses too.
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new NumberFormatException("Amount is out of range");
+            }
+            return -value;
+        }
+        return value;
+    }
+
+    private static long parseExponent(String text) {
+        try {
+            return new BigDecimal(text).movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount has more than " + SCALE + " decimal places or is out of range");
+        }
+    }
+
+    private static long accumulate(long negativeValue, char digit) {
+        if (negativeValue < Long.MIN_VALUE / 10) {
+            throw new NumberFormatException("Amount is out of range");
+        }
+        long shifted = negativeValue * 10;
+        int d = digit - '0';
+        if (shifted < Long.MIN_VALUE + d) {
+            throw new NumberFormatException("Amount is out of range");
+        }
+        return shifted - d;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // The digit array never leaves this method, so escape analysis keeps it off the heap. Not a ThreadLocal:
+    // requests on virtual threads would each allocate one and add a ThreadLocalMap entry on top.
+    public static String format(long minorUnits) {
+        char[] chars = new char[MAX_FORMATTED_LENGTH];
+        int start = format(minorUnits, chars);
+        return new String(chars, start, chars.length - start);
+    }
+
+    // Writes the amount right-aligned into chars, always with SCALE decimals, and returns the start index.
+    public static int format(long minorUnits, char[] chars) {
+        int i = chars.length;
+        // Negative remainders avoid the Long.MIN_VALUE corner case.
+        long value = minorUnits > 0 ? -minorUnits : minorUnits;
+        for (int digit = 0; digit < SCALE; digit++) {
+            chars[--i] = (char) ('0' - value % 10);
+            value /= 10;
+        }
+        chars[--i] = '.';
+        do {
+            chars[--i] = (char) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (minorUnits < 0) {
+            chars[--i] = '-';
+        }
+        return i;
+    }
+
+    private static AccountException outOfRange() {
+        return new AccountException("Amount is out of range");
+    }
+}
@@ -0,0 +1,32 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.entity.AccountBalanceSlot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, AccountBalanceSlot.SlotId> {
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update AccountBalanceSlot s set s.balance = s.balance + :amount where s.accountId = :accountId and s.slot = :slot")
+    int credit(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("amount") long amount);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountBalanceSlot s where s.accountId = :accountId")
+    long sumByAccountId(@Param("accountId") Long accountId);
+
+    @Query("select s.accountId, sum(s.balance) from AccountBalanceSlot s where s.accountId in :accountIds group by s.accountId")
+    List<Object[]> sumByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AccountBalanceSlot s where s.accountId = :accountId order by s.slot")
+    List<AccountBalanceSlot> findByAccountIdForUpdate(@Param("accountId") Long accountId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from AccountBalanceSlot s where s.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,171 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.VersionedAccount;
+import com.sergeymars.banking_app.money.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+@Repository
+public class AccountJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final int batchSize;
+    private final int exportFetchSize;
+
+    public AccountJdbcRepository(DataSource dataSource,
+                                 @Value("${banking.accounts.stream-fetch-size:1000}") int fetchSize,
+                                 @Value("${banking.accounts.jdbc-batch-size:500}") int batchSize,
+                                 @Value("${banking.accounts.export-fetch-size:5000}") int exportFetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.batchSize = Math.max(1, batchSize);
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    // Forward-only, read-only cursor; PostgreSQL only honours the fetch size inside a transaction.
+    public void streamAll(Consumer<AccountDto> consumer) {
+        jdbcTemplate.query("select a.id, a.account_holder_name, a.balance_minor + coalesce(s.total, 0) from accounts a "
+                        + "left join (select account_id, sum(balance_minor) as total from account_balance_slots "
+                        + "group by account_id) s on s.account_id = a.id order by a.id",
+                rs -> {
+                    consumer.accept(new AccountDto(
+                            rs.getLong(1),
+                            rs.getString(2),
+                            rs.getLong(3)
+                    ));
+                });
+    }
+
+    // streamAll with the row version, for loading accounts into memory.
+    public void streamAllVersioned(Consumer<VersionedAccount> consumer) {
+        jdbcTemplate.query("select a.id, a.account_holder_name, a.balance_minor, a.row_version, coalesce(s.total, 0) "
+                        + "from accounts a left join (select account_id, sum(balance_minor) as total from account_balance_slots "
+                        + "group by account_id) s on s.account_id = a.id order by a.id",
+                rs -> {
+                    consumer.accept(new VersionedAccount(
+                            rs.getLong(1),
+                            rs.getString(2),
+                            rs.getLong(3),
+                            rs.getLong(4),
+                            rs.getLong(5)
+                    ));
+                });
+    }
+
+    // Like streamAll, but hands the columns over as they are, without building an AccountDto per row.
+    public void exportRange(long fromId, long toId, AccountRowHandler handler) {
+        jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement("select a.id, a.account_holder_name, "
+                                    + "a.balance_minor + coalesce(s.total, 0) from accounts a left join (select account_id, "
+                                    + "sum(balance_minor) as total from account_balance_slots where account_id between ? and ? "
+                                    + "group by account_id) s on s.account_id = a.id where a.id between ? and ? order by a.id",
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(exportFetchSize);
+                    statement.setLong(1, fromId);
+                    statement.setLong(2, toId);
+                    statement.setLong(3, fromId);
+                    statement.setLong(4, toId);
+                    return statement;
+                },
+                rs -> {
+                    handler.handle(rs.getLong(1), rs.getString(2), rs.getLong(3));
+                });
+    }
+
+    public void streamHolderNameKeys(BiConsumer<Long, String> consumer) {
+        jdbcTemplate.query("select id, holder_name_key from accounts where holder_name_key is not null",
+                rs -> {
+                    consumer.accept(rs.getLong(1), rs.getString(2));
+                });
+    }
+
+    public Optional<long[]> findIdRange() {
+        return jdbcTemplate.query("select min(id), max(id) from accounts", rs -> {
+            rs.next();
+            long max = rs.getLong(2);
+            return rs.wasNull() ? Optional.empty() : Optional.of(new long[]{rs.getLong(1), max});
+        });
+    }
+
+    // Count, total and per-bucket count of the visible balances of accounts with fromId <= id < toId.
+    // A balance lands in the first bucket whose upper bound it is below, or in the last bucket.
+    public BalanceAggregate aggregateBalances(long fromId, long toId, long[] upperBounds) {
+        StringBuilder bucket = new StringBuilder("case");
+        for (int i = 0; i < upperBounds.length; i++) {
+            bucket.append(" when b.balance < ").append(upperBounds[i]).append(" then ").append(i);
+        }
+        bucket.append(" else ").append(upperBounds.length).append(" end");
+        long[] buckets = new long[upperBounds.length + 1];
+        long[] totals = new long[2];
+        jdbcTemplate.query("select " + bucket + ", count(*), sum(b.balance) from (select a.balance_minor + coalesce(s.total, 0) "
+                        + "as balance from accounts a left join (select account_id, sum(balance_minor) as total "
+                        + "from account_balance_slots where account_id >= ? and account_id < ? group by account_id) s "
+                        + "on s.account_id = a.id where a.id >= ? and a.id < ?) b group by " + bucket,
+                rs -> {
+                    buckets[rs.getInt(1)] = rs.getLong(2);
+                    totals[0] += rs.getLong(2);
+                    totals[1] = Money.add(totals[1], rs.getLong(3));
+                }, fromId, toId, fromId, toId);
+        return new BalanceAggregate(totals[0], totals[1], buckets);
+    }
+
+    // Ids must be sorted ascending: rows are locked chunk by chunk in that order to keep lock acquisition deterministic.
+    public Map<Long, Long> lockBalances(List<Long> sortedIds) {
+        Map<Long, Long> balances = new HashMap<>(sortedIds.size() * 2);
+        for (int from = 0; from < sortedIds.size(); from += batchSize) {
+            List<Long> chunk = sortedIds.subList(from, Math.min(from + batchSize, sortedIds.size()));
+            namedParameterJdbcTemplate.query(
+                    "select id, balance_minor from accounts where id in (:ids) order by id for update",
+                    new MapSqlParameterSource("ids", chunk),
+                    rs -> {
+                        balances.put(rs.getLong(1), rs.getLong(2));
+                    });
+        }
+        return balances;
+    }
+
+    // Locks every account with fromId <= id <= toId, in id order, and returns its row balance and slot count.
+    public List<LockedAccount> lockRange(long fromId, long toId) {
+        return jdbcTemplate.query("select id, balance_minor, balance_slots from accounts where id between ? and ? "
+                        + "order by id for update",
+                (rs, rowNum) -> new LockedAccount(rs.getLong(1), rs.getLong(2), rs.getInt(3)), fromId, toId);
+    }
+
+    public void updateBalances(SortedMap<Long, Long> balances) {
+        List<Object[]> args = new ArrayList<>(balances.size());
+        balances.forEach((id, balance) -> args.add(new Object[]{balance, id}));
+        for (int from = 0; from < args.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate("update accounts set balance_minor = ?, row_version = row_version + 1 where id = ?",
+                    args.subList(from, Math.min(from + batchSize, args.size())));
+        }
+    }
+
+    @FunctionalInterface
+    public interface AccountRowHandler {
+        void handle(long id, String accountHolderName, long balance);
+    }
+
+    public record LockedAccount(long id, long balance, int balanceSlots) {
+    }
+
+    public record BalanceAggregate(long count, long total, long[] buckets) {
+    }
+}
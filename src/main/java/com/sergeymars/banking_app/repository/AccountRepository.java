@@ -1,7 +1,69 @@
 package com.sergeymars.banking_app.repository;
 
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.VersionedAccount;
 import com.sergeymars.banking_app.entity.Account;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account,Long> {
+    List<Account> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Keyset over (holderNameKey, id), the order of idx_accounts_holder_name_key; an empty afterKey starts at the top.
+    @Query("select a from Account a where a.holderNameKey like :pattern escape '\\' "
+            + "and (a.holderNameKey > :afterKey or (a.holderNameKey = :afterKey and a.id > :afterId)) "
+            + "order by a.holderNameKey, a.id")
+    List<Account> searchByHolderNameKey(@Param("pattern") String pattern,
+                                        @Param("afterKey") String afterKey,
+                                        @Param("afterId") Long afterId,
+                                        Limit limit);
+
+    List<Account> findByHolderNameKeyIsNullAndAccountHolderNameIsNotNull(Limit limit);
+
+    // One statement, so a concurrent drain of the slots into the account row is never seen half-way.
+    @Query("select new com.sergeymars.banking_app.dto.AccountDto(a.id, a.accountHolderName, "
+            + "a.balance + coalesce((select sum(s.balance) from AccountBalanceSlot s where s.accountId = a.id), 0)) "
+            + "from Account a where a.id = :id")
+    Optional<AccountDto> findWithSlotBalanceById(@Param("id") Long id);
+
+    @Query("select new com.sergeymars.banking_app.dto.VersionedAccount(a.id, a.accountHolderName, a.balance, a.version, "
+            + "coalesce((select sum(s.balance) from AccountBalanceSlot s where s.accountId = a.id), 0)) "
+            + "from Account a where a.id = :id")
+    Optional<VersionedAccount> findVersionedById(@Param("id") Long id);
+
+    // Answers a conditional read without loading the account.
+    @Query("select new com.sergeymars.banking_app.dto.AccountVersion(a.version, "
+            + "coalesce((select sum(s.balance) from AccountBalanceSlot s where s.accountId = a.id), 0)) "
+            + "from Account a where a.id = :id")
+    Optional<AccountVersion> findVersionById(@Param("id") Long id);
+
+    @Query("select a.id, a.balanceSlots from Account a where a.balanceSlots > 0")
+    List<Object[]> findHotAccountSlots();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 where a.id = :id")
+    int deposit(@Param("id") Long id, @Param("amount") long amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1 "
+            + "where a.id = :id and a.balance >= :amount")
+    int withdraw(@Param("id") Long id, @Param("amount") long amount);
+
+    // LIKE pattern matching every key that starts with keyPrefix literally.
+    static String prefixPattern(String keyPrefix) {
+        return keyPrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
 }
@@ -0,0 +1,10 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    Optional<BalanceSnapshot> findFirstByAccountIdOrderBySequenceNumberDesc(Long accountId);
+}
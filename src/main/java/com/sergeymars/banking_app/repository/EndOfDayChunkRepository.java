@@ -0,0 +1,17 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.entity.EndOfDayChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface EndOfDayChunkRepository extends JpaRepository<EndOfDayChunk, Long> {
+    // The id range of every checkpoint of the date; its length is the chunk size of the run that wrote it.
+    @Query("select c.chunkFrom, c.chunkTo from EndOfDayChunk c where c.businessDate = :businessDate")
+    List<Object[]> findRangesByBusinessDate(@Param("businessDate") LocalDate businessDate);
+
+    boolean existsByBusinessDateAndChunkFrom(LocalDate businessDate, long chunkFrom);
+}
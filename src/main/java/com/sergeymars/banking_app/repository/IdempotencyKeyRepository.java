@@ -0,0 +1,44 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.entity.IdempotencyKey;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+    @Query("select k from IdempotencyKey k where k.idempotencyKey = :key and k.expiresAt > :now")
+    Optional<IdempotencyKey> findLive(@Param("key") String key, @Param("now") Instant now);
+
+    // A plain insert rather than save(): save() merges an entity with an assigned id, which would
+    // overwrite a key committed concurrently instead of failing on the primary key.
+    @Modifying
+    @Query("insert into IdempotencyKey (idempotencyKey, requestFingerprint, responseBody, createdAt, expiresAt) "
+            + "values (:key, :fingerprint, :responseBody, :createdAt, :expiresAt)")
+    int insert(@Param("key") String key,
+               @Param("fingerprint") String fingerprint,
+               @Param("responseBody") String responseBody,
+               @Param("createdAt") Instant createdAt,
+               @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("update IdempotencyKey k set k.responseBody = :responseBody where k.idempotencyKey = :key")
+    int complete(@Param("key") String key, @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.idempotencyKey = :key and k.responseBody is null")
+    int release(@Param("key") String key);
+
+    @Query("select k.idempotencyKey from IdempotencyKey k where k.expiresAt <= :now order by k.expiresAt")
+    List<String> findExpiredKeys(@Param("now") Instant now, Limit limit);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.idempotencyKey in :keys and k.expiresAt <= :now")
+    int deleteExpired(@Param("keys") Collection<String> keys, @Param("now") Instant now);
+}
@@ -0,0 +1,83 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.entity.Account;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Writes of the in-memory engine's persister. Balances are applied as deltas, so a batch is correct on top
+// of whatever the database held at the previous checkpoint, hot account slots included. row_version goes up
+// by the number of balance changes, as it does in the engine's BalanceStore.
+@Repository
+@Profile("in-memory")
+public class InMemoryAccountRepository {
+
+    // allocationSize of accounts_seq on Account: with the pooled optimizer a nextval of N reserves N-49..N.
+    public static final int ACCOUNT_ID_BLOCK = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final int batchSize;
+    private volatile Boolean postgres;
+
+    public InMemoryAccountRepository(DataSource dataSource,
+                                     @Value("${banking.accounts.jdbc-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public long nextAccountIdBlock() {
+        return jdbcTemplate.queryForObject(isPostgres()
+                ? "select nextval('accounts_seq')"
+                : "select next value for accounts_seq", Long.class);
+    }
+
+    public void insert(List<AccountDto> accounts) {
+        for (int from = 0; from < accounts.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate("insert into accounts (id, account_holder_name, holder_name_key, balance_minor, "
+                            + "balance_slots) values (?, ?, ?, ?, 0)",
+                    accounts.subList(from, Math.min(from + batchSize, accounts.size())).stream()
+                            .map(account -> new Object[]{account.id(), account.accountHolderName(),
+                                    Account.holderNameKey(account.accountHolderName()), account.balance()})
+                            .toList());
+        }
+    }
+
+    public void addToBalances(SortedMap<Long, Long> deltas, Map<Long, Long> changes) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> args.add(new Object[]{delta, changes.get(id), id}));
+        for (int from = 0; from < args.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate("update accounts set balance_minor = balance_minor + ?, row_version = row_version + ? "
+                            + "where id = ?",
+                    args.subList(from, Math.min(from + batchSize, args.size())));
+        }
+    }
+
+    public void delete(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            MapSqlParameterSource chunk = new MapSqlParameterSource("ids", ids.subList(from, Math.min(from + batchSize, ids.size())));
+            namedParameterJdbcTemplate.update("delete from account_balance_slots where account_id in (:ids)", chunk);
+            namedParameterJdbcTemplate.update("delete from accounts where id in (:ids)", chunk);
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().startsWith("PostgreSQL"));
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,7 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.entity.JournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JournalCheckpointRepository extends JpaRepository<JournalCheckpoint, String> {
+}
@@ -0,0 +1,38 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.entity.LedgerEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    List<LedgerEntry> findByAccountIdAndIdLessThanOrderByIdDesc(Long accountId, Long id, Limit limit);
+
+    // Rows of [accountId, last sequence number]; accounts without entries are left out.
+    @Query("select e.accountId, max(e.sequenceNumber) from LedgerEntry e where e.accountId in :accountIds group by e.accountId")
+    List<Object[]> findLastSequenceNumbers(@Param("accountIds") Collection<Long> accountIds);
+
+    // Rows of [entry count, sum of amounts, last sequence number] of the entries after afterSequenceNumber.
+    @Query("select count(e), coalesce(sum(e.amount), 0), coalesce(max(e.sequenceNumber), :afterSequenceNumber) "
+            + "from LedgerEntry e where e.accountId = :accountId and e.sequenceNumber > :afterSequenceNumber")
+    List<Object[]> summarizeAfter(@Param("accountId") Long accountId,
+                                  @Param("afterSequenceNumber") long afterSequenceNumber);
+
+    @Query("select coalesce(sum(e.amount), 0) from LedgerEntry e "
+            + "where e.accountId = :accountId and e.sequenceNumber > :afterSequenceNumber")
+    long sumAfter(@Param("accountId") Long accountId, @Param("afterSequenceNumber") long afterSequenceNumber);
+
+    @Query("select distinct e.accountId from LedgerEntry e where e.createdAt >= :since")
+    List<Long> findAccountIdsWithEntriesSince(@Param("since") Instant since);
+
+    @Query("select e.accountId from LedgerEntry e where e.accountId in :accountIds and e.sequenceNumber > coalesce("
+            + "(select max(s.lastSequenceNumber) from BalanceSnapshot s where s.accountId = e.accountId), 0) "
+            + "group by e.accountId having count(e) >= :threshold")
+    List<Long> findAccountIdsWithUnsnapshottedEntries(@Param("accountIds") Collection<Long> accountIds,
+                                                      @Param("threshold") long threshold);
+}
@@ -0,0 +1,162 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.entity.LedgerEntryType;
+import com.sergeymars.banking_app.money.Money;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+// Non-blocking counterpart of AccountRepository and AccountJdbcRepository over the same tables.
+// Ids come straight from the Hibernate sequences: with the pooled optimizer a nextval of N reserves
+// N-49..N, so using N itself can never collide with ids Hibernate hands out.
+@Repository
+@Profile("reactive")
+public class ReactiveAccountRepository {
+
+    // The cast keeps the sum a bigint: both databases widen sum(bigint) to a decimal type.
+    private static final String SELECT_ACCOUNT = "select a.id, a.account_holder_name, cast(a.balance_minor + coalesce(("
+            + "select sum(s.balance_minor) from account_balance_slots s where s.account_id = a.id), 0) as bigint) "
+            + "as balance from accounts a ";
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+    private final boolean postgres;
+
+    public ReactiveAccountRepository(DatabaseClient databaseClient,
+                                     @Value("${banking.accounts.stream-fetch-size:1000}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.fetchSize = fetchSize;
+        this.postgres = databaseClient.getConnectionFactory().getMetadata().getName().startsWith("PostgreSQL");
+    }
+
+    public Mono<AccountDto> findById(Long id) {
+        return databaseClient.sql(SELECT_ACCOUNT + "where a.id = :id")
+                .bind("id", id)
+                .map(ReactiveAccountRepository::mapAccount)
+                .one();
+    }
+
+    // Rows are pulled from the cursor as the subscriber requests them, fetchSize at a time.
+    public Flux<AccountDto> findAll() {
+        return databaseClient.sql(SELECT_ACCOUNT + "order by a.id")
+                .filter((statement, next) -> next.execute(statement.fetchSize(fetchSize)))
+                .map(ReactiveAccountRepository::mapAccount)
+                .all();
+    }
+
+    public Flux<AccountDto> findPage(Long afterId, int limit) {
+        return databaseClient.sql(SELECT_ACCOUNT + "where a.id > :afterId order by a.id limit :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveAccountRepository::mapAccount)
+                .all();
+    }
+
+    public Mono<Long> insert(String accountHolderName, long balance) {
+        return databaseClient.sql("select " + nextValue("accounts_seq"))
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(id -> databaseClient.sql("insert into accounts (id, account_holder_name, holder_name_key, balance_minor, balance_slots) "
+                                + "values (:id, :name, :nameKey, :balance, 0)")
+                        .bind("id", id)
+                        .bind("name", accountHolderName)
+                        .bind("nameKey", Account.holderNameKey(accountHolderName))
+                        .bind("balance", balance)
+                        .then()
+                        .thenReturn(id));
+    }
+
+    public Mono<Long> deposit(Long id, long amount) {
+        return databaseClient.sql("update accounts set balance_minor = balance_minor + :amount, row_version = row_version + 1 "
+                        + "where id = :id")
+                .bind("amount", amount)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> withdraw(Long id, long amount) {
+        return databaseClient.sql("update accounts set balance_minor = balance_minor - :amount, row_version = row_version + 1 "
+                        + "where id = :id and balance_minor >= :amount")
+                .bind("amount", amount)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Balance of the accounts row alone, without hot account slots; empty if the account does not exist.
+    public Mono<Long> lockBalance(Long id) {
+        return databaseClient.sql("select balance_minor from accounts where id = :id for update")
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<Void> updateBalance(Long id, long balance) {
+        return databaseClient.sql("update accounts set balance_minor = :balance, row_version = row_version + 1 where id = :id")
+                .bind("balance", balance)
+                .bind("id", id)
+                .then();
+    }
+
+    // The caller must already hold the account row lock, so the lock order is account, then slots.
+    public Mono<Long> drainSlots(Long id) {
+        return databaseClient.sql("select balance_minor from account_balance_slots where account_id = :id order by slot for update")
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .reduce(0L, Money::add)
+                .flatMap(total -> total == 0
+                        ? Mono.just(total)
+                        : databaseClient.sql("update account_balance_slots set balance_minor = 0 where account_id = :id")
+                                .bind("id", id)
+                                .then()
+                                .thenReturn(total));
+    }
+
+    public Mono<Long> delete(Long id) {
+        return databaseClient.sql("delete from account_balance_slots where account_id = :id")
+                .bind("id", id)
+                .then()
+                .then(databaseClient.sql("delete from accounts where id = :id")
+                        .bind("id", id)
+                        .fetch()
+                        .rowsUpdated());
+    }
+
+    // Numbered one past the account's last entry, like LedgerServiceImpl; the caller holds the account row lock.
+    public Mono<Void> insertLedgerEntry(Long accountId, LedgerEntryType type, long amount, Long counterpartyAccountId) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("insert into ledger_entries "
+                        + "(id, account_id, entry_type, amount_minor, counterparty_account_id, created_at, sequence_number) values ("
+                        + nextValue("ledger_entries_seq") + ", :accountId, :type, :amount, :counterparty, :createdAt, "
+                        + "(select coalesce(max(e.sequence_number), 0) + 1 from ledger_entries e where e.account_id = :accountId))")
+                .bind("accountId", accountId)
+                .bind("type", type.name())
+                .bind("amount", amount)
+                .bind("createdAt", Instant.now());
+        spec = counterpartyAccountId == null
+                ? spec.bindNull("counterparty", Long.class)
+                : spec.bind("counterparty", counterpartyAccountId);
+        return spec.then();
+    }
+
+    private String nextValue(String sequence) {
+        return postgres ? "nextval('" + sequence + "')" : "next value for " + sequence;
+    }
+
+    private static AccountDto mapAccount(Readable row) {
+        return new AccountDto(
+                row.get("id", Long.class),
+                row.get("account_holder_name", String.class),
+                row.get("balance", Long.class)
+        );
+    }
+}
@@ -0,0 +1,146 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.config.AccountShards.Shard;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.VersionedAccount;
+import com.sergeymars.banking_app.entity.Account;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+// Plain JDBC against one shard at a time; the caller picks the shard and owns the transaction.
+@Repository
+@Profile("sharded")
+public class ShardedAccountRepository {
+
+    private static final RowMapper<AccountDto> ACCOUNT = (rs, rowNum) -> new AccountDto(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getLong(3)
+    );
+
+    private static final RowMapper<VersionedAccount> VERSIONED_ACCOUNT = (rs, rowNum) -> new VersionedAccount(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getLong(3),
+            rs.getLong(4),
+            0
+    );
+
+    private static final RowMapper<PendingSaga> SAGA = (rs, rowNum) -> new PendingSaga(
+            rs.getString(1),
+            rs.getLong(2),
+            rs.getLong(3),
+            rs.getLong(4)
+    );
+
+    public long nextLocalId(Shard shard) {
+        return shard.jdbcTemplate().queryForObject(shard.postgres()
+                ? "select nextval('accounts_local_seq')"
+                : "select next value for accounts_local_seq", Long.class);
+    }
+
+    public void insert(Shard shard, List<AccountDto> accounts) {
+        shard.jdbcTemplate().batchUpdate("insert into accounts (id, account_holder_name, holder_name_key, balance_minor) "
+                        + "values (?, ?, ?, ?)",
+                accounts.stream().map(account -> new Object[]{account.id(), account.accountHolderName(),
+                        Account.holderNameKey(account.accountHolderName()), account.balance()}).toList());
+    }
+
+    public Optional<AccountDto> findById(Shard shard, long id) {
+        return shard.jdbcTemplate().query("select id, account_holder_name, balance_minor from accounts where id = ?",
+                ACCOUNT, id).stream().findFirst();
+    }
+
+    public Optional<VersionedAccount> findVersionedById(Shard shard, long id) {
+        return shard.jdbcTemplate().query("select id, account_holder_name, balance_minor, row_version from accounts where id = ?",
+                VERSIONED_ACCOUNT, id).stream().findFirst();
+    }
+
+    public Optional<AccountVersion> findVersionById(Shard shard, long id) {
+        return shard.jdbcTemplate().queryForList("select row_version from accounts where id = ?", Long.class, id)
+                .stream().findFirst().map(version -> new AccountVersion(version, 0));
+    }
+
+    public List<AccountDto> findPage(Shard shard, long afterId, int limit) {
+        return shard.jdbcTemplate().query("select id, account_holder_name, balance_minor from accounts "
+                + "where id > ? order by id limit ?", ACCOUNT, afterId, limit);
+    }
+
+    public List<AccountDto> searchByHolderNameKey(Shard shard, String pattern, String afterKey, long afterId, int limit) {
+        return shard.jdbcTemplate().query("select id, account_holder_name, balance_minor from accounts "
+                        + "where holder_name_key like ? escape '\\' and (holder_name_key > ? or (holder_name_key = ? and id > ?)) "
+                        + "order by holder_name_key, id limit ?",
+                ACCOUNT, pattern, afterKey, afterKey, afterId, limit);
+    }
+
+    public List<AccountDto> findAll(Shard shard) {
+        return shard.jdbcTemplate().query("select id, account_holder_name, balance_minor from accounts order by id", ACCOUNT);
+    }
+
+    public boolean exists(Shard shard, long id) {
+        return !shard.jdbcTemplate().queryForList("select id from accounts where id = ?", Long.class, id).isEmpty();
+    }
+
+    public int deposit(Shard shard, long id, long amount) {
+        return shard.jdbcTemplate().update("update accounts set balance_minor = balance_minor + ?, row_version = row_version + 1 "
+                + "where id = ?", amount, id);
+    }
+
+    public int withdraw(Shard shard, long id, long amount) {
+        return shard.jdbcTemplate().update(
+                "update accounts set balance_minor = balance_minor - ?, row_version = row_version + 1 "
+                        + "where id = ? and balance_minor >= ?", amount, id, amount);
+    }
+
+    public int delete(Shard shard, long id) {
+        return shard.jdbcTemplate().update("delete from accounts where id = ?", id);
+    }
+
+    // The saga log lives on the source shard, next to the debit it records.
+    public void insertSaga(Shard shard, PendingSaga saga, String state, Instant now) {
+        shard.jdbcTemplate().update("insert into transfer_sagas "
+                        + "(saga_id, from_account_id, to_account_id, amount_minor, state, updated_at) values (?, ?, ?, ?, ?, ?)",
+                saga.sagaId(), saga.fromAccountId(), saga.toAccountId(), saga.amount(), state, Timestamp.from(now));
+    }
+
+    public int updateSagaState(Shard shard, String sagaId, String expectedState, String state, Instant now) {
+        return shard.jdbcTemplate().update("update transfer_sagas set state = ?, updated_at = ? where saga_id = ? and state = ?",
+                state, Timestamp.from(now), sagaId, expectedState);
+    }
+
+    public List<PendingSaga> findSagas(Shard shard, String state, Instant updatedBefore, int limit) {
+        return shard.jdbcTemplate().query("select saga_id, from_account_id, to_account_id, amount_minor from transfer_sagas "
+                + "where state = ? and updated_at < ? order by updated_at limit ?", SAGA, state, Timestamp.from(updatedBefore), limit);
+    }
+
+    public Optional<String> findSagaState(Shard shard, String sagaId) {
+        return shard.jdbcTemplate().queryForList("select state from transfer_sagas where saga_id = ?", String.class, sagaId)
+                .stream().findFirst();
+    }
+
+    // The credit side records its decision once: false if another attempt already decided.
+    public boolean insertCreditDecision(Shard shard, String sagaId, boolean applied) {
+        try {
+            shard.jdbcTemplate().update("insert into transfer_saga_credits (saga_id, applied) values (?, ?)", sagaId, applied);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public Optional<Boolean> findCreditDecision(Shard shard, String sagaId) {
+        return shard.jdbcTemplate().queryForList("select applied from transfer_saga_credits where saga_id = ?", Boolean.class, sagaId)
+                .stream().findFirst();
+    }
+
+    public record PendingSaga(String sagaId, long fromAccountId, long toAccountId, long amount) {
+    }
+}
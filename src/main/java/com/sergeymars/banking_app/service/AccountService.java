@@ -1,21 +1,59 @@
 package com.sergeymars.banking_app.service;
 
+import com.sergeymars.banking_app.dto.AccountAggregatesDto;
 import com.sergeymars.banking_app.dto.AccountDto;
-
+import com.sergeymars.banking_app.dto.AccountSearchPage;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferResult;
+import com.sergeymars.banking_app.dto.VersionedAccount;
+
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface AccountService {
     AccountDto createAccount(AccountDto accountDto);
 
+    List<AccountDto> createAccounts(List<AccountDto> accountDtos);
+
+    long importAccounts(Iterator<AccountDto> accountDtos);
+
     AccountDto getAccountById(Long id);
 
-    AccountDto addDeposit(Long id, double amount);
+    VersionedAccount getVersionedAccount(Long id);
+
+    AccountVersion getAccountVersion(Long id);
 
-    AccountDto withdrawDeposit(Long id, double amount);
+    AccountDto addDeposit(Long id, long amount);
+
+    Map<Long, AccountDto> addDeposits(List<DepositRequest> deposits);
+
+    AccountDto withdrawDeposit(Long id, long amount);
 
     List<AccountDto> getAllAccounts();
 
-    List<AccountDto> transferMoneyTo(Long fromId, Long toId, double amount);
+    KeysetPage<AccountDto> getAccountsPage(Long afterId, int limit);
+
+    AccountSearchPage searchByHolderName(String prefix, String afterName, Long afterId, int limit);
+
+    void streamAllAccounts(Consumer<AccountDto> consumer);
+
+    long exportAccountsCsv(Long fromId, Long toId, OutputStream outputStream);
+
+    List<AccountDto> transferMoneyTo(Long fromId, Long toId, long amount);
+
+    List<TransferResult> transferBatch(List<TransferRequest> transfers);
+
+    AccountAggregatesDto getAggregates();
+
+    AccountDto enableHotMode(Long id, int slots);
+
+    AccountDto disableHotMode(Long id);
 
     void deleteAccount(Long id);
 }
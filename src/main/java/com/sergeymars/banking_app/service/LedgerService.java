@@ -0,0 +1,30 @@
+package com.sergeymars.banking_app.service;
+
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.LedgerEntryDto;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.entity.Account;
+
+import java.util.List;
+import java.util.Map;
+
+public interface LedgerService {
+    void recordOpenings(List<Account> accounts);
+
+    void recordDeposit(Long accountId, long amount);
+
+    void recordDeposits(List<DepositRequest> deposits);
+
+    void recordWithdrawal(Long accountId, long amount);
+
+    void recordTransfers(List<TransferRequest> transfers);
+
+    void recordEndOfDay(Map<Long, Long> interest, Map<Long, Long> fees);
+
+    KeysetPage<LedgerEntryDto> getTransactions(Long accountId, Long beforeId, int limit);
+
+    long getLedgerBalance(Long accountId);
+
+    void snapshot(Long accountId);
+}
@@ -0,0 +1,26 @@
+package com.sergeymars.banking_app.service;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveAccountService {
+    Mono<AccountDto> createAccount(AccountDto accountDto);
+
+    Mono<AccountDto> getAccountById(Long id);
+
+    Mono<AccountDto> addDeposit(Long id, long amount);
+
+    Mono<AccountDto> withdrawDeposit(Long id, long amount);
+
+    Flux<AccountDto> getAllAccounts();
+
+    Mono<KeysetPage<AccountDto>> getAccountsPage(Long afterId, int limit);
+
+    Mono<List<AccountDto>> transferMoneyTo(Long fromId, Long toId, long amount);
+
+    Mono<Void> deleteAccount(Long id);
+}
@@ -0,0 +1,204 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountAggregatesDto;
+import com.sergeymars.banking_app.dto.AccountAggregatesDto.BalanceBucket;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository.BalanceAggregate;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Account count, total balance and a balance histogram, kept up to date by the service after every
+// committed mutation, so reading them costs a few LongAdder sums and never touches the database.
+//
+// The counters only see mutations made through this node and start from zero, so reconcile() recomputes
+// the values from the database at startup and then periodically, in parallel id-range chunks, and adds the
+// difference. Mutations that commit while a reconciliation runs may be counted twice or not at all; the
+// next run corrects that.
+@Component
+@Profile("!sharded & !in-memory")
+public class AccountAggregates implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountAggregates.class);
+
+    private final AccountJdbcRepository accountJdbcRepository;
+    private final long[] upperBounds;
+    private final long chunkSize;
+    private final ExecutorService reconcilers;
+    private final LongAdder accountCount = new LongAdder();
+    private final LongAdder totalBalance = new LongAdder();
+    private final LongAdder[] buckets;
+    private final AtomicLong correctionCount = new AtomicLong();
+    private volatile Instant reconciledAt;
+
+    public AccountAggregates(AccountJdbcRepository accountJdbcRepository,
+                             @Value("${banking.aggregates.histogram-bounds:10000,100000,1000000,10000000,100000000}") long[] upperBounds,
+                             @Value("${banking.aggregates.reconcile-chunk-size:100000}") long chunkSize,
+                             @Value("${banking.aggregates.reconcile-parallelism:4}") int parallelism) {
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.upperBounds = upperBounds.clone();
+        Arrays.sort(this.upperBounds);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.reconcilers = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "aggregates-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.buckets = new LongAdder[this.upperBounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void accountsCreated(List<Long> balances) {
+        afterCommit(() -> balances.forEach(balance -> {
+            accountCount.increment();
+            totalBalance.add(balance);
+            buckets[bucket(balance)].increment();
+        }));
+    }
+
+    public void accountDeleted(long balance) {
+        afterCommit(() -> {
+            accountCount.decrement();
+            totalBalance.add(-balance);
+            buckets[bucket(balance)].decrement();
+        });
+    }
+
+    public void balanceChanged(long oldBalance, long newBalance) {
+        afterCommit(() -> {
+            totalBalance.add(newBalance - oldBalance);
+            int from = bucket(oldBalance);
+            int to = bucket(newBalance);
+            if (from != to) {
+                buckets[from].decrement();
+                buckets[to].increment();
+            }
+        });
+    }
+
+    public AccountAggregatesDto snapshot() {
+        List<BalanceBucket> histogram = new ArrayList<>(buckets.length);
+        for (int i = 0; i < buckets.length; i++) {
+            histogram.add(new BalanceBucket(i == 0 ? 0 : upperBounds[i - 1],
+                    i < upperBounds.length ? upperBounds[i] : null, buckets[i].sum()));
+        }
+        return new AccountAggregatesDto(accountCount.sum(), totalBalance.sum(), histogram, reconciledAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    // Returns whether the counters had drifted from the database.
+    @Scheduled(fixedDelayString = "${banking.aggregates.reconcile-delay:PT5M}",
+            initialDelayString = "${banking.aggregates.reconcile-delay:PT5M}")
+    public boolean reconcile() {
+        long countBefore = accountCount.sum();
+        long totalBefore = totalBalance.sum();
+        long[] bucketsBefore = Arrays.stream(buckets).mapToLong(LongAdder::sum).toArray();
+
+        List<CompletableFuture<BalanceAggregate>> chunks = new ArrayList<>();
+        Optional<long[]> idRange = accountJdbcRepository.findIdRange();
+        if (idRange.isPresent()) {
+            long maxId = idRange.get()[1];
+            for (long from = idRange.get()[0]; from <= maxId; from += chunkSize) {
+                long chunkFrom = from;
+                long chunkTo = maxId - from < chunkSize ? maxId + 1 : from + chunkSize;
+                chunks.add(CompletableFuture.supplyAsync(
+                        () -> accountJdbcRepository.aggregateBalances(chunkFrom, chunkTo, upperBounds), reconcilers));
+            }
+        }
+        long count = 0;
+        long total = 0;
+        long[] counted = new long[buckets.length];
+        for (CompletableFuture<BalanceAggregate> chunk : chunks) {
+            BalanceAggregate aggregate = chunk.join();
+            count += aggregate.count();
+            total += aggregate.total();
+            for (int i = 0; i < counted.length; i++) {
+                counted[i] += aggregate.buckets()[i];
+            }
+        }
+
+        boolean drifted = count != countBefore || total != totalBefore || !Arrays.equals(counted, bucketsBefore);
+        if (drifted) {
+            accountCount.add(count - countBefore);
+            totalBalance.add(total - totalBefore);
+            for (int i = 0; i < counted.length; i++) {
+                buckets[i].add(counted[i] - bucketsBefore[i]);
+            }
+            if (reconciledAt != null) {
+                correctionCount.incrementAndGet();
+                log.info("Corrected account aggregates by {} accounts and {} minor units", count - countBefore, total - totalBefore);
+            }
+        }
+        reconciledAt = Instant.now();
+        return drifted;
+    }
+
+    public long getCorrectionCount() {
+        return correctionCount.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("banking.accounts.count", accountCount, LongAdder::sum)
+                .description("Accounts, as maintained by the aggregates")
+                .register(registry);
+        FunctionCounter.builder("banking.aggregates.corrections", this, AccountAggregates::getCorrectionCount)
+                .description("Reconciliations that found the aggregates drifted from the database")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        reconcilers.shutdown();
+        reconcilers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private int bucket(long balance) {
+        int index = Arrays.binarySearch(upperBounds, balance);
+        // An exact hit on an upper bound belongs to the next bucket.
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.money.Money;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+// Writes account rows as RFC 4180 CSV in UTF-8. Numbers are formatted and names encoded straight into one
+// reusable byte buffer, so a row allocates nothing and memory stays flat however many rows go through.
+public class AccountCsvWriter {
+
+    static final byte[] HEADER = "id,account_holder_name,balance\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream outputStream;
+    private final byte[] buffer;
+    private final char[] digits = new char[Money.MAX_FORMATTED_LENGTH];
+    private int position;
+    private long rowCount;
+
+    public AccountCsvWriter(OutputStream outputStream, int bufferSize) {
+        this.outputStream = outputStream;
+        this.buffer = new byte[Math.max(1024, bufferSize)];
+    }
+
+    public void writeHeader() {
+        ensureCapacity(HEADER.length);
+        System.arraycopy(HEADER, 0, buffer, position, HEADER.length);
+        position += HEADER.length;
+    }
+
+    public void writeRow(long id, String accountHolderName, long balance) {
+        writeLong(id);
+        writeByte(',');
+        if (accountHolderName != null) {
+            writeName(accountHolderName);
+        }
+        writeByte(',');
+        int start = Money.format(balance, digits);
+        ensureCapacity(digits.length - start);
+        for (int i = start; i < digits.length; i++) {
+            buffer[position++] = (byte) digits[i];
+        }
+        writeByte('\r');
+        writeByte('\n');
+        rowCount++;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public void flush() {
+        drain();
+        try {
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeLong(long value) {
+        // Same negative-remainder trick as Money.format, so Long.MIN_VALUE needs no special case.
+        int i = digits.length;
+        long rest = value > 0 ? -value : value;
+        do {
+            digits[--i] = (char) ('0' - rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (value < 0) {
+            digits[--i] = '-';
+        }
+        ensureCapacity(digits.length - i);
+        for (; i < digits.length; i++) {
+            buffer[position++] = (byte) digits[i];
+        }
+    }
+
+    // Quoted only when the name holds a delimiter, quote or line break; quotes are doubled.
+    private void writeName(String name) {
+        boolean quote = false;
+        for (int i = 0; i < name.length() && !quote; i++) {
+            char c = name.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (quote) {
+            writeByte('"');
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"') {
+                writeByte('"');
+                writeByte('"');
+            } else if (c < 0x80) {
+                writeByte(c);
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < name.length() && Character.isLowSurrogate(name.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, name.charAt(++i));
+                ensureCapacity(4);
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // A lone surrogate has no UTF-8 form; write the replacement the JDK encoder would.
+                writeByte('?');
+            } else {
+                ensureCapacity(3);
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        if (quote) {
+            writeByte('"');
+        }
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) b;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.length - position < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        if (position == 0) {
+            return;
+        }
+        try {
+            outputStream.write(buffer, 0, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+    }
+}
@@ -0,0 +1,139 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository;
+import com.sergeymars.banking_app.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Optional in-memory copy of idx_accounts_holder_name_key: (holder name key, id) pairs in a sorted set,
+// so a prefix search is a tail walk instead of a database round trip. It is per node and only sees writes
+// made through this node, so enable it on a single-node deployment only. Entries of accounts deleted
+// elsewhere are harmless, the caller loads the accounts by id and drops the ones that are gone.
+@Component
+@Profile("!sharded & !in-memory")
+public class AccountNameIndex {
+
+    static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(AccountNameIndex.class);
+
+    private final AccountRepository accountRepository;
+    private final AccountJdbcRepository accountJdbcRepository;
+    private final RetryingTransactionExecutor retryingTransactionExecutor;
+    private final boolean enabled;
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+    private volatile boolean ready;
+
+    public AccountNameIndex(AccountRepository accountRepository,
+                            AccountJdbcRepository accountJdbcRepository,
+                            RetryingTransactionExecutor retryingTransactionExecutor,
+                            @Value("${banking.search.in-memory-index.enabled:false}") boolean enabled) {
+        this.accountRepository = accountRepository;
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.retryingTransactionExecutor = retryingTransactionExecutor;
+        this.enabled = enabled;
+    }
+
+    // Rows written before holder_name_key existed get their key first, so the database search and the
+    // index both see every account.
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long backfilled = backfill();
+        if (backfilled > 0) {
+            log.info("Backfilled holder name keys of {} accounts", backfilled);
+        }
+        if (enabled) {
+            accountJdbcRepository.streamHolderNameKeys((id, key) -> entries.add(new Entry(key, id)));
+            ready = true;
+            log.info("Loaded {} accounts into the holder name index", entries.size());
+        }
+    }
+
+    long backfill() {
+        long backfilled = 0;
+        int updated;
+        do {
+            updated = retryingTransactionExecutor.execute(() -> {
+                List<Account> accounts = accountRepository
+                        .findByHolderNameKeyIsNullAndAccountHolderNameIsNotNull(Limit.of(BACKFILL_BATCH_SIZE));
+                accounts.forEach(account -> account.setHolderNameKey(Account.holderNameKey(account.getAccountHolderName())));
+                return accounts.size();
+            });
+            backfilled += updated;
+        } while (updated == BACKFILL_BATCH_SIZE);
+        return backfilled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Entries whose key starts with keyPrefix and that sort after (afterKey, afterId), in index order.
+    public List<Entry> search(String keyPrefix, String afterKey, long afterId, int limit) {
+        Entry from = afterKey.compareTo(keyPrefix) < 0 ? new Entry(keyPrefix, Long.MIN_VALUE) : new Entry(afterKey, afterId);
+        List<Entry> found = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : entries.tailSet(from, false)) {
+            if (found.size() == limit || !entry.key().startsWith(keyPrefix)) {
+                break;
+            }
+            found.add(entry);
+        }
+        return found;
+    }
+
+    public void addAfterCommit(List<Account> accounts) {
+        if (enabled) {
+            List<Entry> added = accounts.stream()
+                    .filter(account -> account.getHolderNameKey() != null)
+                    .map(account -> new Entry(account.getHolderNameKey(), account.getId()))
+                    .toList();
+            afterCommit(() -> entries.addAll(added));
+        }
+    }
+
+    public void removeAfterCommit(Account account) {
+        if (enabled && account.getHolderNameKey() != null) {
+            Entry removed = new Entry(account.getHolderNameKey(), account.getId());
+            afterCommit(() -> entries.remove(removed));
+        }
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public record Entry(String key, long id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Long.compare(id, other.id);
+        }
+    }
+}
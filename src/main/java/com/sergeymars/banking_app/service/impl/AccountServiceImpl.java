@@ -1,101 +1,539 @@
 package com.sergeymars.banking_app.service.impl;
 
+import com.sergeymars.banking_app.cache.AccountCache;
+import com.sergeymars.banking_app.config.ReadYourWrites;
+import com.sergeymars.banking_app.dto.AccountAggregatesDto;
 import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountSearchPage;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferResult;
+import com.sergeymars.banking_app.dto.VersionedAccount;
 import com.sergeymars.banking_app.entity.Account;
 import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
 import com.sergeymars.banking_app.mapper.AccountMapper;
+import com.sergeymars.banking_app.money.Money;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository;
 import com.sergeymars.banking_app.repository.AccountRepository;
 import com.sergeymars.banking_app.service.AccountService;
+import com.sergeymars.banking_app.service.LedgerService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
+@Profile("!sharded & !in-memory")
 public class AccountServiceImpl implements AccountService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int IMPORT_CHUNK_SIZE = 1000;
+    static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private AccountRepository accountRepository;
+    private AccountJdbcRepository accountJdbcRepository;
+    private RetryingTransactionExecutor retryingTransactionExecutor;
+    private AccountCache accountCache;
+    private LedgerService ledgerService;
+    private HotAccountBalances hotAccountBalances;
+    private AccountNameIndex accountNameIndex;
+    private AccountAggregates accountAggregates;
 
-    public AccountServiceImpl(AccountRepository accountRepository) {
+    public AccountServiceImpl(AccountRepository accountRepository,
+                              AccountJdbcRepository accountJdbcRepository,
+                              RetryingTransactionExecutor retryingTransactionExecutor,
+                              AccountCache accountCache,
+                              LedgerService ledgerService,
+                              HotAccountBalances hotAccountBalances,
+                              AccountNameIndex accountNameIndex,
+                              AccountAggregates accountAggregates) {
         this.accountRepository = accountRepository;
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.retryingTransactionExecutor = retryingTransactionExecutor;
+        this.accountCache = accountCache;
+        this.ledgerService = ledgerService;
+        this.hotAccountBalances = hotAccountBalances;
+        this.accountNameIndex = accountNameIndex;
+        this.accountAggregates = accountAggregates;
     }
 
     @Override
+    @Transactional
     public AccountDto createAccount(AccountDto accountDto) {
         Account account = AccountMapper.mapToAccount(accountDto);
         Account savedAccount = accountRepository.save(account);
-        return AccountMapper.mapToAccountDto(savedAccount);
+        ledgerService.recordOpenings(List.of(savedAccount));
+        accountNameIndex.addAfterCommit(List.of(savedAccount));
+        accountAggregates.accountsCreated(List.of(savedAccount.getBalance()));
+        AccountDto savedAccountDto = AccountMapper.mapToAccountDto(savedAccount);
+        accountCache.putAfterCommit(new VersionedAccount(savedAccountDto, new AccountVersion(savedAccount.getVersion(), 0)));
+        return savedAccountDto;
+    }
+
+    // Every chunk is saved in its own transaction, so the persistence context never grows beyond one chunk.
+    @Override
+    public List<AccountDto> createAccounts(List<AccountDto> accountDtos) {
+        List<AccountDto> created = new ArrayList<>(accountDtos.size());
+        for (int from = 0; from < accountDtos.size(); from += IMPORT_CHUNK_SIZE) {
+            List<Account> chunk = accountDtos.subList(from, Math.min(from + IMPORT_CHUNK_SIZE, accountDtos.size()))
+                    .stream()
+                    .map(this::mapToNewAccount)
+                    .collect(Collectors.toList());
+            saveChunk(chunk).forEach(account -> created.add(AccountMapper.mapToAccountDto(account)));
+        }
+        return created;
+    }
+
+    @Override
+    public long importAccounts(Iterator<AccountDto> accountDtos) {
+        long created = 0;
+        List<Account> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        while (accountDtos.hasNext()) {
+            chunk.add(mapToNewAccount(accountDtos.next()));
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                created += saveChunk(chunk).size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created += saveChunk(chunk).size();
+        }
+        return created;
+    }
+
+    private List<Account> saveChunk(List<Account> chunk) {
+        return retryingTransactionExecutor.execute(() -> {
+            List<Account> saved = accountRepository.saveAll(chunk);
+            ledgerService.recordOpenings(saved);
+            accountNameIndex.addAfterCommit(saved);
+            accountAggregates.accountsCreated(saved.stream().map(Account::getBalance).toList());
+            return saved;
+        });
+    }
+
+    private Account mapToNewAccount(AccountDto accountDto) {
+        return new Account(null, accountDto.accountHolderName(), accountDto.balance());
     }
 
     @Override
     public AccountDto getAccountById(Long id) {
-        Account account = accountRepository
-                .findById(id)
-                .orElseThrow(() -> new AccountException("Account doesn't exist"));
-        return AccountMapper.mapToAccountDto(account);
+        return getVersionedAccount(id).account();
     }
 
+    // Misses are loaded from the primary: a value read from a lagging replica would stay cached after the
+    // write that evicted it had already committed.
     @Override
-    public AccountDto addDeposit(Long id, double amount) {
+    public VersionedAccount getVersionedAccount(Long id) {
+        return accountCache.get(id, missingId -> ReadYourWrites.onPrimary(() -> loadVersionedAccount(missingId)));
+    }
+
+    // Read from the primary like a cache miss, so a 304 is never answered from a replica-lagged version.
+    @Override
+    public AccountVersion getAccountVersion(Long id) {
+        VersionedAccount cached = accountCache.getIfPresent(id);
+        if (cached != null) {
+            return cached.version();
+        }
+        return ReadYourWrites.onPrimary(() -> accountRepository
+                .findVersionById(id)
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist")));
+    }
+
+    // A hot account is read again in one statement, so its row and slots are seen at the same point.
+    private VersionedAccount loadVersionedAccount(Long id) {
         Account account = accountRepository
                 .findById(id)
-                .orElseThrow(() -> new AccountException("Account doesn't exist"));
-        double total = account.getBalance() + amount;
-        account.setBalance(total);
-        Account savedAccount = accountRepository.save(account);
-        return AccountMapper.mapToAccountDto(savedAccount);
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
+        if (account.getBalanceSlots() == 0) {
+            return new VersionedAccount(AccountMapper.mapToAccountDto(account), new AccountVersion(account.getVersion(), 0));
+        }
+        return accountRepository
+                .findVersionedById(id)
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
     }
 
-    @Override
-    public AccountDto withdrawDeposit(Long id, double amount) {
+    private AccountDto loadAccount(Long id) {
         Account account = accountRepository
                 .findById(id)
-                .orElseThrow(() -> new AccountException("Account doesn't exist"));
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
+        return toDto(account);
+    }
 
-        if (account.getBalance() < amount) {
-            throw new AccountException("Insufficient money");
+    private AccountDto toDto(Account account) {
+        if (account.getBalanceSlots() == 0) {
+            return AccountMapper.mapToAccountDto(account);
         }
-        double total = account.getBalance() - amount;
-        account.setBalance(total);
-        Account savedAccount = accountRepository.save(account);
-        return AccountMapper.mapToAccountDto(savedAccount);
+        return accountRepository
+                .findWithSlotBalanceById(account.getId())
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
     }
 
+    private List<AccountDto> toDtos(List<Account> accounts) {
+        List<Long> hotIds = accounts.stream()
+                .filter(account -> account.getBalanceSlots() > 0)
+                .map(Account::getId)
+                .collect(Collectors.toList());
+        Map<Long, Long> slotTotals = hotIds.isEmpty() ? Map.of() : hotAccountBalances.slotTotals(hotIds);
+        return accounts.stream()
+                .map(account -> new AccountDto(
+                        account.getId(),
+                        account.getAccountHolderName(),
+                        Money.add(account.getBalance(), slotTotals.getOrDefault(account.getId(), 0L))))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public AccountDto addDeposit(Long id, long amount) {
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        if (!hotAccountBalances.credit(id, amount) && accountRepository.deposit(id, amount) == 0) {
+            throw new AccountNotFoundException("Account doesn't exist");
+        }
+        ledgerService.recordDeposit(id, amount);
+        accountCache.evictAfterCompletion(id);
+        AccountDto account = loadAccount(id);
+        accountAggregates.balanceChanged(Money.subtract(account.balance(), amount), account.balance());
+        return account;
+    }
+
+    // Deposits to the same account are summed into one update; accounts are updated in ascending id order.
+    // The returned map only holds accounts that exist, every deposit still gets its own ledger entry.
     @Override
+    public Map<Long, AccountDto> addDeposits(List<DepositRequest> deposits) {
+        return retryingTransactionExecutor.execute(() -> applyDeposits(deposits));
+    }
+
+    private Map<Long, AccountDto> applyDeposits(List<DepositRequest> deposits) {
+        SortedMap<Long, Long> totals = new TreeMap<>();
+        for (DepositRequest deposit : deposits) {
+            totals.merge(deposit.accountId(), deposit.amount(), Money::add);
+        }
+        Set<Long> credited = new TreeSet<>();
+        for (Map.Entry<Long, Long> total : totals.entrySet()) {
+            Long id = total.getKey();
+            if (hotAccountBalances.credit(id, total.getValue()) || accountRepository.deposit(id, total.getValue()) == 1) {
+                credited.add(id);
+            }
+        }
+        ledgerService.recordDeposits(deposits.stream()
+                .filter(deposit -> credited.contains(deposit.accountId()))
+                .collect(Collectors.toList()));
+        accountCache.evictAfterCompletion(credited);
+        Map<Long, AccountDto> accounts = new HashMap<>();
+        for (AccountDto accountDto : toDtos(accountRepository.findAllById(credited))) {
+            accounts.put(accountDto.id(), accountDto);
+            accountAggregates.balanceChanged(Money.subtract(accountDto.balance(), totals.get(accountDto.id())), accountDto.balance());
+        }
+        return accounts;
+    }
+
+    @Override
+    @Transactional
+    public AccountDto withdrawDeposit(Long id, long amount) {
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        if (accountRepository.withdraw(id, amount) == 0) {
+            // Either the account is missing, short of money, or hot with part of its balance in slots.
+            Account account = accountRepository
+                    .findByIdForUpdate(id)
+                    .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
+            debit(account, amount);
+        }
+        ledgerService.recordWithdrawal(id, amount);
+        accountCache.evictAfterCompletion(id);
+        AccountDto account = loadAccount(id);
+        accountAggregates.balanceChanged(Money.add(account.balance(), amount), account.balance());
+        return account;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<AccountDto> getAllAccounts() {
         List<Account> accounts = accountRepository.findAll();
-        return accounts.stream().map((account) -> AccountMapper.mapToAccountDto(account)).collect(Collectors.toList());
+        return toDtos(accounts);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<AccountDto> getAccountsPage(Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Account> accounts = accountRepository
+                .findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, Limit.of(pageSize + 1));
+        boolean hasNext = accounts.size() > pageSize;
+        List<AccountDto> content = toDtos(hasNext ? accounts.subList(0, pageSize) : accounts);
+        Long next = hasNext ? content.get(content.size() - 1).id() : null;
+        return new KeysetPage<>(content, next);
+    }
 
+    // Case-insensitive prefix match on the holder name, keyset-paged over (holder name key, id).
     @Override
-    @Transactional
-    public List<AccountDto> transferMoneyTo(Long fromId, Long toId, double amount) {
-        Account fromAccount = accountRepository
-                .findById(fromId)
-                .orElseThrow(() -> new AccountException("Account from you want transfer money doesn't exist"));
-        Account toAccount = accountRepository
-                .findById(toId)
-                .orElseThrow(() -> new AccountException("Account want you transfer money doesn't exist to"));
-
-        if (fromId == toId){throw new RuntimeException("Ids should be different");}
-        if (fromAccount.getBalance() < amount) {throw new AccountException("Insufficient money");}
-
-        fromAccount.setBalance(fromAccount.getBalance() - amount);
-        toAccount.setBalance(toAccount.getBalance() + amount);
-        Account savedFromBalance = accountRepository.save(fromAccount);
-        Account savedToBalance = accountRepository.save(toAccount);
+    @Transactional(readOnly = true)
+    public AccountSearchPage searchByHolderName(String prefix, String afterName, Long afterId, int limit) {
+        if (prefix == null || prefix.isBlank()) {throw new AccountException("Search name should not be empty");}
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String keyPrefix = Account.holderNameKey(prefix);
+        String afterKey = afterName == null ? "" : Account.holderNameKey(afterName);
+        long afterIdOrMin = afterId == null ? Long.MIN_VALUE : afterId;
+        List<Account> accounts = accountNameIndex.isReady()
+                ? findIndexed(keyPrefix, afterKey, afterIdOrMin, pageSize + 1)
+                : accountRepository.searchByHolderNameKey(AccountRepository.prefixPattern(keyPrefix), afterKey,
+                        afterIdOrMin, Limit.of(pageSize + 1));
+        boolean hasNext = accounts.size() > pageSize;
+        List<AccountDto> content = toDtos(hasNext ? accounts.subList(0, pageSize) : accounts);
+        AccountDto last = hasNext ? content.get(content.size() - 1) : null;
+        return new AccountSearchPage(content, last == null ? null : last.accountHolderName(), last == null ? null : last.id());
+    }
+
+    // Index entries of accounts deleted on another node have no row any more; the next ones fill their place.
+    private List<Account> findIndexed(String keyPrefix, String afterKey, long afterId, int limit) {
+        List<Account> found = new ArrayList<>(limit);
+        while (found.size() < limit) {
+            List<AccountNameIndex.Entry> entries = accountNameIndex.search(keyPrefix, afterKey, afterId, limit - found.size());
+            if (entries.isEmpty()) {
+                break;
+            }
+            Map<Long, Account> byId = new HashMap<>();
+            accountRepository.findAllById(entries.stream().map(AccountNameIndex.Entry::id).toList())
+                    .forEach(account -> byId.put(account.getId(), account));
+            for (AccountNameIndex.Entry entry : entries) {
+                Account account = byId.get(entry.id());
+                if (account != null) {
+                    found.add(account);
+                }
+            }
+            AccountNameIndex.Entry last = entries.get(entries.size() - 1);
+            afterKey = last.key();
+            afterId = last.id();
+        }
+        return found;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllAccounts(Consumer<AccountDto> consumer) {
+        accountJdbcRepository.streamAll(consumer);
+    }
+
+    // Bounds are inclusive; the rows go from the cursor through the writer's buffer to the stream.
+    @Override
+    @Transactional(readOnly = true)
+    public long exportAccountsCsv(Long fromId, Long toId, OutputStream outputStream) {
+        AccountCsvWriter writer = new AccountCsvWriter(outputStream, EXPORT_BUFFER_SIZE);
+        writer.writeHeader();
+        accountJdbcRepository.exportRange(fromId == null ? Long.MIN_VALUE : fromId, toId == null ? Long.MAX_VALUE : toId,
+                writer::writeRow);
+        writer.flush();
+        return writer.getRowCount();
+    }
+
+    @Override
+    public List<AccountDto> transferMoneyTo(Long fromId, Long toId, long amount) {
+        if (Objects.equals(fromId, toId)) {throw new AccountException("Ids should be different");}
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        return retryingTransactionExecutor.execute(() -> transfer(fromId, toId, amount));
+    }
+
+    private List<AccountDto> transfer(Long fromId, Long toId, long amount) {
+        List<AccountDto> accounts = hotAccountBalances.isHot(toId)
+                ? transferToHotAccount(fromId, toId, amount)
+                : transferBetweenLockedAccounts(fromId, toId, amount);
+        ledgerService.recordTransfers(List.of(new TransferRequest(fromId, toId, amount)));
+        accountCache.evictAfterCompletion(List.of(fromId, toId));
+        accountAggregates.balanceChanged(Money.add(accounts.get(0).balance(), amount), accounts.get(0).balance());
+        accountAggregates.balanceChanged(Money.subtract(accounts.get(1).balance(), amount), accounts.get(1).balance());
+        return accounts;
+    }
+
+    private List<AccountDto> transferBetweenLockedAccounts(Long fromId, Long toId, long amount) {
+        // Row locks are always taken in ascending id order, so A->B and B->A cannot deadlock each other.
+        Account fromAccount;
+        Account toAccount;
+        if (fromId < toId) {
+            fromAccount = lockFromAccount(fromId);
+            toAccount = lockToAccount(toId);
+        } else {
+            toAccount = lockToAccount(toId);
+            fromAccount = lockFromAccount(fromId);
+        }
+
+        debit(fromAccount, amount);
+        toAccount.setBalance(Money.add(toAccount.getBalance(), amount));
+        List<AccountDto> accounts = new ArrayList<>();
+        accounts.add(toDto(fromAccount));
+        accounts.add(toDto(toAccount));
+        return accounts;
+    }
+
+    // The credit lands in a slot of the target, so only the source row is locked.
+    private List<AccountDto> transferToHotAccount(Long fromId, Long toId, long amount) {
+        Account fromAccount = lockFromAccount(fromId);
+        debit(fromAccount, amount);
+        if (!hotAccountBalances.credit(toId, amount)) {
+            // Hot mode was switched off concurrently; this lock is out of id order, deadlocks are retried.
+            Account toAccount = lockToAccount(toId);
+            toAccount.setBalance(Money.add(toAccount.getBalance(), amount));
+        }
         List<AccountDto> accounts = new ArrayList<>();
-        accounts.add(AccountMapper.mapToAccountDto(savedFromBalance));
-        accounts.add(AccountMapper.mapToAccountDto(savedToBalance));
+        accounts.add(toDto(fromAccount));
+        accounts.add(accountRepository
+                .findWithSlotBalanceById(toId)
+                .orElseThrow(() -> new AccountNotFoundException("Account want you transfer money doesn't exist to")));
         return accounts;
     }
 
+    // Slots of a hot account are only drained when its own row balance cannot cover the debit.
+    private void debit(Account lockedAccount, long amount) {
+        if (lockedAccount.getBalance() < amount && lockedAccount.getBalanceSlots() > 0) {
+            lockedAccount.setBalance(Money.add(lockedAccount.getBalance(), hotAccountBalances.drain(lockedAccount.getId())));
+        }
+        if (lockedAccount.getBalance() < amount) {throw new InsufficientFundsException("Insufficient money");}
+        lockedAccount.setBalance(Money.subtract(lockedAccount.getBalance(), amount));
+    }
+
+    private Account lockFromAccount(Long fromId) {
+        return accountRepository
+                .findByIdForUpdate(fromId)
+                .orElseThrow(() -> new AccountNotFoundException("Account from you want transfer money doesn't exist"));
+    }
+
+    private Account lockToAccount(Long toId) {
+        return accountRepository
+                .findByIdForUpdate(toId)
+                .orElseThrow(() -> new AccountNotFoundException("Account want you transfer money doesn't exist to"));
+    }
+
     @Override
+    public List<TransferResult> transferBatch(List<TransferRequest> transfers) {
+        return retryingTransactionExecutor.execute(() -> applyTransferBatch(transfers));
+    }
+
+    private List<TransferResult> applyTransferBatch(List<TransferRequest> transfers) {
+        TreeSet<Long> ids = new TreeSet<>();
+        for (TransferRequest transfer : transfers) {
+            if (transfer.fromAccountId() != null) {ids.add(transfer.fromAccountId());}
+            if (transfer.toAccountId() != null) {ids.add(transfer.toAccountId());}
+        }
+        Map<Long, Long> balances = accountJdbcRepository.lockBalances(new ArrayList<>(ids));
+
+        Map<Long, Long> lockedBalances = new HashMap<>(balances);
+        SortedMap<Long, Long> changed = new TreeMap<>();
+        // Hot sources get their slots folded in up front, so debits see their full balance.
+        for (TransferRequest transfer : transfers) {
+            Long fromId = transfer.fromAccountId();
+            if (balances.containsKey(fromId) && !changed.containsKey(fromId) && hotAccountBalances.isHot(fromId)) {
+                changed.put(fromId, balances.merge(fromId, hotAccountBalances.drain(fromId), Money::add));
+            }
+        }
+        List<TransferRequest> completed = new ArrayList<>();
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            Long fromId = transfer.fromAccountId();
+            Long toId = transfer.toAccountId();
+            long amount = transfer.amount();
+            if (fromId == null || toId == null || fromId.equals(toId) || amount <= 0) {
+                results.add(new TransferResult(i, fromId, toId, TransferResult.Status.INVALID,
+                        "Ids should be different and amount positive"));
+                continue;
+            }
+            Long fromBalance = balances.get(fromId);
+            if (fromBalance == null) {
+                results.add(new TransferResult(i, fromId, toId, TransferResult.Status.ACCOUNT_NOT_FOUND,
+                        "Account from you want transfer money doesn't exist"));
+                continue;
+            }
+            Long toBalance = balances.get(toId);
+            if (toBalance == null) {
+                results.add(new TransferResult(i, fromId, toId, TransferResult.Status.ACCOUNT_NOT_FOUND,
+                        "Account want you transfer money doesn't exist to"));
+                continue;
+            }
+            if (fromBalance < amount) {
+                results.add(new TransferResult(i, fromId, toId, TransferResult.Status.INSUFFICIENT_FUNDS,
+                        "Insufficient money"));
+                continue;
+            }
+            long newFromBalance = Money.subtract(fromBalance, amount);
+            long newToBalance = Money.add(toBalance, amount);
+            balances.put(fromId, newFromBalance);
+            balances.put(toId, newToBalance);
+            changed.put(fromId, newFromBalance);
+            changed.put(toId, newToBalance);
+            completed.add(transfer);
+            results.add(new TransferResult(i, fromId, toId, TransferResult.Status.COMPLETED, null));
+        }
+        accountJdbcRepository.updateBalances(changed);
+        ledgerService.recordTransfers(completed);
+        accountCache.evictAfterCompletion(new ArrayList<>(changed.keySet()));
+        recordBalanceChanges(lockedBalances, changed);
+        return results;
+    }
+
+    // Row balances before and after; slots the batch did not drain still count towards the visible balance.
+    private void recordBalanceChanges(Map<Long, Long> before, Map<Long, Long> after) {
+        List<Long> hotIds = after.keySet().stream().filter(hotAccountBalances::isHot).collect(Collectors.toList());
+        Map<Long, Long> slotTotals = hotIds.isEmpty() ? Map.of() : hotAccountBalances.slotTotals(hotIds);
+        after.forEach((id, balance) -> {
+            long slots = slotTotals.getOrDefault(id, 0L);
+            accountAggregates.balanceChanged(Money.add(before.get(id), slots), Money.add(balance, slots));
+        });
+    }
+
+    @Override
+    public AccountAggregatesDto getAggregates() {
+        return accountAggregates.snapshot();
+    }
+
+    @Override
+    @Transactional
+    public AccountDto enableHotMode(Long id, int slots) {
+        Account account = accountRepository
+                .findByIdForUpdate(id)
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
+        hotAccountBalances.enable(account, slots);
+        accountCache.evictAfterCompletion(id);
+        return toDto(account);
+    }
+
+    @Override
+    @Transactional
+    public AccountDto disableHotMode(Long id) {
+        Account account = accountRepository
+                .findByIdForUpdate(id)
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
+        hotAccountBalances.disable(account);
+        accountCache.evictAfterCompletion(id);
+        return toDto(account);
+    }
+
+    @Override
+    @Transactional
     public void deleteAccount(Long id) {
-        if (accountRepository.existsById(id)) {accountRepository.deleteById(id);}
-        else {throw new AccountException("Account doesn't exist");}
+        Account account = accountRepository
+                .findById(id)
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
+        long balance = toDto(account).balance();
+        accountRepository.delete(account);
+        accountNameIndex.removeAfterCommit(account);
+        accountAggregates.accountDeleted(balance);
+        hotAccountBalances.remove(id);
+        accountCache.evictAfterCompletion(id);
     }
 }
@@ -0,0 +1,167 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sergeymars.banking_app.exception.RateLimitedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Sheds mutations before they reach the database: a token bucket per account, one for the whole node, and
+// a cap on the mutations in flight. The buckets are GCRA, one AtomicLong of theoretical arrival time each,
+// updated with a CAS, so admitting a request takes no lock.
+//
+// A bucket that has been idle for its burst window is full again and no different from a new one, so
+// per-account buckets expire after that window; the cache is size-bounded on top of that.
+@Component
+public class AdmissionControl {
+
+    private final Bucket global;
+    private final long accountIntervalNanos;
+    private final long accountToleranceNanos;
+    private final int maxConcurrent;
+    private final Cache<Long, AtomicLong> accountBuckets;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    // Monotonic, so a wall clock step cannot fill or drain the buckets.
+    private LongSupplier ticker = System::nanoTime;
+
+    public AdmissionControl(@Value("${banking.admission.account-rate:50}") double accountRate,
+                            @Value("${banking.admission.account-burst:100}") int accountBurst,
+                            @Value("${banking.admission.global-rate:5000}") double globalRate,
+                            @Value("${banking.admission.global-burst:10000}") int globalBurst,
+                            @Value("${banking.admission.max-concurrent:64}") int maxConcurrent,
+                            @Value("${banking.admission.max-tracked-accounts:1000000}") long maxTrackedAccounts) {
+        if (accountRate <= 0 || globalRate <= 0) {
+            throw new IllegalArgumentException("Admission rates must be positive");
+        }
+        this.accountIntervalNanos = intervalNanos(accountRate);
+        this.accountToleranceNanos = accountIntervalNanos * (Math.max(1, accountBurst) - 1);
+        this.global = new Bucket(intervalNanos(globalRate), intervalNanos(globalRate) * (Math.max(1, globalBurst) - 1));
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.accountBuckets = Caffeine.newBuilder()
+                .maximumSize(maxTrackedAccounts)
+                .expireAfterAccess(Duration.ofNanos(accountIntervalNanos + accountToleranceNanos))
+                .build();
+    }
+
+    // Runs the action if it is admitted and gives the concurrency slot back once it returns.
+    // accountId may be null for mutations that are not about one account.
+    public <T> T run(Long accountId, Supplier<T> action) {
+        admit(accountId);
+        try {
+            return action.get();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public void run(Long accountId, Runnable action) {
+        run(accountId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // The slot is held until the returned future completes, e.g. until a coalesced batch has been written.
+    public <T> CompletableFuture<T> runAsync(Long accountId, Supplier<CompletableFuture<T>> action) {
+        admit(accountId);
+        CompletableFuture<T> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+        return result.whenComplete((value, failure) -> inFlight.decrementAndGet());
+    }
+
+    // The account bucket goes first, so an abusive account is turned away without spending global tokens.
+    // A token already taken is given back when a later check turns the request away.
+    private void admit(Long accountId) {
+        long now = ticker.getAsLong();
+        AtomicLong arrival = null;
+        if (accountId != null) {
+            arrival = accountBuckets.get(accountId, id -> new AtomicLong(Long.MIN_VALUE));
+            long wait = take(arrival, now, accountIntervalNanos, accountToleranceNanos);
+            if (wait > 0) {
+                throw rejected("Too many requests for account " + accountId + ", retry later", wait);
+            }
+        }
+        long wait = take(global.arrival, now, global.intervalNanos, global.toleranceNanos);
+        if (wait > 0) {
+            refund(arrival, accountIntervalNanos);
+            throw rejected("Too many requests, retry later", wait);
+        }
+        if (inFlight.incrementAndGet() > maxConcurrent) {
+            inFlight.decrementAndGet();
+            refund(arrival, accountIntervalNanos);
+            refund(global.arrival, global.intervalNanos);
+            throw rejected("Too many requests in progress, retry later", TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getTrackedAccounts() {
+        return accountBuckets.estimatedSize();
+    }
+
+    // Runs the pending evictions now rather than on the cache's next maintenance pass.
+    void cleanUp() {
+        accountBuckets.cleanUp();
+    }
+
+    void setTicker(LongSupplier ticker) {
+        this.ticker = ticker;
+    }
+
+    // Returns 0 and moves the arrival time on when the request conforms, otherwise how long to wait.
+    private static long take(AtomicLong arrival, long now, long intervalNanos, long toleranceNanos) {
+        while (true) {
+            long current = arrival.get();
+            long start = Math.max(current, now);
+            long wait = start - toleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private static void refund(AtomicLong arrival, long intervalNanos) {
+        if (arrival != null) {
+            arrival.addAndGet(-intervalNanos);
+        }
+    }
+
+    private RateLimitedException rejected(String message, long waitNanos) {
+        rejectedCount.incrementAndGet();
+        return new RateLimitedException(message, Duration.ofNanos(waitNanos));
+    }
+
+    private static long intervalNanos(double ratePerSecond) {
+        return Math.max(1, Math.round(1_000_000_000L / ratePerSecond));
+    }
+
+    private record Bucket(long intervalNanos, long toleranceNanos, AtomicLong arrival) {
+        Bucket(long intervalNanos, long toleranceNanos) {
+            this(intervalNanos, toleranceNanos, new AtomicLong(Long.MIN_VALUE));
+        }
+    }
+}
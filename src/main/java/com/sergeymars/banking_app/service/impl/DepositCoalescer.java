@@ -0,0 +1,190 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.service.AccountService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Collects deposits for up to one window (or until the batch is full) and writes them with
+// AccountService.addDeposits, so a burst on one account costs one row update instead of one per deposit.
+// Every caller gets the account as it was right after its batch committed. If the batch fails, its deposits
+// are written one by one, so only the caller whose deposit is at fault (say, one that overflows the balance)
+// gets the error.
+//
+// Batches are written by a single thread: while one batch is in the database the next one keeps filling,
+// so a slow database produces bigger batches rather than a growing backlog of transactions.
+@Component
+public class DepositCoalescer {
+
+    private final AccountService accountService;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledThreadPoolExecutor writer;
+    private final AtomicLong depositCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<PendingDeposit> pending = new ArrayList<>();
+    private boolean flushScheduled;
+
+    public DepositCoalescer(AccountService accountService,
+                            @Value("${banking.deposits.coalescing.enabled:false}") boolean enabled,
+                            @Value("${banking.deposits.coalescing.window:5ms}") Duration window,
+                            @Value("${banking.deposits.coalescing.max-batch-size:500}") int maxBatchSize) {
+        if (window.isNegative() || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Coalescing window must not be negative and max batch size must be positive");
+        }
+        this.accountService = accountService;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.writer = enabled ? newWriter() : null;
+    }
+
+    private static ScheduledThreadPoolExecutor newWriter() {
+        ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "deposit-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Shutdown flushes explicitly, so pending window timers can be dropped.
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return writer;
+    }
+
+    public CompletableFuture<AccountDto> addDeposit(Long id, long amount) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(accountService.addDeposit(id, amount));
+        }
+        // Checked before queueing, the batch path below does not go through the service's single-deposit check.
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        PendingDeposit deposit = new PendingDeposit(new DepositRequest(id, amount), new CompletableFuture<>());
+        List<PendingDeposit> full = null;
+        lock.lock();
+        try {
+            pending.add(deposit);
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (!flushScheduled) {
+                try {
+                    writer.schedule(this::flushPending, windowNanos, TimeUnit.NANOSECONDS);
+                    flushScheduled = true;
+                } catch (RejectedExecutionException e) {
+                    // Shutting down: no window timer will fire, so this caller writes the deposit itself.
+                    full = takePending();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            List<PendingDeposit> batch = full;
+            try {
+                writer.execute(() -> write(batch));
+            } catch (RejectedExecutionException e) {
+                write(batch);
+            }
+        }
+        return deposit.result();
+    }
+
+    private void flushPending() {
+        List<PendingDeposit> batch;
+        lock.lock();
+        try {
+            flushScheduled = false;
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        write(batch);
+    }
+
+    private List<PendingDeposit> takePending() {
+        List<PendingDeposit> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void write(List<PendingDeposit> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        depositCount.addAndGet(batch.size());
+        batchCount.incrementAndGet();
+        Map<Long, AccountDto> accounts;
+        try {
+            accounts = accountService.addDeposits(batch.stream().map(PendingDeposit::deposit).toList());
+        } catch (RuntimeException e) {
+            if (isDatabaseUnavailable(e)) {
+                batch.forEach(deposit -> deposit.result().completeExceptionally(e));
+            } else {
+                writeEach(batch);
+            }
+            return;
+        }
+        for (PendingDeposit deposit : batch) {
+            AccountDto accountDto = accounts.get(deposit.deposit().accountId());
+            if (accountDto == null) {
+                deposit.result().completeExceptionally(new AccountNotFoundException("Account doesn't exist"));
+            } else {
+                deposit.result().complete(accountDto);
+            }
+        }
+    }
+
+    private void writeEach(List<PendingDeposit> batch) {
+        for (PendingDeposit deposit : batch) {
+            try {
+                deposit.result().complete(accountService.addDeposit(deposit.deposit().accountId(), deposit.deposit().amount()));
+            } catch (RuntimeException e) {
+                deposit.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    // No single deposit is to blame, and writing them one by one would only wait out the pool once per deposit.
+    private static boolean isDatabaseUnavailable(RuntimeException e) {
+        return e instanceof CannotCreateTransactionException || e instanceof DataAccessResourceFailureException;
+    }
+
+    public long getDepositCount() {
+        return depositCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null || writer.isShutdown()) {
+            return;
+        }
+        // Deposits still waiting for their window are written before the context goes away.
+        writer.execute(this::flushPending);
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private record PendingDeposit(DepositRequest deposit, CompletableFuture<AccountDto> result) {
+    }
+}
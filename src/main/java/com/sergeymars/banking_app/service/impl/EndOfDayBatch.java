@@ -0,0 +1,264 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.cache.AccountCache;
+import com.sergeymars.banking_app.dto.EndOfDayReport;
+import com.sergeymars.banking_app.dto.EndOfDayReport.ChunkResult;
+import com.sergeymars.banking_app.entity.EndOfDayChunk;
+import com.sergeymars.banking_app.exception.EndOfDayConflictException;
+import com.sergeymars.banking_app.money.Money;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository.LockedAccount;
+import com.sergeymars.banking_app.repository.EndOfDayChunkRepository;
+import com.sergeymars.banking_app.service.LedgerService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Applies a business day's interest and maintenance fee to every account. The id space is cut into
+// fixed, aligned ranges of chunkSize ids, and the chunks run in parallel on a worker pool, each in one
+// transaction: lock the range, compute the new balances, write them and their ledger entries in JDBC
+// batches, and insert the chunk's checkpoint. Running the same business date again skips the chunks that
+// have a checkpoint, so a crashed run resumes where it stopped; the unique key on the checkpoint keeps two
+// concurrent runs from applying a chunk twice. A resume only lines up with the checkpoints of the same
+// chunk size, so a run of a date whose checkpoints have another size is refused.
+//
+// Interest is annualRateBps / 10000 / dayCount of the visible balance, rounded down. The fee is taken from
+// the account row only and never below zero, so it does not drain the slots of a hot account.
+@Component
+@Profile("!sharded & !in-memory")
+public class EndOfDayBatch {
+
+    private static final Logger log = LoggerFactory.getLogger(EndOfDayBatch.class);
+
+    private final AccountJdbcRepository accountJdbcRepository;
+    private final EndOfDayChunkRepository endOfDayChunkRepository;
+    private final RetryingTransactionExecutor retryingTransactionExecutor;
+    private final HotAccountBalances hotAccountBalances;
+    private final LedgerService ledgerService;
+    private final AccountCache accountCache;
+    private final AccountAggregates accountAggregates;
+    private final long annualRateBps;
+    private final long dayCount;
+    private final long maintenanceFee;
+    private final long chunkSize;
+    private final ZoneId zone;
+    private final ExecutorService workers;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public EndOfDayBatch(AccountJdbcRepository accountJdbcRepository,
+                         EndOfDayChunkRepository endOfDayChunkRepository,
+                         RetryingTransactionExecutor retryingTransactionExecutor,
+                         HotAccountBalances hotAccountBalances,
+                         LedgerService ledgerService,
+                         AccountCache accountCache,
+                         AccountAggregates accountAggregates,
+                         @Value("${banking.eod.interest-rate-bps:0}") long annualRateBps,
+                         @Value("${banking.eod.day-count:365}") long dayCount,
+                         @Value("${banking.eod.maintenance-fee:0}") long maintenanceFee,
+                         @Value("${banking.eod.chunk-size:10000}") long chunkSize,
+                         @Value("${banking.eod.parallelism:4}") int parallelism,
+                         @Value("${banking.eod.zone:UTC}") ZoneId zone) {
+        if (annualRateBps < 0 || maintenanceFee < 0 || dayCount < 1) {
+            throw new IllegalArgumentException("Interest rate and fee must not be negative, day count must be positive");
+        }
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.endOfDayChunkRepository = endOfDayChunkRepository;
+        this.retryingTransactionExecutor = retryingTransactionExecutor;
+        this.hotAccountBalances = hotAccountBalances;
+        this.ledgerService = ledgerService;
+        this.accountCache = accountCache;
+        this.accountAggregates = accountAggregates;
+        this.annualRateBps = annualRateBps;
+        this.dayCount = dayCount;
+        this.maintenanceFee = maintenanceFee;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.zone = zone;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "end-of-day");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Closes the day that just ended; off unless banking.eod.cron is set.
+    @Scheduled(cron = "${banking.eod.cron:-}", zone = "${banking.eod.zone:UTC}")
+    public void runScheduled() {
+        run(LocalDate.now(zone).minusDays(1));
+    }
+
+    public EndOfDayReport run(LocalDate businessDate) {
+        if (!running.compareAndSet(false, true)) {
+            throw new EndOfDayConflictException("An end-of-day run is already in progress");
+        }
+        try {
+            return runChunks(businessDate);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private EndOfDayReport runChunks(LocalDate businessDate) {
+        long started = System.nanoTime();
+        Set<Long> done = new HashSet<>();
+        for (Object[] range : endOfDayChunkRepository.findRangesByBusinessDate(businessDate)) {
+            long from = (Long) range[0];
+            long size = (Long) range[1] - from + 1;
+            if (size != chunkSize) {
+                throw new EndOfDayConflictException("End-of-day of " + businessDate + " was started with a chunk size of "
+                        + size + ", not " + chunkSize);
+            }
+            done.add(from);
+        }
+        int totalChunks = 0;
+        List<CompletableFuture<Optional<ChunkResult>>> pending = new ArrayList<>();
+        Optional<long[]> idRange = accountJdbcRepository.findIdRange();
+        if (idRange.isPresent()) {
+            long maxId = idRange.get()[1];
+            for (long from = Math.floorDiv(idRange.get()[0], chunkSize) * chunkSize; from <= maxId; from += chunkSize) {
+                totalChunks++;
+                if (!done.contains(from)) {
+                    long chunkFrom = from;
+                    pending.add(CompletableFuture.supplyAsync(() -> processChunk(businessDate, chunkFrom), workers));
+                }
+            }
+        }
+
+        List<ChunkResult> results = new ArrayList<>(pending.size());
+        int skipped = totalChunks - pending.size();
+        int failed = 0;
+        for (CompletableFuture<Optional<ChunkResult>> chunk : pending) {
+            try {
+                Optional<ChunkResult> result = chunk.join();
+                if (result.isPresent()) {
+                    results.add(result.get());
+                } else {
+                    skipped++;
+                }
+            } catch (CompletionException e) {
+                failed++;
+                log.warn("End-of-day chunk of {} failed and will be retried by the next run", businessDate, e.getCause());
+            }
+        }
+        long accounts = results.stream().mapToLong(ChunkResult::accountCount).sum();
+        long interest = results.stream().mapToLong(ChunkResult::interest).reduce(0, Money::add);
+        long fees = results.stream().mapToLong(ChunkResult::fees).reduce(0, Money::add);
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("End-of-day {}: {} accounts in {} chunks ({} skipped, {} failed) in {} ms",
+                businessDate, accounts, results.size(), skipped, failed, durationMillis);
+        return new EndOfDayReport(businessDate, totalChunks, skipped, failed, accounts, interest, fees, durationMillis,
+                results.stream().sorted((left, right) -> Long.compare(left.fromId(), right.fromId())).collect(Collectors.toList()));
+    }
+
+    // Empty if a concurrent run got to the chunk first.
+    private Optional<ChunkResult> processChunk(LocalDate businessDate, long chunkFrom) {
+        long chunkTo = chunkFrom + chunkSize - 1;
+        long started = System.nanoTime();
+        EndOfDayChunk checkpoint;
+        try {
+            checkpoint = retryingTransactionExecutor.execute(() -> applyChunk(businessDate, chunkFrom, chunkTo, started));
+        } catch (DataIntegrityViolationException e) {
+            // Only the unique key of a checkpoint another run committed means the chunk is done; any other
+            // constraint (ledger entries, balances) rolled the chunk back and fails it.
+            if (!endOfDayChunkRepository.existsByBusinessDateAndChunkFrom(businessDate, chunkFrom)) {
+                throw e;
+            }
+            log.info("End-of-day chunk {}-{} of {} was done by another run", chunkFrom, chunkTo, businessDate);
+            return Optional.empty();
+        }
+        long nanos = Math.max(1, System.nanoTime() - started);
+        ChunkResult result = new ChunkResult(chunkFrom, chunkTo, checkpoint.getAccountCount(), checkpoint.getInterest(),
+                checkpoint.getFees(), TimeUnit.NANOSECONDS.toMillis(nanos), checkpoint.getAccountCount() * 1e9 / nanos);
+        log.debug("End-of-day chunk {}-{}: {} accounts in {} ms ({} accounts/s)", chunkFrom, chunkTo,
+                result.accountCount(), result.durationMillis(), Math.round(result.accountsPerSecond()));
+        return Optional.of(result);
+    }
+
+    private EndOfDayChunk applyChunk(LocalDate businessDate, long chunkFrom, long chunkTo, long started) {
+        // The checkpoint goes in first: a concurrent run inserting the same chunk waits on the unique key
+        // and fails once this transaction commits.
+        EndOfDayChunk checkpoint = endOfDayChunkRepository.saveAndFlush(
+                new EndOfDayChunk(null, businessDate, chunkFrom, chunkTo, 0, 0, 0, 0, Instant.now()));
+        List<LockedAccount> accounts = accountJdbcRepository.lockRange(chunkFrom, chunkTo);
+        List<Long> hotIds = accounts.stream()
+                .filter(account -> account.balanceSlots() > 0)
+                .map(LockedAccount::id)
+                .collect(Collectors.toList());
+        Map<Long, Long> slotTotals = hotIds.isEmpty() ? Map.of() : hotAccountBalances.slotTotals(hotIds);
+
+        SortedMap<Long, Long> balances = new TreeMap<>();
+        Map<Long, Long> interest = new LinkedHashMap<>();
+        Map<Long, Long> fees = new LinkedHashMap<>();
+        long interestTotal = 0;
+        long feeTotal = 0;
+        for (LockedAccount account : accounts) {
+            long visible = Money.add(account.balance(), slotTotals.getOrDefault(account.id(), 0L));
+            long accountInterest = interest(visible);
+            long balance = Money.add(account.balance(), accountInterest);
+            long fee = Math.min(maintenanceFee, Math.max(balance, 0));
+            if (accountInterest == 0 && fee == 0) {
+                continue;
+            }
+            balance = Money.subtract(balance, fee);
+            balances.put(account.id(), balance);
+            if (accountInterest > 0) {
+                interest.put(account.id(), accountInterest);
+                interestTotal = Money.add(interestTotal, accountInterest);
+            }
+            if (fee > 0) {
+                fees.put(account.id(), fee);
+                feeTotal = Money.add(feeTotal, fee);
+            }
+            accountAggregates.balanceChanged(visible, Money.subtract(Money.add(visible, accountInterest), fee));
+        }
+        accountJdbcRepository.updateBalances(balances);
+        ledgerService.recordEndOfDay(interest, fees);
+        accountCache.evictAfterCompletion(new ArrayList<>(balances.keySet()));
+
+        checkpoint.setAccountCount(accounts.size());
+        checkpoint.setInterest(interestTotal);
+        checkpoint.setFees(feeTotal);
+        checkpoint.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        checkpoint.setFinishedAt(Instant.now());
+        return checkpoint;
+    }
+
+    // Split so that balance * rate cannot overflow.
+    long interest(long balance) {
+        if (balance <= 0 || annualRateBps == 0) {
+            return 0;
+        }
+        long divisor = 10_000 * dayCount;
+        return Math.addExact(Math.multiplyExact(balance / divisor, annualRateBps), balance % divisor * annualRateBps / divisor);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,133 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.entity.AccountBalanceSlot;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.money.Money;
+import com.sergeymars.banking_app.repository.AccountBalanceSlotRepository;
+import com.sergeymars.banking_app.repository.AccountRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Credits to a hot account go to one of its account_balance_slots rows instead of the accounts row,
+// so concurrent credits do not queue on a single row lock. The visible balance is the account balance
+// plus all of its slots. Debits drain the slots back into the account row under its lock first.
+//
+// The set of hot accounts is cached per node. A stale entry is harmless: a credit whose slot row
+// no longer exists updates nothing and the caller falls back to the accounts row.
+@Component
+public class HotAccountBalances {
+
+    static final int MAX_SLOTS = 256;
+
+    private final AccountBalanceSlotRepository accountBalanceSlotRepository;
+    private final AccountRepository accountRepository;
+    private final Map<Long, Integer> hotAccounts = new ConcurrentHashMap<>();
+
+    public HotAccountBalances(AccountBalanceSlotRepository accountBalanceSlotRepository,
+                              AccountRepository accountRepository) {
+        this.accountBalanceSlotRepository = accountBalanceSlotRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.hot-accounts.refresh-delay:PT30S}")
+    public void refresh() {
+        Map<Long, Integer> current = new HashMap<>();
+        for (Object[] row : accountRepository.findHotAccountSlots()) {
+            current.put((Long) row[0], (Integer) row[1]);
+        }
+        hotAccounts.keySet().retainAll(current.keySet());
+        hotAccounts.putAll(current);
+    }
+
+    public boolean isHot(Long accountId) {
+        return hotAccounts.containsKey(accountId);
+    }
+
+    public boolean credit(Long accountId, long amount) {
+        Integer slots = hotAccounts.get(accountId);
+        if (slots == null) {
+            return false;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        if (accountBalanceSlotRepository.credit(accountId, slot, amount) == 1) {
+            return true;
+        }
+        hotAccounts.remove(accountId, slots);
+        return false;
+    }
+
+    public long slotTotal(Long accountId) {
+        return accountBalanceSlotRepository.sumByAccountId(accountId);
+    }
+
+    public Map<Long, Long> slotTotals(Collection<Long> accountIds) {
+        Map<Long, Long> totals = new HashMap<>();
+        for (Object[] row : accountBalanceSlotRepository.sumByAccountIds(accountIds)) {
+            totals.put((Long) row[0], (Long) row[1]);
+        }
+        return totals;
+    }
+
+    // The caller must already hold the row lock of the account, so the lock order is always account, then slots.
+    public long drain(Long accountId) {
+        long total = 0;
+        for (AccountBalanceSlot slot : accountBalanceSlotRepository.findByAccountIdForUpdate(accountId)) {
+            total = Money.add(total, slot.getBalance());
+            slot.setBalance(0);
+        }
+        return total;
+    }
+
+    public void enable(Account lockedAccount, int slots) {
+        if (slots < 1 || slots > MAX_SLOTS) {
+            throw new AccountException("Slots should be between 1 and " + MAX_SLOTS);
+        }
+        Long accountId = lockedAccount.getId();
+        List<AccountBalanceSlot> existing = accountBalanceSlotRepository.findByAccountIdForUpdate(accountId);
+        List<AccountBalanceSlot> removed = new ArrayList<>();
+        long drained = 0;
+        for (AccountBalanceSlot slot : existing) {
+            drained = Money.add(drained, slot.getBalance());
+            slot.setBalance(0);
+            if (slot.getSlot() >= slots) {
+                removed.add(slot);
+            }
+        }
+        accountBalanceSlotRepository.deleteAll(removed);
+        List<AccountBalanceSlot> added = new ArrayList<>();
+        for (int slot = existing.size() - removed.size(); slot < slots; slot++) {
+            added.add(new AccountBalanceSlot(accountId, slot, 0));
+        }
+        accountBalanceSlotRepository.saveAll(added);
+        lockedAccount.setBalance(Money.add(lockedAccount.getBalance(), drained));
+        lockedAccount.setBalanceSlots(slots);
+        hotAccounts.put(accountId, slots);
+    }
+
+    public void disable(Account lockedAccount) {
+        Long accountId = lockedAccount.getId();
+        List<AccountBalanceSlot> existing = accountBalanceSlotRepository.findByAccountIdForUpdate(accountId);
+        long drained = 0;
+        for (AccountBalanceSlot slot : existing) {
+            drained = Money.add(drained, slot.getBalance());
+        }
+        accountBalanceSlotRepository.deleteAll(existing);
+        lockedAccount.setBalance(Money.add(lockedAccount.getBalance(), drained));
+        lockedAccount.setBalanceSlots(0);
+        hotAccounts.remove(accountId);
+    }
+
+    public void remove(Long accountId) {
+        accountBalanceSlotRepository.deleteByAccountId(accountId);
+        hotAccounts.remove(accountId);
+    }
+}
@@ -0,0 +1,245 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sergeymars.banking_app.entity.IdempotencyKey;
+import com.sergeymars.banking_app.exception.IdempotencyKeyException;
+import com.sergeymars.banking_app.exception.IdempotencyKeyInProgressException;
+import com.sergeymars.banking_app.repository.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Remembers the response of every keyed request for the configured time, so a retried request gets the
+// first response back instead of moving the money again. Recent keys are answered from a size-bounded
+// cache; the idempotency_keys table covers evicted keys, restarts and other nodes.
+//
+// The key row is reserved without a response in its own transaction before the operation runs, so only
+// one of several concurrent requests with the key runs it, even when the operation commits somewhere else
+// (a shard, the in-memory engine). The operation runs exactly once, outside any retried transaction, and
+// its response is written afterwards in a transaction of its own; a failed operation releases the key. A
+// duplicate arriving on the node that runs the operation gets a future
+// of the first request's outcome, so it holds no thread while it waits, and is told the key is still in
+// progress once pending-wait runs out. A key reserved on another node is reported in progress at once. A
+// node that dies between the two leaves the key reserved until it expires, since it cannot tell whether
+// the operation ran.
+@Component
+public class IdempotencyStore {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final RetryingTransactionExecutor retryingTransactionExecutor;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final int cleanupBatchSize;
+    private final Duration pendingWait;
+    private final Cache<String, StoredResponse> cache;
+    private final ConcurrentMap<String, Running> running = new ConcurrentHashMap<>();
+    private final AtomicLong replayCount = new AtomicLong();
+    private Clock clock = Clock.systemUTC();
+
+    public IdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository,
+                            RetryingTransactionExecutor retryingTransactionExecutor,
+                            ObjectMapper objectMapper,
+                            @Value("${banking.idempotency.cache-size:10000}") long cacheSize,
+                            @Value("${banking.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${banking.idempotency.cleanup-batch-size:1000}") int cleanupBatchSize,
+                            @Value("${banking.idempotency.pending-wait:10s}") Duration pendingWait) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.retryingTransactionExecutor = retryingTransactionExecutor;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.cleanupBatchSize = Math.max(1, cleanupBatchSize);
+        this.pendingWait = pendingWait;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String key, String fingerprint, JavaType responseType, Supplier<T> action) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        StoredResponse cached = cache.getIfPresent(key);
+        if (cached != null && cached.expiresAt().isAfter(clock.instant())) {
+            return CompletableFuture.completedFuture((T) replay(cached, fingerprint));
+        }
+        Running ours = new Running(fingerprint, new CompletableFuture<>());
+        Running other = running.putIfAbsent(key, ours);
+        if (other != null) {
+            return (CompletableFuture<T>) awaitRunning(other, fingerprint);
+        }
+        try {
+            T response = (T) resolve(key, fingerprint, responseType, action);
+            ours.response().complete(response);
+            return CompletableFuture.completedFuture(response);
+        } catch (RuntimeException e) {
+            ours.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key, ours);
+        }
+    }
+
+    private <T> Object resolve(String key, String fingerprint, JavaType responseType, Supplier<T> action) {
+        IdempotencyKey stored = idempotencyKeyRepository.findLive(key, clock.instant()).orElse(null);
+        if (stored == null) {
+            if (reserve(key, fingerprint)) {
+                return run(key, fingerprint, action);
+            }
+            // Another node reserved the key first.
+            stored = idempotencyKeyRepository.findLive(key, clock.instant()).orElse(null);
+        }
+        if (stored != null && !stored.getRequestFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyException("Idempotency-Key was already used for a different request");
+        }
+        if (stored == null || stored.getResponseBody() == null) {
+            throw inProgress();
+        }
+        return replay(remember(stored, responseType), fingerprint);
+    }
+
+    // A failure of the first request is passed on as it is; the key is free again unless the operation ran.
+    private CompletableFuture<Object> awaitRunning(Running other, String fingerprint) {
+        if (!other.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyException("Idempotency-Key was already used for a different request");
+        }
+        return other.response()
+                .thenApply(response -> {
+                    replayCount.incrementAndGet();
+                    return response;
+                })
+                .orTimeout(pendingWait.toNanos(), TimeUnit.NANOSECONDS)
+                .handle((response, failure) -> {
+                    if (failure == null) {
+                        return response;
+                    }
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause()
+                            : failure;
+                    throw new CompletionException(cause instanceof TimeoutException ? inProgress() : cause);
+                });
+    }
+
+    // An expired key that cleanup has not reached yet is free to take again.
+    private boolean reserve(String key, String fingerprint) {
+        try {
+            return retryingTransactionExecutor.execute(() -> {
+                Instant now = clock.instant();
+                idempotencyKeyRepository.deleteExpired(List.of(key), now);
+                idempotencyKeyRepository.insert(key, fingerprint, null, now, now.plus(ttl));
+                return true;
+            });
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    // Only storing the response is retried: the sharded and in-memory services commit the operation on
+    // their own, so running it again after a failed commit of the response would move the money twice.
+    private <T> T run(String key, String fingerprint, Supplier<T> action) {
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            retryingTransactionExecutor.execute(() -> idempotencyKeyRepository.release(key));
+            throw e;
+        }
+        // The operation has committed, so from here on a failure leaves the key reserved.
+        String responseBody = toJson(result);
+        retryingTransactionExecutor.execute(() -> idempotencyKeyRepository.complete(key, responseBody));
+        cache.put(key, new StoredResponse(fingerprint, result, clock.instant().plus(ttl)));
+        return result;
+    }
+
+    private static IdempotencyKeyInProgressException inProgress() {
+        return new IdempotencyKeyInProgressException("A request with this Idempotency-Key is still in progress");
+    }
+
+    // Deletes in batches, each in its own short transaction, so cleanup never holds many row locks at once.
+    @Scheduled(fixedDelayString = "${banking.idempotency.cleanup-delay:PT5M}")
+    public long purgeExpired() {
+        Instant now = clock.instant();
+        long purged = 0;
+        List<String> expired;
+        do {
+            expired = idempotencyKeyRepository.findExpiredKeys(now, Limit.of(cleanupBatchSize));
+            if (!expired.isEmpty()) {
+                List<String> batch = expired;
+                purged += retryingTransactionExecutor.execute(() -> idempotencyKeyRepository.deleteExpired(batch, now));
+            }
+        } while (expired.size() == cleanupBatchSize);
+        return purged;
+    }
+
+    public long getReplayCount() {
+        return replayCount.get();
+    }
+
+    public long getCachedKeyCount() {
+        return cache.estimatedSize();
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    void evictCache() {
+        cache.invalidateAll();
+    }
+
+    private Object replay(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyException("Idempotency-Key was already used for a different request");
+        }
+        replayCount.incrementAndGet();
+        return stored.response();
+    }
+
+    private StoredResponse remember(IdempotencyKey stored, JavaType responseType) {
+        StoredResponse response;
+        try {
+            response = new StoredResponse(stored.getRequestFingerprint(),
+                    objectMapper.readValue(stored.getResponseBody(), responseType), stored.getExpiresAt());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response of an idempotency key is not readable", e);
+        }
+        cache.put(stored.getIdempotencyKey(), response);
+        return response;
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored for an idempotency key", e);
+        }
+    }
+
+    private record StoredResponse(String fingerprint, Object response, Instant expiresAt) {
+    }
+
+    private record Running(String fingerprint, CompletableFuture<Object> response) {
+    }
+}
@@ -0,0 +1,595 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountAggregatesDto;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountSearchPage;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferResult;
+import com.sergeymars.banking_app.dto.VersionedAccount;
+import com.sergeymars.banking_app.engine.BalanceJournal;
+import com.sergeymars.banking_app.engine.BalanceJournal.JournalRecord;
+import com.sergeymars.banking_app.engine.BalanceStore;
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import com.sergeymars.banking_app.exception.OperationNotAvailableException;
+import com.sergeymars.banking_app.money.Money;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository;
+import com.sergeymars.banking_app.repository.InMemoryAccountRepository;
+import com.sergeymars.banking_app.repository.JournalCheckpointRepository;
+import com.sergeymars.banking_app.service.AccountService;
+import com.sergeymars.banking_app.service.LedgerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// AccountService for the low-latency tier: every balance lives in a BalanceStore owned by one writer thread,
+// and every call, reads included, is a command that thread runs in arrival order, so nothing is locked.
+// The writer takes the commands queued at once as a batch, journals each mutation to a memory-mapped
+// BalanceJournal before applying it, forces the journal once per batch and only then answers the callers.
+// JournalPersister copies the journal into the database in the background.
+//
+// At startup the database is the snapshot: the accounts are loaded from it and the journal records after
+// its checkpoint are replayed on top and persisted. The engine must be the only writer of the accounts
+// table, and the ledger trails the balances by the persister's delay. Hot mode and the maintained
+// aggregates belong to the database-backed AccountServiceImpl.
+@Service
+@Profile("in-memory")
+public class InMemoryAccountServiceImpl implements AccountService {
+
+    static final int MAX_PAGE_SIZE = AccountServiceImpl.MAX_PAGE_SIZE;
+    static final int MAX_BATCH = 1024;
+    static final int QUEUE_CAPACITY = 65_536;
+    // Length of accounts.account_holder_name; a longer name would only fail later, in the persister.
+    static final int MAX_HOLDER_NAME_LENGTH = 255;
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryAccountServiceImpl.class);
+    private static final Comparator<AccountDto> BY_HOLDER_NAME_KEY = Comparator
+            .comparing((AccountDto account) -> Account.holderNameKey(account.accountHolderName()))
+            .thenComparingLong(AccountDto::id);
+
+    private AccountJdbcRepository accountJdbcRepository;
+    private InMemoryAccountRepository inMemoryAccountRepository;
+    private JournalPersister journalPersister;
+    private Path journalPath;
+    private int journalSize;
+    private boolean journalSync;
+    private BalanceStore store;
+    private BalanceJournal journal;
+    private BlockingQueue<Command<?>> commands = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private List<JournalRecord> unpublished = new ArrayList<>();
+    private Thread writer;
+    private volatile boolean running;
+    private long nextAccountId;
+    private long accountIdBlockEnd = -1;
+
+    public InMemoryAccountServiceImpl(AccountJdbcRepository accountJdbcRepository,
+                                      InMemoryAccountRepository inMemoryAccountRepository,
+                                      JournalCheckpointRepository journalCheckpointRepository,
+                                      LedgerService ledgerService,
+                                      RetryingTransactionExecutor retryingTransactionExecutor,
+                                      @Value("${banking.in-memory.journal-path:data/balance.journal}") String journalPath,
+                                      @Value("${banking.in-memory.journal-size:67108864}") int journalSize,
+                                      @Value("${banking.in-memory.journal-sync:true}") boolean journalSync,
+                                      @Value("${banking.in-memory.expected-accounts:65536}") int expectedAccounts,
+                                      @Value("${banking.in-memory.persist-batch-size:10000}") int persistBatchSize,
+                                      @Value("${banking.in-memory.persist-max-delay:200ms}") Duration persistMaxDelay) {
+        this.accountJdbcRepository = accountJdbcRepository;
+        this.inMemoryAccountRepository = inMemoryAccountRepository;
+        this.journalPath = Path.of(journalPath);
+        this.journalSize = journalSize;
+        this.journalSync = journalSync;
+        this.store = new BalanceStore(expectedAccounts);
+        this.journalPersister = new JournalPersister(inMemoryAccountRepository, journalCheckpointRepository, ledgerService,
+                retryingTransactionExecutor, this.journalPath.getFileName().toString(), persistBatchSize, persistMaxDelay);
+        this.writer = new Thread(this::runWriter, "balance-engine");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        long checkpoint = journalPersister.loadCheckpoint();
+        accountJdbcRepository.streamAllVersioned(account -> store.add(account.account().id(),
+                account.account().accountHolderName(), account.account().balance(), account.version().rowVersion()));
+        journal = BalanceJournal.open(journalPath, journalSize);
+        List<JournalRecord> replayed = new ArrayList<>();
+        journal.replay(checkpoint, record -> {
+            replay(record);
+            replayed.add(record);
+        });
+        // Everything replayed is in the database before the journal is written over from the start.
+        journalPersister.persist(replayed);
+        journal.reset();
+        journalPersister.start(journal.lastSequence());
+        running = true;
+        writer.start();
+        log.info("Loaded {} accounts and replayed {} journal records after sequence {}", store.size(), replayed.size(), checkpoint);
+    }
+
+    @Override
+    public AccountDto createAccount(AccountDto accountDto) {
+        return submit(() -> {
+            validate(accountDto);
+            return create(accountDto);
+        });
+    }
+
+    // Every account is checked before the first one is journaled, so a bad one creates none of the list.
+    @Override
+    public List<AccountDto> createAccounts(List<AccountDto> accountDtos) {
+        return submit(() -> {
+            accountDtos.forEach(this::validate);
+            List<AccountDto> created = new ArrayList<>(accountDtos.size());
+            accountDtos.forEach(accountDto -> created.add(create(accountDto)));
+            return created;
+        });
+    }
+
+    @Override
+    public long importAccounts(Iterator<AccountDto> accountDtos) {
+        long created = 0;
+        List<AccountDto> chunk = new ArrayList<>(MAX_BATCH);
+        while (accountDtos.hasNext()) {
+            chunk.add(accountDtos.next());
+            if (chunk.size() == MAX_BATCH) {
+                created += createAccounts(chunk).size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created += createAccounts(chunk).size();
+        }
+        return created;
+    }
+
+    private void validate(AccountDto accountDto) {
+        String name = accountDto.accountHolderName();
+        if ((name != null && name.length() > MAX_HOLDER_NAME_LENGTH) || !journal.fits(name)) {
+            throw new AccountException("Account holder name is too long");
+        }
+    }
+
+    private AccountDto create(AccountDto accountDto) {
+        long id = nextAccountId();
+        journal(BalanceJournal.CREATE, id, 0, accountDto.balance(), accountDto.accountHolderName());
+        store.add(id, accountDto.accountHolderName(), accountDto.balance());
+        return new AccountDto(id, accountDto.accountHolderName(), accountDto.balance());
+    }
+
+    // Ids come in blocks from accounts_seq, so only one create in InMemoryAccountRepository.ACCOUNT_ID_BLOCK
+    // waits for the database.
+    private long nextAccountId() {
+        while (nextAccountId > accountIdBlockEnd) {
+            accountIdBlockEnd = inMemoryAccountRepository.nextAccountIdBlock();
+            nextAccountId = Math.max(Math.max(1, accountIdBlockEnd - InMemoryAccountRepository.ACCOUNT_ID_BLOCK + 1),
+                    store.lastId() + 1);
+        }
+        return nextAccountId++;
+    }
+
+    @Override
+    public AccountDto getAccountById(Long id) {
+        return submit(() -> toDto(slotOf(id, "Account doesn't exist")));
+    }
+
+    @Override
+    public VersionedAccount getVersionedAccount(Long id) {
+        return submit(() -> {
+            int slot = slotOf(id, "Account doesn't exist");
+            return new VersionedAccount(toDto(slot), new AccountVersion(store.versionAt(slot), 0));
+        });
+    }
+
+    @Override
+    public AccountVersion getAccountVersion(Long id) {
+        return submit(() -> new AccountVersion(store.versionAt(slotOf(id, "Account doesn't exist")), 0));
+    }
+
+    @Override
+    public AccountDto addDeposit(Long id, long amount) {
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        return submit(() -> {
+            int slot = slotOf(id, "Account doesn't exist");
+            long balance = Money.add(store.balanceAt(slot), amount);
+            journal(BalanceJournal.DEPOSIT, id, 0, amount, null);
+            store.setBalanceAt(slot, balance);
+            return toDto(slot);
+        });
+    }
+
+    // Every deposit is journaled and applied on its own, so each still gets its own ledger entry and version.
+    @Override
+    public Map<Long, AccountDto> addDeposits(List<DepositRequest> deposits) {
+        return submit(() -> {
+            SortedMap<Long, Long> totals = new TreeMap<>();
+            for (DepositRequest deposit : deposits) {
+                if (store.slotOf(deposit.accountId()) >= 0) {
+                    totals.merge(deposit.accountId(), deposit.amount(), Money::add);
+                }
+            }
+            // Overflow is checked for all accounts before anything is journaled.
+            totals.forEach((id, total) -> Money.add(store.balanceAt(store.slotOf(id)), total));
+            for (DepositRequest deposit : deposits) {
+                if (totals.containsKey(deposit.accountId())) {
+                    int slot = store.slotOf(deposit.accountId());
+                    long balance = Money.add(store.balanceAt(slot), deposit.amount());
+                    journal(BalanceJournal.DEPOSIT, deposit.accountId(), 0, deposit.amount(), null);
+                    store.setBalanceAt(slot, balance);
+                }
+            }
+            Map<Long, AccountDto> accounts = new HashMap<>();
+            totals.keySet().forEach(id -> accounts.put(id, toDto(store.slotOf(id))));
+            return accounts;
+        });
+    }
+
+    @Override
+    public AccountDto withdrawDeposit(Long id, long amount) {
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        return submit(() -> {
+            int slot = slotOf(id, "Account doesn't exist");
+            if (store.balanceAt(slot) < amount) {throw new InsufficientFundsException("Insufficient money");}
+            journal(BalanceJournal.WITHDRAW, id, 0, amount, null);
+            store.setBalanceAt(slot, Money.subtract(store.balanceAt(slot), amount));
+            return toDto(slot);
+        });
+    }
+
+    @Override
+    public List<AccountDto> getAllAccounts() {
+        return submit(() -> {
+            List<AccountDto> accounts = new ArrayList<>(store.size());
+            for (int slot = 0; slot < store.slots(); slot++) {
+                if (store.isLive(slot)) {
+                    accounts.add(toDto(slot));
+                }
+            }
+            return accounts;
+        });
+    }
+
+    @Override
+    public KeysetPage<AccountDto> getAccountsPage(Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return submit(() -> {
+            List<AccountDto> accounts = new ArrayList<>(pageSize + 1);
+            for (int slot = store.slotAfter(afterId == null ? 0L : afterId); slot < store.slots() && accounts.size() <= pageSize; slot++) {
+                if (store.isLive(slot)) {
+                    accounts.add(toDto(slot));
+                }
+            }
+            boolean hasNext = accounts.size() > pageSize;
+            List<AccountDto> content = hasNext ? accounts.subList(0, pageSize) : accounts;
+            Long next = hasNext ? content.get(content.size() - 1).id() : null;
+            return new KeysetPage<>(content, next);
+        });
+    }
+
+    // A scan over the store; the names are kept lowercased next to the balances.
+    @Override
+    public AccountSearchPage searchByHolderName(String prefix, String afterName, Long afterId, int limit) {
+        if (prefix == null || prefix.isBlank()) {throw new AccountException("Search name should not be empty");}
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String keyPrefix = Account.holderNameKey(prefix);
+        String afterKey = afterName == null ? "" : Account.holderNameKey(afterName);
+        long afterIdOrMin = afterId == null ? Long.MIN_VALUE : afterId;
+        List<AccountDto> accounts = submit(() -> {
+            List<AccountDto> found = new ArrayList<>();
+            for (int slot = 0; slot < store.slots(); slot++) {
+                String key = store.nameKeyAt(slot);
+                if (key == null || !key.startsWith(keyPrefix)) {
+                    continue;
+                }
+                int byKey = key.compareTo(afterKey);
+                if (byKey > 0 || byKey == 0 && store.idAt(slot) > afterIdOrMin) {
+                    found.add(toDto(slot));
+                }
+            }
+            return found;
+        });
+        List<AccountDto> sorted = accounts.stream().sorted(BY_HOLDER_NAME_KEY).limit(pageSize + 1).toList();
+        boolean hasNext = sorted.size() > pageSize;
+        List<AccountDto> content = hasNext ? sorted.subList(0, pageSize) : sorted;
+        AccountDto last = hasNext ? content.get(content.size() - 1) : null;
+        return new AccountSearchPage(content, last == null ? null : last.accountHolderName(), last == null ? null : last.id());
+    }
+
+    // Page by page, so the consumer runs on the caller's thread and never holds up the writer.
+    @Override
+    public void streamAllAccounts(Consumer<AccountDto> consumer) {
+        KeysetPage<AccountDto> page = getAccountsPage(null, MAX_PAGE_SIZE);
+        page.content().forEach(consumer);
+        while (page.next() != null) {
+            page = getAccountsPage(page.next(), MAX_PAGE_SIZE);
+            page.content().forEach(consumer);
+        }
+    }
+
+    // Bounds are inclusive.
+    @Override
+    public long exportAccountsCsv(Long fromId, Long toId, OutputStream outputStream) {
+        long last = toId == null ? Long.MAX_VALUE : toId;
+        AccountCsvWriter writer = new AccountCsvWriter(outputStream, AccountServiceImpl.EXPORT_BUFFER_SIZE);
+        writer.writeHeader();
+        Long after = fromId == null || fromId <= 0 ? null : fromId - 1;
+        KeysetPage<AccountDto> page;
+        do {
+            page = getAccountsPage(after, MAX_PAGE_SIZE);
+            for (AccountDto account : page.content()) {
+                if (account.id() > last) {
+                    writer.flush();
+                    return writer.getRowCount();
+                }
+                writer.writeRow(account.id(), account.accountHolderName(), account.balance());
+            }
+            after = page.next();
+        } while (after != null);
+        writer.flush();
+        return writer.getRowCount();
+    }
+
+    @Override
+    public List<AccountDto> transferMoneyTo(Long fromId, Long toId, long amount) {
+        if (Objects.equals(fromId, toId)) {throw new AccountException("Ids should be different");}
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        return submit(() -> {
+            int fromSlot = slotOf(fromId, "Account from you want transfer money doesn't exist");
+            int toSlot = slotOf(toId, "Account want you transfer money doesn't exist to");
+            transfer(fromSlot, toSlot, amount);
+            List<AccountDto> accounts = new ArrayList<>();
+            accounts.add(toDto(fromSlot));
+            accounts.add(toDto(toSlot));
+            return accounts;
+        });
+    }
+
+    private void transfer(int fromSlot, int toSlot, long amount) {
+        if (store.balanceAt(fromSlot) < amount) {throw new InsufficientFundsException("Insufficient money");}
+        long toBalance = Money.add(store.balanceAt(toSlot), amount);
+        journal(BalanceJournal.TRANSFER, store.idAt(fromSlot), store.idAt(toSlot), amount, null);
+        store.setBalanceAt(fromSlot, Money.subtract(store.balanceAt(fromSlot), amount));
+        store.setBalanceAt(toSlot, toBalance);
+    }
+
+    @Override
+    public List<TransferResult> transferBatch(List<TransferRequest> transfers) {
+        return submit(() -> {
+            List<TransferResult> results = new ArrayList<>(transfers.size());
+            for (int i = 0; i < transfers.size(); i++) {
+                TransferRequest transfer = transfers.get(i);
+                Long fromId = transfer.fromAccountId();
+                Long toId = transfer.toAccountId();
+                if (fromId == null || toId == null || fromId.equals(toId) || transfer.amount() <= 0) {
+                    results.add(new TransferResult(i, fromId, toId, TransferResult.Status.INVALID,
+                            "Ids should be different and amount positive"));
+                    continue;
+                }
+                try {
+                    transfer(slotOf(fromId, "Account from you want transfer money doesn't exist"),
+                            slotOf(toId, "Account want you transfer money doesn't exist to"), transfer.amount());
+                    results.add(new TransferResult(i, fromId, toId, TransferResult.Status.COMPLETED, null));
+                } catch (InsufficientFundsException e) {
+                    results.add(new TransferResult(i, fromId, toId, TransferResult.Status.INSUFFICIENT_FUNDS, e.getMessage()));
+                } catch (AccountNotFoundException e) {
+                    results.add(new TransferResult(i, fromId, toId, TransferResult.Status.ACCOUNT_NOT_FOUND, e.getMessage()));
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public AccountAggregatesDto getAggregates() {
+        throw new OperationNotAvailableException("Aggregates are not available for in-memory accounts");
+    }
+
+    @Override
+    public AccountDto enableHotMode(Long id, int slots) {
+        throw new OperationNotAvailableException("Hot mode is not available for in-memory accounts");
+    }
+
+    @Override
+    public AccountDto disableHotMode(Long id) {
+        throw new OperationNotAvailableException("Hot mode is not available for in-memory accounts");
+    }
+
+    @Override
+    public void deleteAccount(Long id) {
+        submit(() -> {
+            int slot = slotOf(id, "Account doesn't exist");
+            journal(BalanceJournal.DELETE, id, 0, 0, null);
+            store.remove(slot);
+            return null;
+        });
+    }
+
+    // Lets the writer finish the queued commands and the persister write everything out.
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (journal == null) {
+            return;
+        }
+        writer.join();
+        journalPersister.stop();
+        journal.close();
+    }
+
+    // Stops without persisting what the journal holds, as a crash would; for tests.
+    void halt() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join();
+        journalPersister.halt();
+        journal.close();
+    }
+
+    long getPersistedSequence() {
+        return journalPersister.getPersistedSequence();
+    }
+
+    private int slotOf(Long id, String notFoundMessage) {
+        int slot = id == null ? -1 : store.slotOf(id);
+        if (slot < 0) {throw new AccountNotFoundException(notFoundMessage);}
+        return slot;
+    }
+
+    private AccountDto toDto(int slot) {
+        return new AccountDto(store.idAt(slot), store.nameAt(slot), store.balanceAt(slot));
+    }
+
+    // Only records that passed validation get here, so a replay applies them unchecked.
+    private void replay(JournalRecord record) {
+        if (record.type() == BalanceJournal.CREATE) {
+            store.add(record.accountId(), record.accountHolderName(), record.amount());
+            return;
+        }
+        int slot = store.slotOf(record.accountId());
+        switch (record.type()) {
+            case BalanceJournal.DEPOSIT -> store.setBalanceAt(slot, Money.add(store.balanceAt(slot), record.amount()));
+            case BalanceJournal.WITHDRAW -> store.setBalanceAt(slot, Money.subtract(store.balanceAt(slot), record.amount()));
+            case BalanceJournal.TRANSFER -> {
+                int toSlot = store.slotOf(record.counterpartyId());
+                store.setBalanceAt(slot, Money.subtract(store.balanceAt(slot), record.amount()));
+                store.setBalanceAt(toSlot, Money.add(store.balanceAt(toSlot), record.amount()));
+            }
+            case BalanceJournal.DELETE -> store.remove(slot);
+            default -> throw new IllegalStateException("Unknown journal record type " + record.type());
+        }
+    }
+
+    private void journal(byte type, long accountId, long counterpartyId, long amount, String accountHolderName) {
+        if (!journal.hasRoom(accountHolderName)) {
+            if (!journal.fits(accountHolderName)) {throw new AccountException("Account holder name is too long");}
+            // The journal is full: wait for the persister to catch up and start it over.
+            publish();
+            journalPersister.awaitPersisted(journal.lastSequence());
+            journal.reset();
+        }
+        long sequence = journal.append(type, accountId, counterpartyId, amount, accountHolderName);
+        unpublished.add(new JournalRecord(sequence, type, accountId, counterpartyId, amount, accountHolderName));
+    }
+
+    private void publish() {
+        if (journalSync) {
+            journal.force();
+        }
+        journalPersister.enqueue(unpublished);
+        unpublished.clear();
+    }
+
+    private void runWriter() {
+        List<Command<?>> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (running || !commands.isEmpty()) {
+                Command<?> first = commands.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                commands.drainTo(batch, MAX_BATCH - 1);
+                // Start over early while the journal is idle, instead of waiting for the persister once it is full.
+                if (journal.position() > journal.capacity() / 2 && journalPersister.getPersistedSequence() >= journal.lastSequence()) {
+                    journal.reset();
+                }
+                batch.forEach(Command::run);
+                publish();
+                batch.forEach(Command::complete);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // The journal can no longer be written: nothing more is acknowledged.
+            running = false;
+            log.error("The balance engine stopped", e);
+            batch.forEach(command -> command.fail(new AccountException("The balance engine has stopped")));
+        }
+    }
+
+    private <T> T submit(Supplier<T> action) {
+        if (!running) {throw new AccountException("The balance engine is not running");}
+        Command<T> command = new Command<>(action);
+        try {
+            commands.put(command);
+            while (true) {
+                try {
+                    return command.result.get(1, TimeUnit.SECONDS);
+                } catch (TimeoutException e) {
+                    if (!writer.isAlive()) {
+                        command.fail(new AccountException("The balance engine has stopped"));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException("Interrupted while waiting for the balance engine");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class Command<T> {
+
+        private final Supplier<T> action;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private T value;
+        private RuntimeException failure;
+
+        Command(Supplier<T> action) {
+            this.action = action;
+        }
+
+        void run() {
+            try {
+                value = action.get();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        void complete() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+
+        void fail(RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
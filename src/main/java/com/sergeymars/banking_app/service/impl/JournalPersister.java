@@ -0,0 +1,228 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.engine.BalanceJournal;
+import com.sergeymars.banking_app.engine.BalanceJournal.JournalRecord;
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.entity.JournalCheckpoint;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.money.Money;
+import com.sergeymars.banking_app.repository.InMemoryAccountRepository;
+import com.sergeymars.banking_app.repository.JournalCheckpointRepository;
+import com.sergeymars.banking_app.service.LedgerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Copies the journal records of the in-memory engine into the database on a thread of its own. Records
+// are grouped for up to maxDelay or batchSize records, and a group goes in as one transaction: new accounts,
+// summed balance deltas, deletions, their ledger entries and the journal checkpoint. A failed group is
+// retried as it is, so nothing is lost or applied twice while the database is away.
+public class JournalPersister {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalPersister.class);
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final InMemoryAccountRepository inMemoryAccountRepository;
+    private final JournalCheckpointRepository journalCheckpointRepository;
+    private final LedgerService ledgerService;
+    private final RetryingTransactionExecutor retryingTransactionExecutor;
+    private final String journalName;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<JournalRecord> records = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile long persistedSequence;
+    private volatile boolean flushRequested;
+    private volatile boolean halted;
+
+    public JournalPersister(InMemoryAccountRepository inMemoryAccountRepository,
+                            JournalCheckpointRepository journalCheckpointRepository,
+                            LedgerService ledgerService,
+                            RetryingTransactionExecutor retryingTransactionExecutor,
+                            String journalName,
+                            int batchSize,
+                            Duration maxDelay) {
+        this.inMemoryAccountRepository = inMemoryAccountRepository;
+        this.journalCheckpointRepository = journalCheckpointRepository;
+        this.ledgerService = ledgerService;
+        this.retryingTransactionExecutor = retryingTransactionExecutor;
+        this.journalName = journalName;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.thread = new Thread(this::run, "journal-persister");
+        this.thread.setDaemon(true);
+    }
+
+    public long loadCheckpoint() {
+        return journalCheckpointRepository.findById(journalName).map(JournalCheckpoint::getSequence).orElse(0L);
+    }
+
+    public void start(long persistedSequence) {
+        this.persistedSequence = persistedSequence;
+        thread.start();
+    }
+
+    public void enqueue(List<JournalRecord> journalRecords) {
+        records.addAll(journalRecords);
+    }
+
+    public long getPersistedSequence() {
+        return persistedSequence;
+    }
+
+    public int getBacklog() {
+        return records.size();
+    }
+
+    // Blocks until every record up to sequence is in the database.
+    public synchronized void awaitPersisted(long sequence) {
+        flushRequested = true;
+        try {
+            while (persistedSequence < sequence) {
+                if (halted || !thread.isAlive()) {
+                    throw new AccountException("The journal persister has stopped");
+                }
+                wait(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException("Interrupted while waiting for the journal persister");
+        }
+    }
+
+    public void persist(List<JournalRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        retryingTransactionExecutor.execute(() -> {
+            List<AccountDto> created = new ArrayList<>();
+            List<Account> openings = new ArrayList<>();
+            SortedMap<Long, Long> deltas = new TreeMap<>();
+            Map<Long, Long> changes = new HashMap<>();
+            List<Long> deleted = new ArrayList<>();
+            List<DepositRequest> deposits = new ArrayList<>();
+            List<JournalRecord> withdrawals = new ArrayList<>();
+            List<TransferRequest> transfers = new ArrayList<>();
+            for (JournalRecord record : batch) {
+                switch (record.type()) {
+                    case BalanceJournal.CREATE -> {
+                        created.add(new AccountDto(record.accountId(), record.accountHolderName(), record.amount()));
+                        openings.add(new Account(record.accountId(), record.accountHolderName(), record.amount()));
+                    }
+                    case BalanceJournal.DEPOSIT -> {
+                        deltas.merge(record.accountId(), record.amount(), Money::add);
+                        changes.merge(record.accountId(), 1L, Long::sum);
+                        deposits.add(new DepositRequest(record.accountId(), record.amount()));
+                    }
+                    case BalanceJournal.WITHDRAW -> {
+                        deltas.merge(record.accountId(), Money.negate(record.amount()), Money::add);
+                        changes.merge(record.accountId(), 1L, Long::sum);
+                        withdrawals.add(record);
+                    }
+                    case BalanceJournal.TRANSFER -> {
+                        deltas.merge(record.accountId(), Money.negate(record.amount()), Money::add);
+                        deltas.merge(record.counterpartyId(), record.amount(), Money::add);
+                        changes.merge(record.accountId(), 1L, Long::sum);
+                        changes.merge(record.counterpartyId(), 1L, Long::sum);
+                        transfers.add(new TransferRequest(record.accountId(), record.counterpartyId(), record.amount()));
+                    }
+                    case BalanceJournal.DELETE -> deleted.add(record.accountId());
+                    default -> throw new IllegalStateException("Unknown journal record type " + record.type());
+                }
+            }
+            inMemoryAccountRepository.insert(created);
+            inMemoryAccountRepository.addToBalances(deltas, changes);
+            inMemoryAccountRepository.delete(deleted);
+            ledgerService.recordOpenings(openings);
+            if (!deposits.isEmpty()) {
+                ledgerService.recordDeposits(deposits);
+            }
+            withdrawals.forEach(record -> ledgerService.recordWithdrawal(record.accountId(), record.amount()));
+            if (!transfers.isEmpty()) {
+                ledgerService.recordTransfers(transfers);
+            }
+            journalCheckpointRepository.save(new JournalCheckpoint(journalName, batch.get(batch.size() - 1).sequence()));
+            return null;
+        });
+        persisted(batch.get(batch.size() - 1).sequence());
+    }
+
+    // Persists what is queued and stops.
+    public void stop() throws InterruptedException {
+        thread.interrupt();
+        thread.join();
+    }
+
+    // Stops at once and leaves what is queued to the journal replay; a crash, for tests.
+    void halt() throws InterruptedException {
+        halted = true;
+        thread.interrupt();
+        thread.join();
+    }
+
+    private synchronized void persisted(long sequence) {
+        persistedSequence = sequence;
+        notifyAll();
+    }
+
+    private void run() {
+        List<JournalRecord> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                if (batch.isEmpty()) {
+                    batch.add(records.take());
+                }
+                collect(batch);
+                persistUntilDone(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            if (!halted) {
+                records.drainTo(batch);
+                persist(batch);
+            }
+        }
+    }
+
+    private void collect(List<JournalRecord> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < batchSize && !flushRequested) {
+            records.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            JournalRecord next = records.poll(Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+        flushRequested = false;
+        records.drainTo(batch, batchSize - batch.size());
+    }
+
+    private void persistUntilDone(List<JournalRecord> batch) throws InterruptedException {
+        while (true) {
+            try {
+                persist(batch);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Persisting {} journal records failed, retrying", batch.size(), e);
+                TimeUnit.SECONDS.sleep(1);
+            }
+        }
+    }
+}
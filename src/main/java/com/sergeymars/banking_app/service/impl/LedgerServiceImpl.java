@@ -0,0 +1,191 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.LedgerEntryDto;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.entity.BalanceSnapshot;
+import com.sergeymars.banking_app.entity.LedgerEntry;
+import com.sergeymars.banking_app.entity.LedgerEntryType;
+import com.sergeymars.banking_app.mapper.LedgerEntryMapper;
+import com.sergeymars.banking_app.money.Money;
+import com.sergeymars.banking_app.repository.AccountBalanceSlotRepository;
+import com.sergeymars.banking_app.repository.AccountRepository;
+import com.sergeymars.banking_app.repository.BalanceSnapshotRepository;
+import com.sergeymars.banking_app.repository.LedgerEntryRepository;
+import com.sergeymars.banking_app.service.LedgerService;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class LedgerServiceImpl implements LedgerService {
+
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private LedgerEntryRepository ledgerEntryRepository;
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+    private AccountRepository accountRepository;
+    private AccountBalanceSlotRepository accountBalanceSlotRepository;
+
+    public LedgerServiceImpl(LedgerEntryRepository ledgerEntryRepository,
+                             BalanceSnapshotRepository balanceSnapshotRepository,
+                             AccountRepository accountRepository,
+                             AccountBalanceSlotRepository accountBalanceSlotRepository) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.accountRepository = accountRepository;
+        this.accountBalanceSlotRepository = accountBalanceSlotRepository;
+    }
+
+    // The opening is the first entry of a new account, so it needs no look-up of the last sequence number.
+    @Override
+    @Transactional
+    public void recordOpenings(List<Account> accounts) {
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            if (account.getBalance() != 0) {
+                LedgerEntry opening = entry(account.getId(), LedgerEntryType.OPENING, account.getBalance(), null, now);
+                opening.setSequenceNumber(1);
+                entries.add(opening);
+            }
+        }
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    @Override
+    @Transactional
+    public void recordDeposit(Long accountId, long amount) {
+        append(List.of(entry(accountId, LedgerEntryType.DEPOSIT, amount, null, Instant.now())));
+    }
+
+    @Override
+    @Transactional
+    public void recordDeposits(List<DepositRequest> deposits) {
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>(deposits.size());
+        for (DepositRequest deposit : deposits) {
+            entries.add(entry(deposit.accountId(), LedgerEntryType.DEPOSIT, deposit.amount(), null, now));
+        }
+        append(entries);
+    }
+
+    @Override
+    @Transactional
+    public void recordWithdrawal(Long accountId, long amount) {
+        append(List.of(entry(accountId, LedgerEntryType.WITHDRAWAL, Money.negate(amount), null, Instant.now())));
+    }
+
+    @Override
+    @Transactional
+    public void recordTransfers(List<TransferRequest> transfers) {
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+        for (TransferRequest transfer : transfers) {
+            entries.add(entry(transfer.fromAccountId(), LedgerEntryType.TRANSFER_OUT, Money.negate(transfer.amount()),
+                    transfer.toAccountId(), now));
+            entries.add(entry(transfer.toAccountId(), LedgerEntryType.TRANSFER_IN, transfer.amount(),
+                    transfer.fromAccountId(), now));
+        }
+        append(entries);
+    }
+
+    // Fees are stored negative, like withdrawals.
+    @Override
+    @Transactional
+    public void recordEndOfDay(Map<Long, Long> interest, Map<Long, Long> fees) {
+        Instant now = Instant.now();
+        List<LedgerEntry> entries = new ArrayList<>(interest.size() + fees.size());
+        interest.forEach((accountId, amount) -> entries.add(entry(accountId, LedgerEntryType.INTEREST, amount, null, now)));
+        fees.forEach((accountId, amount) -> entries.add(entry(accountId, LedgerEntryType.FEE, Money.negate(amount), null, now)));
+        append(entries);
+    }
+
+    @Override
+    public KeysetPage<LedgerEntryDto> getTransactions(Long accountId, Long beforeId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<LedgerEntry> entries = ledgerEntryRepository.findByAccountIdAndIdLessThanOrderByIdDesc(
+                accountId, beforeId == null ? Long.MAX_VALUE : beforeId, Limit.of(pageSize + 1));
+        boolean hasNext = entries.size() > pageSize;
+        List<LedgerEntryDto> content = entries.stream()
+                .limit(pageSize)
+                .map(LedgerEntryMapper::mapToLedgerEntryDto)
+                .collect(Collectors.toList());
+        Long next = hasNext ? content.get(content.size() - 1).id() : null;
+        return new KeysetPage<>(content, next);
+    }
+
+    // Entries are never rewritten, so a snapshot and the entries past its last sequence number always add up,
+    // whichever snapshot the first read finds.
+    @Override
+    @Transactional(readOnly = true)
+    public long getLedgerBalance(Long accountId) {
+        BalanceSnapshot snapshot = balanceSnapshotRepository.findFirstByAccountIdOrderBySequenceNumberDesc(accountId)
+                .orElse(null);
+        if (snapshot == null) {
+            return ledgerEntryRepository.sumAfter(accountId, 0);
+        }
+        return Money.add(snapshot.getBalance(), ledgerEntryRepository.sumAfter(accountId, snapshot.getLastSequenceNumber()));
+    }
+
+    // Every entry is written under the lock of its account row or of the hot account slot it credits. Taking
+    // all of them first waits out the entries still being written, and every entry written later is numbered
+    // past the ones summed here. Concurrent snapshots of one account queue on the same locks.
+    @Override
+    @Transactional
+    public void snapshot(Long accountId) {
+        accountRepository.findByIdForUpdate(accountId);
+        accountBalanceSlotRepository.findByAccountIdForUpdate(accountId);
+        BalanceSnapshot previous = balanceSnapshotRepository.findFirstByAccountIdOrderBySequenceNumberDesc(accountId)
+                .orElse(null);
+        long sequenceNumber = previous == null ? 1 : previous.getSequenceNumber() + 1;
+        long previousBalance = previous == null ? 0 : previous.getBalance();
+        long afterSequenceNumber = previous == null ? 0 : previous.getLastSequenceNumber();
+
+        Object[] tail = ledgerEntryRepository.summarizeAfter(accountId, afterSequenceNumber).get(0);
+        long entryCount = (Long) tail[0];
+        if (entryCount == 0) {
+            return;
+        }
+        balanceSnapshotRepository.save(new BalanceSnapshot(null, accountId, sequenceNumber,
+                Money.add(previousBalance, (Long) tail[1]), entryCount, (Long) tail[2], Instant.now()));
+    }
+
+    // Numbers each entry one past the last entry of its account. The callers hold the account row or slot locks.
+    private void append(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>();
+        entries.forEach(entry -> distinctIds.add(entry.getAccountId()));
+        List<Long> accountIds = new ArrayList<>(distinctIds);
+        Map<Long, Long> lastSequenceNumbers = new HashMap<>();
+        for (int from = 0; from < accountIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = accountIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, accountIds.size()));
+            for (Object[] row : ledgerEntryRepository.findLastSequenceNumbers(chunk)) {
+                lastSequenceNumbers.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        for (LedgerEntry entry : entries) {
+            entry.setSequenceNumber(lastSequenceNumbers.merge(entry.getAccountId(), 1L, Long::sum));
+        }
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    private static LedgerEntry entry(Long accountId, LedgerEntryType type, long amount,
+                                     Long counterpartyAccountId, Instant createdAt) {
+        return new LedgerEntry(null, accountId, type, amount, counterpartyAccountId, createdAt, 0);
+    }
+}
@@ -0,0 +1,54 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.repository.LedgerEntryRepository;
+import com.sergeymars.banking_app.service.LedgerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Only accounts with entries inside the lookback window are checked, so a run reads the recent part of the
+// ledger rather than all of it. An account that went quiet keeps its tail until its next entry.
+@Component
+public class LedgerSnapshotJob {
+
+    static final int CHECK_CHUNK_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerSnapshotJob.class);
+
+    private LedgerEntryRepository ledgerEntryRepository;
+    private LedgerService ledgerService;
+    private long threshold;
+    private Duration lookback;
+
+    public LedgerSnapshotJob(LedgerEntryRepository ledgerEntryRepository,
+                             LedgerService ledgerService,
+                             @Value("${banking.ledger.snapshot-threshold:100}") long threshold,
+                             @Value("${banking.ledger.snapshot-lookback:PT5M}") Duration lookback) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.ledgerService = ledgerService;
+        this.threshold = threshold;
+        this.lookback = lookback;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.ledger.snapshot-delay:PT1M}")
+    public void snapshotBusyAccounts() {
+        List<Long> active = ledgerEntryRepository.findAccountIdsWithEntriesSince(Instant.now().minus(lookback));
+        for (int from = 0; from < active.size(); from += CHECK_CHUNK_SIZE) {
+            List<Long> chunk = active.subList(from, Math.min(from + CHECK_CHUNK_SIZE, active.size()));
+            for (Long accountId : ledgerEntryRepository.findAccountIdsWithUnsnapshottedEntries(chunk, threshold)) {
+                try {
+                    ledgerService.snapshot(accountId);
+                } catch (DataIntegrityViolationException e) {
+                    log.debug("Snapshot of account {} lost to a concurrent snapshot", accountId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.entity.LedgerEntryType;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import com.sergeymars.banking_app.money.Money;
+import com.sergeymars.banking_app.repository.ReactiveAccountRepository;
+import com.sergeymars.banking_app.service.ReactiveAccountService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+
+// Same rules as AccountServiceImpl: conditional updates for the common case, row locks in ascending
+// id order for transfers, hot account slots drained only when the row balance alone is too low,
+// and one ledger entry per movement.
+@Service
+@Profile("reactive")
+public class ReactiveAccountServiceImpl implements ReactiveAccountService {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private ReactiveAccountRepository reactiveAccountRepository;
+    private TransactionalOperator transactionalOperator;
+    private Retry concurrencyRetry;
+
+    public ReactiveAccountServiceImpl(ReactiveAccountRepository reactiveAccountRepository,
+                                      TransactionalOperator transactionalOperator,
+                                      @Value("${banking.transactions.max-attempts:5}") int maxAttempts,
+                                      @Value("${banking.transactions.initial-backoff-ms:5}") long initialBackoffMillis,
+                                      @Value("${banking.transactions.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.reactiveAccountRepository = reactiveAccountRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.concurrencyRetry = Retry.backoff(Math.max(0, maxAttempts - 1), Duration.ofMillis(Math.max(1, initialBackoffMillis)))
+                .maxBackoff(Duration.ofMillis(Math.max(1, maxBackoffMillis)))
+                .jitter(1.0)
+                .filter(ConcurrencyFailureException.class::isInstance)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    @Override
+    public Mono<AccountDto> createAccount(AccountDto accountDto) {
+        return reactiveAccountRepository.insert(accountDto.accountHolderName(), accountDto.balance())
+                .flatMap(id -> (accountDto.balance() == 0
+                        ? Mono.<Void>empty()
+                        : reactiveAccountRepository.insertLedgerEntry(id, LedgerEntryType.OPENING, accountDto.balance(), null))
+                        .thenReturn(new AccountDto(id, accountDto.accountHolderName(), accountDto.balance())))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<AccountDto> getAccountById(Long id) {
+        return reactiveAccountRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new AccountNotFoundException("Account doesn't exist")));
+    }
+
+    @Override
+    public Mono<AccountDto> addDeposit(Long id, long amount) {
+        if (amount <= 0) {return Mono.error(new AccountException("Amount should be positive"));}
+        return reactiveAccountRepository.deposit(id, amount)
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new AccountNotFoundException("Account doesn't exist"))
+                        : reactiveAccountRepository.insertLedgerEntry(id, LedgerEntryType.DEPOSIT, amount, null))
+                .then(reactiveAccountRepository.findById(id))
+                .as(transactionalOperator::transactional)
+                .retryWhen(concurrencyRetry);
+    }
+
+    @Override
+    public Mono<AccountDto> withdrawDeposit(Long id, long amount) {
+        if (amount <= 0) {return Mono.error(new AccountException("Amount should be positive"));}
+        return reactiveAccountRepository.withdraw(id, amount)
+                .flatMap(updated -> updated > 0
+                        ? Mono.<Void>empty()
+                        // Either the account is missing, short of money, or hot with part of its balance in slots.
+                        : lock(id, "Account doesn't exist").flatMap(balance -> debit(id, balance, amount)))
+                .then(reactiveAccountRepository.insertLedgerEntry(id, LedgerEntryType.WITHDRAWAL, Money.negate(amount), null))
+                .then(reactiveAccountRepository.findById(id))
+                .as(transactionalOperator::transactional)
+                .retryWhen(concurrencyRetry);
+    }
+
+    @Override
+    public Flux<AccountDto> getAllAccounts() {
+        return reactiveAccountRepository.findAll();
+    }
+
+    @Override
+    public Mono<KeysetPage<AccountDto>> getAccountsPage(Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return reactiveAccountRepository.findPage(afterId == null ? 0L : afterId, pageSize + 1)
+                .collectList()
+                .map(accounts -> {
+                    boolean hasNext = accounts.size() > pageSize;
+                    List<AccountDto> content = hasNext ? accounts.subList(0, pageSize) : accounts;
+                    return new KeysetPage<>(content, hasNext ? content.get(content.size() - 1).id() : null);
+                });
+    }
+
+    @Override
+    public Mono<List<AccountDto>> transferMoneyTo(Long fromId, Long toId, long amount) {
+        if (fromId.equals(toId)) {return Mono.error(new AccountException("Ids should be different"));}
+        if (amount <= 0) {return Mono.error(new AccountException("Amount should be positive"));}
+        // Row locks are always taken in ascending id order, so A->B and B->A cannot deadlock each other.
+        Mono<long[]> balances = fromId < toId
+                ? lockFrom(fromId).zipWhen(fromBalance -> lockTo(toId), (from, to) -> new long[]{from, to})
+                : lockTo(toId).zipWhen(toBalance -> lockFrom(fromId), (to, from) -> new long[]{from, to});
+        return balances
+                .flatMap(locked -> debit(fromId, locked[0], amount)
+                        .then(reactiveAccountRepository.updateBalance(toId, Money.add(locked[1], amount))))
+                .then(reactiveAccountRepository.insertLedgerEntry(fromId, LedgerEntryType.TRANSFER_OUT, Money.negate(amount), toId))
+                .then(reactiveAccountRepository.insertLedgerEntry(toId, LedgerEntryType.TRANSFER_IN, amount, fromId))
+                .then(reactiveAccountRepository.findById(fromId)
+                        .zipWith(reactiveAccountRepository.findById(toId), List::of))
+                .as(transactionalOperator::transactional)
+                .retryWhen(concurrencyRetry);
+    }
+
+    @Override
+    public Mono<Void> deleteAccount(Long id) {
+        return reactiveAccountRepository.delete(id)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.<Void>error(new AccountNotFoundException("Account doesn't exist"))
+                        : Mono.<Void>empty())
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Long> lockFrom(Long fromId) {
+        return lock(fromId, "Account from you want transfer money doesn't exist");
+    }
+
+    private Mono<Long> lockTo(Long toId) {
+        return lock(toId, "Account want you transfer money doesn't exist to");
+    }
+
+    private Mono<Long> lock(Long id, String notFoundMessage) {
+        return reactiveAccountRepository.lockBalance(id)
+                .switchIfEmpty(Mono.error(() -> new AccountNotFoundException(notFoundMessage)));
+    }
+
+    // Slots of a hot account are only drained when its own row balance cannot cover the debit.
+    private Mono<Void> debit(Long id, long lockedBalance, long amount) {
+        Mono<Long> available = lockedBalance >= amount
+                ? Mono.just(lockedBalance)
+                : reactiveAccountRepository.drainSlots(id).map(drained -> Money.add(lockedBalance, drained));
+        return available.flatMap(balance -> balance < amount
+                ? Mono.error(new InsufficientFundsException("Insufficient money"))
+                : reactiveAccountRepository.updateBalance(id, Money.subtract(balance, amount)));
+    }
+}
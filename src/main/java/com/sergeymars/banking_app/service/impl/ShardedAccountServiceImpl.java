@@ -0,0 +1,421 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.cache.AccountCache;
+import com.sergeymars.banking_app.config.AccountShards;
+import com.sergeymars.banking_app.config.AccountShards.Shard;
+import com.sergeymars.banking_app.dto.AccountAggregatesDto;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountSearchPage;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferResult;
+import com.sergeymars.banking_app.dto.VersionedAccount;
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import com.sergeymars.banking_app.exception.OperationNotAvailableException;
+import com.sergeymars.banking_app.money.Money;
+import com.sergeymars.banking_app.repository.AccountRepository;
+import com.sergeymars.banking_app.repository.ShardedAccountRepository;
+import com.sergeymars.banking_app.service.AccountService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// AccountService over accounts spread across the shard databases. Everything that touches one account,
+// and transfers between two accounts of one shard, is a single local transaction on that shard. Transfers
+// across shards go through TransferSaga. Reads over all accounts query every shard in parallel and merge
+// the id-ordered results.
+//
+// Hot accounts, the ledger and the maintained aggregates stay with the single-database AccountServiceImpl.
+@Service
+@Profile("sharded")
+public class ShardedAccountServiceImpl implements AccountService {
+
+    static final int MAX_PAGE_SIZE = AccountServiceImpl.MAX_PAGE_SIZE;
+    static final int IMPORT_CHUNK_SIZE = AccountServiceImpl.IMPORT_CHUNK_SIZE;
+
+    private static final Comparator<AccountDto> BY_ID = Comparator.comparingLong(AccountDto::id);
+    private static final Comparator<AccountDto> BY_HOLDER_NAME_KEY = Comparator
+            .comparing((AccountDto account) -> Account.holderNameKey(account.accountHolderName()))
+            .thenComparingLong(AccountDto::id);
+
+    private AccountShards accountShards;
+    private ShardedAccountRepository shardedAccountRepository;
+    private TransferSaga transferSaga;
+    private AccountCache accountCache;
+    private ExecutorService shardQueries;
+
+    public ShardedAccountServiceImpl(AccountShards accountShards,
+                                     ShardedAccountRepository shardedAccountRepository,
+                                     TransferSaga transferSaga,
+                                     AccountCache accountCache) {
+        this.accountShards = accountShards;
+        this.shardedAccountRepository = shardedAccountRepository;
+        this.transferSaga = transferSaga;
+        this.accountCache = accountCache;
+        this.shardQueries = Executors.newFixedThreadPool(accountShards.count(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public AccountDto createAccount(AccountDto accountDto) {
+        return createAccounts(List.of(accountDto)).get(0);
+    }
+
+    // Accounts are dealt round-robin to the shards and inserted with one batch per shard.
+    @Override
+    public List<AccountDto> createAccounts(List<AccountDto> accountDtos) {
+        List<AccountDto> created = new ArrayList<>(accountDtos.size());
+        for (int from = 0; from < accountDtos.size(); from += IMPORT_CHUNK_SIZE) {
+            created.addAll(saveChunk(accountDtos.subList(from, Math.min(from + IMPORT_CHUNK_SIZE, accountDtos.size()))));
+        }
+        return created;
+    }
+
+    @Override
+    public long importAccounts(Iterator<AccountDto> accountDtos) {
+        long created = 0;
+        List<AccountDto> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        while (accountDtos.hasNext()) {
+            chunk.add(accountDtos.next());
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                created += saveChunk(chunk).size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created += saveChunk(chunk).size();
+        }
+        return created;
+    }
+
+    private List<AccountDto> saveChunk(List<AccountDto> chunk) {
+        Map<Shard, List<AccountDto>> byShard = new HashMap<>();
+        List<AccountDto> created = new ArrayList<>(chunk.size());
+        for (AccountDto accountDto : chunk) {
+            Shard shard = accountShards.forNewAccount();
+            AccountDto account = new AccountDto(
+                    accountShards.accountId(shard, shardedAccountRepository.nextLocalId(shard)),
+                    accountDto.accountHolderName(),
+                    accountDto.balance());
+            byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(account);
+            created.add(account);
+        }
+        byShard.forEach((shard, accounts) -> shard.transactionTemplate()
+                .executeWithoutResult(status -> shardedAccountRepository.insert(shard, accounts)));
+        created.forEach(account -> accountCache.put(new VersionedAccount(account, new AccountVersion(0, 0))));
+        return created;
+    }
+
+    @Override
+    public AccountDto getAccountById(Long id) {
+        return getVersionedAccount(id).account();
+    }
+
+    @Override
+    public VersionedAccount getVersionedAccount(Long id) {
+        return accountCache.get(id, key -> shardedAccountRepository.findVersionedById(accountShards.forAccount(key), key)
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist")));
+    }
+
+    @Override
+    public AccountVersion getAccountVersion(Long id) {
+        VersionedAccount cached = accountCache.getIfPresent(id);
+        if (cached != null) {
+            return cached.version();
+        }
+        return shardedAccountRepository.findVersionById(accountShards.forAccount(id), id)
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
+    }
+
+    private AccountDto loadAccount(Long id) {
+        return shardedAccountRepository.findById(accountShards.forAccount(id), id)
+                .orElseThrow(() -> new AccountNotFoundException("Account doesn't exist"));
+    }
+
+    @Override
+    public AccountDto addDeposit(Long id, long amount) {
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        Shard shard = accountShards.forAccount(id);
+        return shard.transactionTemplate().execute(status -> {
+            if (shardedAccountRepository.deposit(shard, id, amount) == 0) {
+                throw new AccountNotFoundException("Account doesn't exist");
+            }
+            accountCache.evictAfterCompletion(id);
+            return loadAccount(id);
+        });
+    }
+
+    // One transaction per shard; deposits to the same account are summed into one update.
+    @Override
+    public Map<Long, AccountDto> addDeposits(List<DepositRequest> deposits) {
+        Map<Shard, SortedMap<Long, Long>> totals = new HashMap<>();
+        for (DepositRequest deposit : deposits) {
+            totals.computeIfAbsent(accountShards.forAccount(deposit.accountId()), shard -> new TreeMap<>())
+                    .merge(deposit.accountId(), deposit.amount(), Money::add);
+        }
+        Map<Long, AccountDto> accounts = new HashMap<>();
+        totals.forEach((shard, shardTotals) -> shard.transactionTemplate().executeWithoutResult(status -> {
+            List<Long> credited = new ArrayList<>();
+            shardTotals.forEach((id, total) -> {
+                if (shardedAccountRepository.deposit(shard, id, total) == 1) {
+                    credited.add(id);
+                    accounts.put(id, loadAccount(id));
+                }
+            });
+            accountCache.evictAfterCompletion(credited);
+        }));
+        return accounts;
+    }
+
+    @Override
+    public AccountDto withdrawDeposit(Long id, long amount) {
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        Shard shard = accountShards.forAccount(id);
+        return shard.transactionTemplate().execute(status -> {
+            withdraw(shard, id, amount, "Account doesn't exist");
+            accountCache.evictAfterCompletion(id);
+            return loadAccount(id);
+        });
+    }
+
+    private void withdraw(Shard shard, Long id, long amount, String notFoundMessage) {
+        if (shardedAccountRepository.withdraw(shard, id, amount) == 0) {
+            if (!shardedAccountRepository.exists(shard, id)) {
+                throw new AccountNotFoundException(notFoundMessage);
+            }
+            throw new InsufficientFundsException("Insufficient money");
+        }
+    }
+
+    @Override
+    public List<AccountDto> getAllAccounts() {
+        return merge(scatter(shard -> shardedAccountRepository.findAll(shard)), BY_ID, Integer.MAX_VALUE);
+    }
+
+    // Every shard returns its first pageSize + 1 accounts after the cursor; the merged page takes the
+    // smallest ids of all of them.
+    @Override
+    public KeysetPage<AccountDto> getAccountsPage(Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long after = afterId == null ? 0L : afterId;
+        List<AccountDto> accounts = merge(scatter(shard -> shardedAccountRepository.findPage(shard, after, pageSize + 1)),
+                BY_ID, pageSize + 1);
+        boolean hasNext = accounts.size() > pageSize;
+        List<AccountDto> content = hasNext ? accounts.subList(0, pageSize) : accounts;
+        Long next = hasNext ? content.get(content.size() - 1).id() : null;
+        return new KeysetPage<>(content, next);
+    }
+
+    // Same scatter-gather as getAccountsPage, ordered by (holder name key, id) instead of id.
+    @Override
+    public AccountSearchPage searchByHolderName(String prefix, String afterName, Long afterId, int limit) {
+        if (prefix == null || prefix.isBlank()) {throw new AccountException("Search name should not be empty");}
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String pattern = AccountRepository.prefixPattern(Account.holderNameKey(prefix));
+        String afterKey = afterName == null ? "" : Account.holderNameKey(afterName);
+        long after = afterId == null ? Long.MIN_VALUE : afterId;
+        List<AccountDto> accounts = merge(scatter(shard -> shardedAccountRepository.searchByHolderNameKey(shard, pattern,
+                afterKey, after, pageSize + 1)), BY_HOLDER_NAME_KEY, pageSize + 1);
+        boolean hasNext = accounts.size() > pageSize;
+        List<AccountDto> content = hasNext ? accounts.subList(0, pageSize) : accounts;
+        AccountDto last = hasNext ? content.get(content.size() - 1) : null;
+        return new AccountSearchPage(content, last == null ? null : last.accountHolderName(), last == null ? null : last.id());
+    }
+
+    @Override
+    public void streamAllAccounts(Consumer<AccountDto> consumer) {
+        KeysetPage<AccountDto> page = getAccountsPage(null, MAX_PAGE_SIZE);
+        page.content().forEach(consumer);
+        while (page.next() != null) {
+            page = getAccountsPage(page.next(), MAX_PAGE_SIZE);
+            page.content().forEach(consumer);
+        }
+    }
+
+    // Pages through the merged shards from fromId on; bounds are inclusive.
+    @Override
+    public long exportAccountsCsv(Long fromId, Long toId, OutputStream outputStream) {
+        long last = toId == null ? Long.MAX_VALUE : toId;
+        AccountCsvWriter writer = new AccountCsvWriter(outputStream, AccountServiceImpl.EXPORT_BUFFER_SIZE);
+        writer.writeHeader();
+        Long after = fromId == null || fromId <= 0 ? null : fromId - 1;
+        KeysetPage<AccountDto> page;
+        do {
+            page = getAccountsPage(after, MAX_PAGE_SIZE);
+            for (AccountDto account : page.content()) {
+                if (account.id() > last) {
+                    writer.flush();
+                    return writer.getRowCount();
+                }
+                writer.writeRow(account.id(), account.accountHolderName(), account.balance());
+            }
+            after = page.next();
+        } while (after != null);
+        writer.flush();
+        return writer.getRowCount();
+    }
+
+    private List<List<AccountDto>> scatter(Function<Shard, List<AccountDto>> query) {
+        List<CompletableFuture<List<AccountDto>>> futures = accountShards.all().stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), shardQueries))
+                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    // k-way merge of shard results that are each sorted by order.
+    private static List<AccountDto> merge(List<List<AccountDto>> shardResults, Comparator<AccountDto> order, int limit) {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>((left, right) -> order.compare(left.current, right.current));
+        int total = 0;
+        for (List<AccountDto> result : shardResults) {
+            total += result.size();
+            Iterator<AccountDto> iterator = result.iterator();
+            if (iterator.hasNext()) {
+                cursors.add(new Cursor(iterator));
+            }
+        }
+        List<AccountDto> merged = new ArrayList<>(Math.min(total, limit));
+        while (!cursors.isEmpty() && merged.size() < limit) {
+            Cursor cursor = cursors.poll();
+            merged.add(cursor.current);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public List<AccountDto> transferMoneyTo(Long fromId, Long toId, long amount) {
+        if (Objects.equals(fromId, toId)) {throw new AccountException("Ids should be different");}
+        if (amount <= 0) {throw new AccountException("Amount should be positive");}
+        Shard shard = accountShards.forAccount(fromId);
+        if (shard.equals(accountShards.forAccount(toId))) {
+            transferWithinShard(shard, fromId, toId, amount);
+        } else {
+            transferSaga.transfer(fromId, toId, amount);
+        }
+        List<AccountDto> accounts = new ArrayList<>();
+        accounts.add(loadAccount(fromId));
+        accounts.add(loadAccount(toId));
+        return accounts;
+    }
+
+    private void transferWithinShard(Shard shard, Long fromId, Long toId, long amount) {
+        shard.transactionTemplate().executeWithoutResult(status -> {
+            // Rows are updated in ascending id order, so A->B and B->A cannot deadlock each other.
+            if (fromId < toId) {
+                withdraw(shard, fromId, amount, "Account from you want transfer money doesn't exist");
+                credit(shard, toId, amount);
+            } else {
+                credit(shard, toId, amount);
+                withdraw(shard, fromId, amount, "Account from you want transfer money doesn't exist");
+            }
+            accountCache.evictAfterCompletion(List.of(fromId, toId));
+        });
+    }
+
+    private void credit(Shard shard, Long toId, long amount) {
+        if (shardedAccountRepository.deposit(shard, toId, amount) == 0) {
+            throw new AccountNotFoundException("Account want you transfer money doesn't exist to");
+        }
+    }
+
+    // Transfers are applied one by one, so unlike the single-database batch a failure only skips its own transfer.
+    @Override
+    public List<TransferResult> transferBatch(List<TransferRequest> transfers) {
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            Long fromId = transfer.fromAccountId();
+            Long toId = transfer.toAccountId();
+            if (fromId == null || toId == null || fromId.equals(toId) || transfer.amount() <= 0) {
+                results.add(new TransferResult(i, fromId, toId, TransferResult.Status.INVALID,
+                        "Ids should be different and amount positive"));
+                continue;
+            }
+            try {
+                transferMoneyTo(fromId, toId, transfer.amount());
+                results.add(new TransferResult(i, fromId, toId, TransferResult.Status.COMPLETED, null));
+            } catch (InsufficientFundsException e) {
+                results.add(new TransferResult(i, fromId, toId, TransferResult.Status.INSUFFICIENT_FUNDS, e.getMessage()));
+            } catch (AccountNotFoundException e) {
+                results.add(new TransferResult(i, fromId, toId, TransferResult.Status.ACCOUNT_NOT_FOUND, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public AccountAggregatesDto getAggregates() {
+        throw new OperationNotAvailableException("Aggregates are not available for sharded accounts");
+    }
+
+    @Override
+    public AccountDto enableHotMode(Long id, int slots) {
+        throw new OperationNotAvailableException("Hot mode is not available for sharded accounts");
+    }
+
+    @Override
+    public AccountDto disableHotMode(Long id) {
+        throw new OperationNotAvailableException("Hot mode is not available for sharded accounts");
+    }
+
+    @Override
+    public void deleteAccount(Long id) {
+        if (shardedAccountRepository.delete(accountShards.forAccount(id), id) == 0) {
+            throw new AccountNotFoundException("Account doesn't exist");
+        }
+        accountCache.evict(id);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shardQueries.shutdown();
+        shardQueries.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static final class Cursor {
+
+        private final Iterator<AccountDto> iterator;
+        private AccountDto current;
+
+        Cursor(Iterator<AccountDto> iterator) {
+            this.iterator = iterator;
+            this.current = iterator.next();
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferStatusDto;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.TransferQueueFullException;
+import com.sergeymars.banking_app.service.AccountService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs submitted transfers in the background. Every transfer goes to the worker that owns its source
+// account (hash of the id), so debits of one account never compete for its row lock and are applied in
+// submission order, while transfers from different accounts run in parallel. Credits can still arrive from
+// any worker; AccountService.transferMoneyTo keeps those correct with its row locks.
+//
+// Each worker has a bounded queue and a full queue rejects the transfer instead of growing. On shutdown
+// the workers stop taking new transfers and finish the queued ones.
+//
+// Queued and running transfers are kept in a plain map, bounded by partitions times queue capacity, so
+// they are never evicted while a caller may still ask for them. A finished transfer moves to the status
+// cache, which bounds how many finished ones are remembered and for how long.
+@Component
+public class TransferDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferDispatcher.class);
+
+    private final AccountService accountService;
+    private final ThreadPoolExecutor[] workers;
+    private final Duration shutdownTimeout;
+    private final ConcurrentMap<String, SubmittedTransfer> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, SubmittedTransfer> transfers;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public TransferDispatcher(AccountService accountService,
+                              @Value("${banking.transfers.async.partitions:0}") int partitions,
+                              @Value("${banking.transfers.async.queue-capacity:1000}") int queueCapacity,
+                              @Value("${banking.transfers.async.status-ttl:10m}") Duration statusTtl,
+                              @Value("${banking.transfers.async.status-cache-size:100000}") long statusCacheSize,
+                              @Value("${banking.transfers.async.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        if (partitions < 0 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Partitions must not be negative and queue capacity must be positive");
+        }
+        this.accountService = accountService;
+        this.shutdownTimeout = shutdownTimeout;
+        this.workers = new ThreadPoolExecutor[partitions == 0 ? Runtime.getRuntime().availableProcessors() : partitions];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = newWorker(i, queueCapacity);
+        }
+        // The size bound keeps a burst of finished transfers from holding every status in memory for the full TTL.
+        this.transfers = Caffeine.newBuilder()
+                .expireAfterWrite(statusTtl)
+                .maximumSize(statusCacheSize)
+                .build();
+    }
+
+    private static ThreadPoolExecutor newWorker(int partition, int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "transfer-worker-" + partition);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public TransferStatusDto submit(TransferRequest transfer) {
+        Long fromId = transfer.fromAccountId();
+        Long toId = transfer.toAccountId();
+        if (fromId == null || toId == null || fromId.equals(toId) || transfer.amount() <= 0) {
+            throw new AccountException("Ids should be different and amount positive");
+        }
+        TransferStatusDto pending = new TransferStatusDto(UUID.randomUUID().toString(), fromId, toId,
+                transfer.amount(), TransferStatusDto.Status.PENDING, null, null);
+        SubmittedTransfer submitted = new SubmittedTransfer(pending, new CompletableFuture<>());
+        inFlight.put(pending.transferId(), submitted);
+        ThreadPoolExecutor worker = workers[partition(fromId)];
+        try {
+            worker.execute(() -> run(submitted));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(pending.transferId());
+            rejectedCount.incrementAndGet();
+            throw new TransferQueueFullException(worker.isShutdown()
+                    ? "Transfers are not accepted while shutting down"
+                    : "Too many transfers queued for account " + fromId + ", retry later");
+        }
+        return pending;
+    }
+
+    private int partition(Long accountId) {
+        return Math.floorMod(Long.hashCode(accountId), workers.length);
+    }
+
+    private void run(SubmittedTransfer submitted) {
+        TransferStatusDto pending = submitted.pending();
+        TransferStatusDto result;
+        try {
+            List<AccountDto> accounts = accountService.transferMoneyTo(
+                    pending.fromAccountId(), pending.toAccountId(), pending.amount());
+            result = withStatus(pending, TransferStatusDto.Status.COMPLETED, accounts, null);
+        } catch (AccountException e) {
+            result = withStatus(pending, TransferStatusDto.Status.FAILED, null, e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Transfer {} failed", pending.transferId(), e);
+            result = withStatus(pending, TransferStatusDto.Status.FAILED, null, "Transfer failed");
+        }
+        // Cached before it leaves the in-flight map, so a status request always finds it in one of the two.
+        transfers.put(pending.transferId(), submitted);
+        submitted.result().complete(result);
+        inFlight.remove(pending.transferId());
+    }
+
+    private static TransferStatusDto withStatus(TransferStatusDto pending, TransferStatusDto.Status status,
+                                                List<AccountDto> accounts, String message) {
+        return new TransferStatusDto(pending.transferId(), pending.fromAccountId(), pending.toAccountId(),
+                pending.amount(), status, accounts, message);
+    }
+
+    // Completes once the transfer is finished, or with its pending status when the wait runs out.
+    public Optional<CompletableFuture<TransferStatusDto>> awaitStatus(String transferId, Duration wait) {
+        SubmittedTransfer submitted = inFlight.get(transferId);
+        if (submitted == null) {
+            submitted = transfers.getIfPresent(transferId);
+        }
+        if (submitted == null) {
+            return Optional.empty();
+        }
+        if (submitted.result().isDone() || wait.isZero() || wait.isNegative()) {
+            return Optional.of(CompletableFuture.completedFuture(submitted.current()));
+        }
+        return Optional.of(submitted.result().copy()
+                .completeOnTimeout(submitted.pending(), wait.toNanos(), TimeUnit.NANOSECONDS));
+    }
+
+    public long getQueuedCount() {
+        long queued = 0;
+        for (ThreadPoolExecutor worker : workers) {
+            queued += worker.getQueue().size();
+        }
+        return queued;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    // Runs the pending evictions now rather than on the cache's next maintenance pass.
+    void cleanUp() {
+        transfers.cleanUp();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor worker : workers) {
+            worker.shutdown();
+        }
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        for (ThreadPoolExecutor worker : workers) {
+            if (!worker.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                log.warn("{} queued transfers were not finished before shutdown", worker.getQueue().size());
+            }
+        }
+    }
+
+    private record SubmittedTransfer(TransferStatusDto pending, CompletableFuture<TransferStatusDto> result) {
+
+        TransferStatusDto current() {
+            return result.getNow(pending);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.cache.AccountCache;
+import com.sergeymars.banking_app.config.AccountShards;
+import com.sergeymars.banking_app.config.AccountShards.Shard;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import com.sergeymars.banking_app.repository.ShardedAccountRepository;
+import com.sergeymars.banking_app.repository.ShardedAccountRepository.PendingSaga;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+
+// A transfer between accounts on different shards, in three local transactions:
+//   1. source shard: debit the source and log the saga as DEBITED, atomically;
+//   2. target shard: record the credit decision for the saga and, if the target exists, credit it;
+//   3. source shard: mark the saga COMPLETED, or COMPENSATED and refund the source if the credit was refused.
+// The credit decision row has the saga id as its primary key, so step 2 takes effect once however often
+// it runs, and a refused credit can never be applied later. If the process dies between the steps, the
+// recovery job finds DEBITED sagas that stopped moving and runs steps 2 and 3 again.
+@Component
+@Profile("sharded")
+public class TransferSaga {
+
+    static final String DEBITED = "DEBITED";
+    static final String COMPLETED = "COMPLETED";
+    static final String COMPENSATED = "COMPENSATED";
+
+    private static final Logger log = LoggerFactory.getLogger(TransferSaga.class);
+
+    private final AccountShards accountShards;
+    private final ShardedAccountRepository shardedAccountRepository;
+    private final AccountCache accountCache;
+    private final Duration staleAfter;
+    private final int recoveryBatchSize;
+    private Clock clock = Clock.systemUTC();
+
+    public TransferSaga(AccountShards accountShards,
+                        ShardedAccountRepository shardedAccountRepository,
+                        AccountCache accountCache,
+                        @Value("${banking.sharding.saga.stale-after:PT30S}") Duration staleAfter,
+                        @Value("${banking.sharding.saga.recovery-batch-size:100}") int recoveryBatchSize) {
+        this.accountShards = accountShards;
+        this.shardedAccountRepository = shardedAccountRepository;
+        this.accountCache = accountCache;
+        this.staleAfter = staleAfter;
+        this.recoveryBatchSize = Math.max(1, recoveryBatchSize);
+    }
+
+    public void transfer(long fromId, long toId, long amount) {
+        if (!shardedAccountRepository.exists(accountShards.forAccount(toId), toId)) {
+            throw new AccountNotFoundException("Account want you transfer money doesn't exist to");
+        }
+        PendingSaga saga = new PendingSaga(UUID.randomUUID().toString(), fromId, toId, amount);
+        debit(saga);
+        if (!finish(saga, credit(saga))) {
+            throw new AccountNotFoundException("Account want you transfer money doesn't exist to");
+        }
+    }
+
+    private void debit(PendingSaga saga) {
+        Shard shard = accountShards.forAccount(saga.fromAccountId());
+        shard.transactionTemplate().executeWithoutResult(status -> {
+            if (shardedAccountRepository.withdraw(shard, saga.fromAccountId(), saga.amount()) == 0) {
+                if (!shardedAccountRepository.exists(shard, saga.fromAccountId())) {
+                    throw new AccountNotFoundException("Account from you want transfer money doesn't exist");
+                }
+                throw new InsufficientFundsException("Insufficient money");
+            }
+            shardedAccountRepository.insertSaga(shard, saga, DEBITED, clock.instant());
+            accountCache.evictAfterCompletion(saga.fromAccountId());
+        });
+    }
+
+    // Returns whether the target was credited, by this call or by an earlier attempt.
+    private boolean credit(PendingSaga saga) {
+        Shard shard = accountShards.forAccount(saga.toAccountId());
+        Boolean credited = shard.transactionTemplate().execute(status -> {
+            if (!shardedAccountRepository.insertCreditDecision(shard, saga.sagaId(), true)) {
+                status.setRollbackOnly();
+                return null;
+            }
+            if (shardedAccountRepository.deposit(shard, saga.toAccountId(), saga.amount()) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            accountCache.evictAfterCompletion(saga.toAccountId());
+            return true;
+        });
+        if (Boolean.TRUE.equals(credited)) {
+            return true;
+        }
+        // The target is gone: refuse the credit for good before the source gets its money back.
+        if (credited != null && shardedAccountRepository.insertCreditDecision(shard, saga.sagaId(), false)) {
+            return false;
+        }
+        return shardedAccountRepository.findCreditDecision(shard, saga.sagaId())
+                .orElseThrow(() -> new IllegalStateException("Credit decision of saga " + saga.sagaId() + " is missing"));
+    }
+
+    // Returns whether the transfer went through.
+    private boolean finish(PendingSaga saga, boolean credited) {
+        Shard shard = accountShards.forAccount(saga.fromAccountId());
+        if (credited) {
+            shardedAccountRepository.updateSagaState(shard, saga.sagaId(), DEBITED, COMPLETED, clock.instant());
+            return true;
+        }
+        shard.transactionTemplate().executeWithoutResult(status -> {
+            if (shardedAccountRepository.updateSagaState(shard, saga.sagaId(), DEBITED, COMPENSATED, clock.instant()) == 1) {
+                if (shardedAccountRepository.deposit(shard, saga.fromAccountId(), saga.amount()) == 0) {
+                    log.error("Saga {} cannot refund {} to deleted account {}", saga.sagaId(), saga.amount(), saga.fromAccountId());
+                }
+                accountCache.evictAfterCompletion(saga.fromAccountId());
+            }
+        });
+        return false;
+    }
+
+    // In-flight sagas are younger than staleAfter; running an old one again is harmless because every step
+    // is idempotent.
+    @Scheduled(fixedDelayString = "${banking.sharding.saga.recovery-delay:PT30S}")
+    public int recover() {
+        int recovered = 0;
+        for (Shard shard : accountShards.all()) {
+            for (PendingSaga saga : shardedAccountRepository.findSagas(shard, DEBITED,
+                    clock.instant().minus(staleAfter), recoveryBatchSize)) {
+                try {
+                    boolean completed = finish(saga, credit(saga));
+                    log.info("Recovered saga {} as {}", saga.sagaId(), completed ? COMPLETED : COMPENSATED);
+                    recovered++;
+                } catch (RuntimeException e) {
+                    log.warn("Saga {} could not be recovered yet", saga.sagaId(), e);
+                }
+            }
+        }
+        return recovered;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+}
@@ -0,0 +1,55 @@
+-- Run by spring.sql.init after Hibernate has updated the schema. Statements end with @@ so the PL/pgSQL
+-- blocks can keep their semicolons.
+
+-- Hibernate cannot declare operator classes. Under a collation other than C, LIKE 'abc%' only uses an index
+-- built with text_pattern_ops.
+create index if not exists idx_accounts_holder_name_pattern on accounts (holder_name_key text_pattern_ops, id)
+@@
+
+-- Money used to live in double precision columns of major units, declared not null. ddl-auto adds the
+-- *_minor columns next to them defaulting to 0, so each old column is copied over in cents (see Money) and
+-- dropped, which also stops its not null from failing inserts. The lock keeps nodes starting together from
+-- copying twice; once the old columns are gone this does nothing.
+do $$
+declare
+    money record;
+begin
+    perform pg_advisory_xact_lock(hashtext('banking_app.money_minor_columns'));
+    for money in
+        select m.table_name, m.old_column, m.minor_column
+        from (values ('accounts', 'balance', 'balance_minor'),
+                     ('account_balance_slots', 'balance', 'balance_minor'),
+                     ('balance_snapshots', 'balance', 'balance_minor'),
+                     ('ledger_entries', 'amount', 'amount_minor')) as m (table_name, old_column, minor_column)
+        where exists (select 1 from information_schema.columns c
+                      where c.table_schema = current_schema()
+                        and c.table_name = m.table_name
+                        and c.column_name = m.old_column)
+    loop
+        execute format('update %I set %I = round(%I * 100)', money.table_name, money.minor_column, money.old_column);
+        execute format('alter table %I drop column %I', money.table_name, money.old_column);
+    end loop;
+end
+$$
+@@
+
+-- Account ids used to come from an identity column; accounts_seq starts at 1 on a database that has rows.
+-- Hibernate's pooled optimizer hands out the 50 ids up to each value it draws, so the sequence is moved
+-- past max(id) + 50. Only ever forward: a lower value may already be drawn by a running node.
+do $$
+declare
+    max_id bigint;
+    drawn bigint;
+begin
+    if to_regclass('accounts_seq') is null then
+        return;
+    end if;
+    perform pg_advisory_xact_lock(hashtext('banking_app.accounts_seq'));
+    select coalesce(max(id), 0) into max_id from accounts;
+    select last_value into drawn from accounts_seq;
+    if drawn < max_id + 50 then
+        perform setval('accounts_seq', max_id + 50);
+    end if;
+end
+$$
+@@
@@ -0,0 +1,3 @@
+-- Run after sharded-schema.sql on PostgreSQL shards. Under a collation other than C, LIKE 'abc%' only uses
+-- an index built with text_pattern_ops.
+create index if not exists idx_accounts_holder_name_pattern on accounts (holder_name_key text_pattern_ops, id);
@@ -0,0 +1,32 @@
+create sequence if not exists accounts_local_seq start with 1;
+
+create table if not exists accounts (
+    id bigint primary key,
+    account_holder_name varchar(255),
+    balance_minor bigint default 0 not null
+);
+
+alter table accounts add column if not exists holder_name_key varchar(255);
+
+alter table accounts add column if not exists row_version bigint default 0 not null;
+
+-- Keyset order of the prefix search. Shard results are merged in Java string order, so on PostgreSQL the
+-- shard databases need the C collation for the pages to line up; the LIKE itself is served by the
+-- text_pattern_ops index in sharded-schema-postgresql.sql whatever the collation.
+create index if not exists idx_accounts_holder_name_key on accounts (holder_name_key, id);
+
+create table if not exists transfer_sagas (
+    saga_id varchar(36) primary key,
+    from_account_id bigint not null,
+    to_account_id bigint not null,
+    amount_minor bigint not null,
+    state varchar(16) not null,
+    updated_at timestamp not null
+);
+
+create index if not exists idx_transfer_sagas_state_updated_at on transfer_sagas (state, updated_at);
+
+create table if not exists transfer_saga_credits (
+    saga_id varchar(36) primary key,
+    applied boolean not null
+);
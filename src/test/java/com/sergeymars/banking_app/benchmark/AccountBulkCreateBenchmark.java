@@ -0,0 +1,53 @@
+package com.sergeymars.banking_app.benchmark;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.service.AccountService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Run with: mvn test -Pbenchmark -Dtest=AccountBulkCreateBenchmark
+@Tag("benchmark")
+@SpringBootTest
+class AccountBulkCreateBenchmark {
+
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    void compareSingleInsertsWithBatchedBulkCreate() {
+        // Warm up both paths so JIT and connection pool state do not skew the first measurement.
+        singleInserts(1_000);
+        bulkCreate(1_000);
+
+        double single = singleInserts(ROWS);
+        double bulk = bulkCreate(ROWS);
+
+        System.out.printf("createAccount per row : %,.0f rows/s%n", single);
+        System.out.printf("createAccounts (bulk) : %,.0f rows/s (x%.1f)%n", bulk, bulk / single);
+    }
+
+    private double singleInserts(int rows) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            accountService.createAccount(new AccountDto(null, "Single " + i, 10_000));
+        }
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private double bulkCreate(int rows) {
+        List<AccountDto> accountDtos = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            accountDtos.add(new AccountDto(null, "Bulk " + i, 10_000));
+        }
+        long start = System.nanoTime();
+        accountService.createAccounts(accountDtos);
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+}
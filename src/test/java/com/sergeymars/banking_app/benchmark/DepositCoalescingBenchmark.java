@@ -0,0 +1,80 @@
+package com.sergeymars.banking_app.benchmark;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.service.AccountService;
+import com.sergeymars.banking_app.service.impl.DepositCoalescer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Run with: mvn test -Pbenchmark -Dtest=DepositCoalescingBenchmark
+@Tag("benchmark")
+@SpringBootTest
+class DepositCoalescingBenchmark {
+
+    private static final int ACCOUNTS = 4;
+    private static final int THREADS = 32;
+    private static final int DEPOSITS_PER_THREAD = 300;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    void compareDirectDepositsWithCoalescedDeposits() throws Exception {
+        DepositCoalescer direct = new DepositCoalescer(accountService, false, Duration.ZERO, 1);
+        DepositCoalescer coalescing = new DepositCoalescer(accountService, true, Duration.ofMillis(5), 500);
+        try {
+            deposits(direct);
+            deposits(coalescing);
+
+            double directThroughput = deposits(direct);
+            long batchesBefore = coalescing.getBatchCount();
+            double coalescedThroughput = deposits(coalescing);
+            long batches = coalescing.getBatchCount() - batchesBefore;
+
+            System.out.printf("direct    : %,.0f deposits/s, %,d transactions%n",
+                    directThroughput, THREADS * DEPOSITS_PER_THREAD);
+            System.out.printf("coalesced : %,.0f deposits/s, %,d transactions (x%.1f)%n",
+                    coalescedThroughput, batches, coalescedThroughput / directThroughput);
+        } finally {
+            coalescing.shutdown();
+        }
+    }
+
+    private double deposits(DepositCoalescer depositCoalescer) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ids.add(accountService.createAccount(new AccountDto(null, "Collector " + i, 0)).id());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < DEPOSITS_PER_THREAD; i++) {
+                        Long id = ids.get(ThreadLocalRandom.current().nextInt(ACCOUNTS));
+                        CompletableFuture<AccountDto> result = depositCoalescer.addDeposit(id, 100);
+                        result.join();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return THREADS * DEPOSITS_PER_THREAD / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.sergeymars.banking_app.benchmark;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.service.AccountService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Run with: mvn test -Pbenchmark -Dtest=HotAccountCreditBenchmark
+// H2 serialises commits on its own store, so slot counts barely change the numbers there. Point it at
+// PostgreSQL with -Dspring.datasource.url=... to see row lock contention on the accounts row.
+@Tag("benchmark")
+@SpringBootTest
+class HotAccountCreditBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int CREDITS_PER_THREAD = 500;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    void compareCreditThroughputBySlotCount() throws Exception {
+        credits(0);
+
+        for (int slots : new int[]{0, 1, 4, 16, 64}) {
+            System.out.printf("slots = %-3d : %,.0f credits/s%n", slots, credits(slots));
+        }
+    }
+
+    private double credits(int slots) throws Exception {
+        Long id = accountService.createAccount(new AccountDto(null, "Merchant " + slots, 0)).id();
+        if (slots > 0) {
+            accountService.enableHotMode(id, slots);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < CREDITS_PER_THREAD; i++) {
+                        accountService.addDeposit(id, 100);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double throughput = THREADS * CREDITS_PER_THREAD / ((System.nanoTime() - start) / 1e9);
+            if (accountService.getAccountById(id).balance() != THREADS * CREDITS_PER_THREAD) {
+                throw new IllegalStateException("Lost credits on account " + id);
+            }
+            return throughput;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
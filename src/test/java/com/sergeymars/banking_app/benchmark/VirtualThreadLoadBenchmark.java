@@ -0,0 +1,139 @@
+package com.sergeymars.banking_app.benchmark;
+
+import com.sergeymars.banking_app.BankingAppApplication;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.service.AccountService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Run with: mvn test -Pbenchmark -Dtest=VirtualThreadLoadBenchmark [-Dbenchmark.clients=1000,5000,10000]
+// Every client keeps one request in flight: 80% cached account reads, 20% deposits that need a pooled
+// connection. With platform threads the deposits waiting for a connection hold Tomcat workers, so reads
+// queue behind them; with virtual threads they only hold a cheap virtual thread.
+// Client and server share one JVM, so allow about two file descriptors per client (ulimit -n).
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark {
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int REQUESTS_PER_CLIENT = 5;
+
+    @Test
+    void platformThreads() throws Exception {
+        run(false);
+    }
+
+    @Test
+    void virtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21");
+        run(true);
+    }
+
+    private void run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BankingAppApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.max-connections=20000",
+                        "server.tomcat.accept-count=10000",
+                        "logging.level.root=WARN")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<AccountDto> accounts = new ArrayList<>(ACCOUNTS);
+            for (int i = 0; i < ACCOUNTS; i++) {
+                accounts.add(new AccountDto(null, "Holder " + i, 100_000));
+            }
+            List<Long> ids = context.getBean(AccountService.class).createAccounts(accounts)
+                    .stream().map(AccountDto::id).toList();
+
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+            load(client, port, ids, 200);
+            for (String clients : System.getProperty("benchmark.clients", "1000,5000,10000").split(",")) {
+                Result result = load(client, port, ids, Integer.parseInt(clients.trim()));
+                System.out.printf("%s threads, %,6d clients : %,8.0f req/s, read p50 %5d ms p99 %5d ms,"
+                                + " deposit p50 %5d ms p99 %5d ms, failed %d%n",
+                        virtualThreads ? "virtual " : "platform", Integer.parseInt(clients.trim()),
+                        result.throughput(), result.readP50(), result.readP99(),
+                        result.depositP50(), result.depositP99(), result.failed());
+            }
+        }
+    }
+
+    private Result load(HttpClient client, int port, List<Long> ids, int clients) throws InterruptedException {
+        int total = clients * REQUESTS_PER_CLIENT;
+        long[] readMillis = new long[total];
+        long[] depositMillis = new long[total];
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger deposits = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(clients);
+        CountDownLatch done = new CountDownLatch(total);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            inFlight.acquire();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Long id = ids.get(random.nextInt(ids.size()));
+            boolean deposit = random.nextInt(5) == 0;
+            HttpRequest request = deposit
+                    ? HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/accounts/" + id + "/add_deposit"))
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofString("{\"amount\": 1.0}"))
+                            .build()
+                    : HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/accounts/" + id)).GET().build();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long millis = (System.nanoTime() - sent) / 1_000_000;
+                if (error != null || response.statusCode() != 200) {
+                    failed.incrementAndGet();
+                } else if (deposit) {
+                    depositMillis[deposits.getAndIncrement()] = millis;
+                } else {
+                    readMillis[reads.getAndIncrement()] = millis;
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] readSorted = Arrays.copyOf(readMillis, reads.get());
+        long[] depositSorted = Arrays.copyOf(depositMillis, deposits.get());
+        Arrays.sort(readSorted);
+        Arrays.sort(depositSorted);
+        return new Result(total / seconds,
+                percentile(readSorted, 0.50), percentile(readSorted, 0.99),
+                percentile(depositSorted, 0.50), percentile(depositSorted, 0.99),
+                failed.get());
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+    private record Result(double throughput, long readP50, long readP99, long depositP50, long depositP99, int failed) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.sergeymars.banking_app.cache;
+
+import com.sergeymars.banking_app.dto.VersionedAccount;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountCacheTest {
+
+    private final AccountCache accountCache = new AccountCache(100, Duration.ofMinutes(1));
+
+    @Test
+    void get_ShouldLoadOnceAndCountHitsAndMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        accountCache.get(1L, id -> load(loads, id, 10_000));
+        VersionedAccount result = accountCache.get(1L, id -> load(loads, id, 20_000));
+
+        assertEquals(10_000, result.account().balance());
+        assertEquals(1, loads.get());
+        assertEquals(1, accountCache.getHitCount());
+        assertEquals(1, accountCache.getMissCount());
+    }
+
+    @Test
+    void get_EvictedWhileLoading_ShouldNotCacheStaleValue() {
+        AtomicInteger loads = new AtomicInteger();
+
+        VersionedAccount stale = accountCache.get(1L, id -> {
+            VersionedAccount loaded = load(loads, id, 10_000);
+            accountCache.evict(id);
+            return loaded;
+        });
+        VersionedAccount fresh = accountCache.get(1L, id -> load(loads, id, 15_000));
+
+        assertEquals(10_000, stale.account().balance());
+        assertEquals(15_000, fresh.account().balance());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictAfterCompletion_ShouldWaitForTransactionToFinish() {
+        accountCache.put(new VersionedAccount(1L, "John Doe", 10_000, 0, 0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            accountCache.evictAfterCompletion(1L);
+            assertEquals(1, accountCache.size());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        accountCache.cleanUp();
+        assertEquals(0, accountCache.size());
+    }
+
+    @Test
+    void putAfterCommit_ShouldOnlyCacheCommittedAccounts() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            accountCache.putAfterCommit(new VersionedAccount(1L, "Rolled back", 10_000, 0, 0));
+            accountCache.putAfterCommit(new VersionedAccount(2L, "Committed", 10_000, 0, 0));
+            assertEquals(0, accountCache.size());
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.get(1).afterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("Committed", accountCache.get(2L, id -> load(loads, id, 0)).account().accountHolderName());
+        assertEquals(0, loads.get());
+        accountCache.get(1L, id -> load(loads, id, 0));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void put_BeyondMaximumSize_ShouldEvict() {
+        AccountCache small = new AccountCache(10, Duration.ofMinutes(1));
+        for (long id = 0; id < 100; id++) {
+            small.put(new VersionedAccount(id, "Holder " + id, 100, 0, 0));
+        }
+
+        small.cleanUp();
+
+        assertTrue(small.size() <= 10);
+        assertTrue(small.getEvictionCount() >= 90);
+    }
+
+    private static VersionedAccount load(AtomicInteger loads, Long id, long balance) {
+        loads.incrementAndGet();
+        return new VersionedAccount(id, "John Doe", balance, loads.get(), 0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.sergeymars.banking_app.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void getConnection_OutsideTransaction_ShouldUsePrimary() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, new ReplicaRoutingDataSource(primary, replica).getConnection());
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void getConnection_InReadOnlyTransaction_ShouldUseReplica() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        inTransaction(true);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica);
+
+        assertSame(replicaConnection, routing.getConnection());
+        assertEquals(1, routing.getReplicaConnectionCount());
+    }
+
+    @Test
+    void getConnection_WhenReplicaIsDown_ShouldFallBackToPrimary() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        inTransaction(true);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica);
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(1, routing.getFallbackCount());
+    }
+
+    @Test
+    void getConnection_AfterWriteWithReadYourWrites_ShouldUsePrimary() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica);
+        ReadYourWrites.enable();
+
+        inTransaction(false);
+        routing.getConnection();
+        inTransaction(true);
+
+        assertSame(primaryConnection, routing.getConnection());
+        verifyNoInteractions(replica);
+    }
+
+    private static void inTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+}
@@ -0,0 +1,130 @@
+package com.sergeymars.banking_app.config;
+
+import com.sergeymars.banking_app.cache.AccountCache;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.service.AccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two embedded H2 databases stand in for a primary and its replica. Replication is faked by copying the
+// schema once and writing replica rows by hand, so every read shows which database answered it.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "banking.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "banking.datasource.replica.username=sa",
+        "banking.datasource.replica.password=password"
+})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+    private static final long REPLICA_ACCOUNT_ID = 1_000_000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "password"));
+        Integer tables = replica.queryForObject(
+                "select count(*) from information_schema.tables where table_name = 'ACCOUNTS'", Integer.class);
+        if (tables == 0) {
+            for (String statement : primary.queryForList("script nodata", String.class)) {
+                if (!statement.startsWith("CREATE USER")) {
+                    replica.execute(statement);
+                }
+            }
+        }
+        replica.update("delete from accounts");
+        replica.update("insert into accounts (id, account_holder_name, balance_minor, balance_slots) values (?, ?, ?, 0)",
+                REPLICA_ACCOUNT_ID, "Replica Holder", 5_000);
+        accountCache.evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void readOnlyQueries_ShouldReadReplica() {
+        Long primaryId = accountService.createAccount(new AccountDto(null, "Primary Holder", 10_000)).id();
+        accountCache.evictAll();
+
+        List<AccountDto> accounts = accountService.getAllAccounts();
+
+        assertEquals(List.of(new AccountDto(REPLICA_ACCOUNT_ID, "Replica Holder", 5_000)), accounts);
+        assertEquals(1, primary.queryForObject("select count(*) from accounts where id = ?", Integer.class, primaryId));
+    }
+
+    @Test
+    void cacheMisses_ShouldLoadFromPrimary() {
+        Long id = accountService.createAccount(new AccountDto(null, "Primary Holder", 10_000)).id();
+        accountCache.evictAll();
+
+        assertEquals("Primary Holder", accountService.getAccountById(id).accountHolderName());
+        assertThrows(AccountNotFoundException.class, () -> accountService.getAccountById(REPLICA_ACCOUNT_ID));
+        assertEquals(1, accountCache.size());
+    }
+
+    @Test
+    void readAfterDeposit_OnLaggingReplica_ShouldReturnFreshBalance() {
+        Long id = accountService.createAccount(new AccountDto(null, "Primary Holder", 10_000)).id();
+        // The replica has the account but not the deposit below.
+        replica.update("insert into accounts (id, account_holder_name, balance_minor, balance_slots) values (?, ?, ?, 0)",
+                id, "Primary Holder", 10_000);
+        assertEquals(10_000, accountService.getAccountById(id).balance());
+
+        accountService.addDeposit(id, 2_500);
+
+        assertEquals(12_500, accountService.getAccountById(id).balance());
+        assertEquals(12_500, accountCache.getIfPresent(id).account().balance());
+        assertEquals(accountService.getVersionedAccount(id).version(), accountService.getAccountVersion(id));
+        accountCache.evictAll();
+        assertEquals(primary.queryForObject("select row_version from accounts where id = ?", Long.class, id),
+                accountService.getAccountVersion(id).rowVersion());
+    }
+
+    @Test
+    void writes_ShouldGoToPrimary() {
+        Long id = accountService.createAccount(new AccountDto(null, "Primary Holder", 10_000)).id();
+
+        AccountDto accountDto = accountService.addDeposit(id, 2_500);
+
+        assertEquals(12_500, accountDto.balance());
+        assertEquals(12_500, primary.queryForObject("select balance_minor from accounts where id = ?", Long.class, id));
+        assertEquals(0, replica.queryForObject("select count(*) from accounts where id = ?", Integer.class, id));
+    }
+
+    @Test
+    void readYourWrites_ShouldPinReadsToPrimaryAfterWrite() {
+        ReadYourWrites.enable();
+        assertEquals(REPLICA_ACCOUNT_ID, accountService.getAccountsPage(null, 10).content().get(0).id());
+
+        Long id = accountService.createAccount(new AccountDto(null, "Primary Holder", 10_000)).id();
+
+        assertTrue(accountService.getAccountsPage(null, 10).content().stream().anyMatch(account -> account.id().equals(id)));
+    }
+}
@@ -0,0 +1,29 @@
+package com.sergeymars.banking_app.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardingConfigTest {
+
+    @Test
+    void schemaScripts_PostgresShard_ShouldAddPatternOpsIndex() throws Exception {
+        List<Resource> scripts = ShardingConfig.schemaScripts("jdbc:postgresql://localhost:5432/shard0");
+
+        assertEquals(List.of("sharded-schema.sql", "sharded-schema-postgresql.sql"),
+                scripts.stream().map(Resource::getFilename).toList());
+        assertTrue(scripts.get(1).getContentAsString(StandardCharsets.UTF_8)
+                .contains("(holder_name_key text_pattern_ops, id)"));
+    }
+
+    @Test
+    void schemaScripts_H2Shard_ShouldOnlyRunPortableSchema() {
+        List<Resource> scripts = ShardingConfig.schemaScripts("jdbc:h2:mem:shard0");
+
+        assertEquals(List.of("sharded-schema.sql"), scripts.stream().map(Resource::getFilename).toList());
+    }
+}
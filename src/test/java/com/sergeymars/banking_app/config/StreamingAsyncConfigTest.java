@@ -0,0 +1,65 @@
+package com.sergeymars.banking_app.config;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+// The async request timeout is far shorter than the streams below, which only finish if the streaming
+// endpoints are exempt from it.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.mvc.async.request-timeout=200ms")
+class StreamingAsyncConfigTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @MockBean
+    private AccountService accountService;
+
+    @Test
+    void streamAllAccounts_ShouldOutliveAsyncRequestTimeout() {
+        doAnswer(invocation -> {
+            Consumer<AccountDto> consumer = invocation.getArgument(0);
+            consumer.accept(new AccountDto(1L, "Holder 1", 1_000));
+            Thread.sleep(450);
+            consumer.accept(new AccountDto(2L, "Holder 2", 1_000));
+            consumer.accept(new AccountDto(3L, "Holder 3", 1_000));
+            return null;
+        }).when(accountService).streamAllAccounts(any());
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/accounts/stream", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody().lines().count());
+    }
+
+    @Test
+    void exportAccounts_ShouldOutliveAsyncRequestTimeout() {
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(2);
+            outputStream.write("id,account_holder_name,balance\n".getBytes(StandardCharsets.UTF_8));
+            Thread.sleep(450);
+            outputStream.write("1,Holder,10.00\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(accountService).exportAccountsCsv(any(), any(), any());
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/accounts/export", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("id,account_holder_name,balance\n1,Holder,10.00\n", response.getBody());
+    }
+}
@@ -1,26 +1,62 @@
 package com.sergeymars.banking_app.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sergeymars.banking_app.dto.AccountAggregatesDto;
 import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountSearchPage;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.LedgerEntryDto;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferResult;
+import com.sergeymars.banking_app.dto.TransferStatusDto;
+import com.sergeymars.banking_app.dto.VersionedAccount;
+import com.sergeymars.banking_app.entity.LedgerEntryType;
+import com.sergeymars.banking_app.exception.GlobalExceptionHandler;
+import com.sergeymars.banking_app.exception.IdempotencyKeyInProgressException;
 import com.sergeymars.banking_app.service.AccountService;
+import com.sergeymars.banking_app.service.LedgerService;
+import com.sergeymars.banking_app.service.impl.AdmissionControl;
+import com.sergeymars.banking_app.service.impl.DepositCoalescer;
+import com.sergeymars.banking_app.service.impl.IdempotencyStore;
+import com.sergeymars.banking_app.service.impl.TransferDispatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 @ExtendWith(MockitoExtension.class)
 public class AccountControllerTest {
@@ -28,19 +64,36 @@ public class AccountControllerTest {
     @Mock
     private AccountService accountService;
 
-    @InjectMocks
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private DepositCoalescer depositCoalescer;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private TransferDispatcher transferDispatcher;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     private AccountController accountController;
 
     private MockMvc mockMvc;
 
     @BeforeEach
     void setUp() {
+        accountController = new AccountController(accountService, ledgerService, objectMapper, depositCoalescer,
+                idempotencyStore, transferDispatcher, new AdmissionControl(1000, 1000, 1000, 1000, 64, 1000),
+                Duration.ofSeconds(30));
         mockMvc = MockMvcBuilders.standaloneSetup(accountController).build();
     }
 
     @Test
     void testAddAccount() throws Exception {
-        AccountDto accountDto = new AccountDto(1L, "John Doe", 1000.0);
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 100_000);
 
         when(accountService.createAccount(any(AccountDto.class))).thenReturn(accountDto);
 
@@ -53,17 +106,93 @@ public class AccountControllerTest {
                 .andExpect(jsonPath("$.balance").value(1000.0));
     }
 
+    @Test
+    void testAddAccounts() throws Exception {
+        List<AccountDto> accounts = Arrays.asList(
+                new AccountDto(1L, "John Doe", 100_000),
+                new AccountDto(2L, "Jane Smith", 150_000));
+
+        when(accountService.createAccounts(anyList())).thenReturn(accounts);
+
+        mockMvc.perform(post("/api/accounts/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"accountHolderName\": \"John Doe\", \"balance\": 1000.0},"
+                                + "{\"accountHolderName\": \"Jane Smith\", \"balance\": 1500.0}]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+    }
+
+    @Test
+    void testImportAccounts() throws Exception {
+        when(accountService.importAccounts(any())).thenAnswer(invocation -> {
+            java.util.Iterator<AccountDto> accountDtos = invocation.getArgument(0);
+            long count = 0;
+            while (accountDtos.hasNext()) {
+                accountDtos.next();
+                count++;
+            }
+            return count;
+        });
+
+        mockMvc.perform(post("/api/accounts/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"accountHolderName\": \"John Doe\", \"balance\": 1000.0}\n"
+                                + "{\"accountHolderName\": \"Jane Smith\", \"balance\": 1500.0}\n"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(2));
+    }
+
     @Test
     void testGetAccountById() throws Exception {
-        AccountDto accountDto = new AccountDto(1L, "John Doe", 1000.0);
+        VersionedAccount account = new VersionedAccount(1L, "John Doe", 100_000, 3, 0);
 
-        when(accountService.getAccountById(anyLong())).thenReturn(accountDto);
+        when(accountService.getVersionedAccount(anyLong())).thenReturn(account);
 
         mockMvc.perform(get("/api/accounts/{id}", 1L))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.accountHolderName").value("John Doe"))
                 .andExpect(jsonPath("$.balance").value(1000.0));
+        verify(accountService, never()).getAccountVersion(anyLong());
+    }
+
+    @Test
+    void testGetAccountByIdNotModified() throws Exception {
+        when(accountService.getAccountVersion(1L)).thenReturn(new AccountVersion(3, 0));
+
+        mockMvc.perform(get("/api/accounts/{id}", 1L).header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+        verify(accountService, never()).getVersionedAccount(anyLong());
+    }
+
+    @Test
+    void testGetAccountByIdChangedSinceETag() throws Exception {
+        when(accountService.getAccountVersion(1L)).thenReturn(new AccountVersion(4, 2_500));
+        when(accountService.getVersionedAccount(1L)).thenReturn(new VersionedAccount(1L, "John Doe", 100_000, 4, 2_500));
+
+        mockMvc.perform(get("/api/accounts/{id}", 1L).header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4-2500\""))
+                .andExpect(jsonPath("$.balance").value(1025.0));
+    }
+
+    @Test
+    void testGetTransactions() throws Exception {
+        LedgerEntryDto entry = new LedgerEntryDto(41L, 1L, LedgerEntryType.DEPOSIT, 20_000, null,
+                Instant.parse("2024-01-01T00:00:00Z"));
+
+        when(ledgerService.getTransactions(1L, 42L, 1)).thenReturn(new KeysetPage<>(List.of(entry), 41L));
+
+        mockMvc.perform(get("/api/accounts/{id}/transactions", 1L).param("before", "42").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(41))
+                .andExpect(jsonPath("$.content[0].type").value("DEPOSIT"))
+                .andExpect(jsonPath("$.content[0].amount").value(200.0))
+                .andExpect(jsonPath("$.next").value(41));
     }
 
     @Test
@@ -76,34 +205,97 @@ public class AccountControllerTest {
 
     @Test
     void testAddDeposit() throws Exception {
-        AccountDto accountDto = new AccountDto(1L, "John Doe", 1200.0);
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 120_000);
 
-        when(accountService.addDeposit(anyLong(), any(Double.class))).thenReturn(accountDto);
+        when(depositCoalescer.addDeposit(1L, 20_000)).thenReturn(CompletableFuture.completedFuture(accountDto));
 
-        mockMvc.perform(put("/api/accounts/{id}/add_deposit", 1L)
+        MvcResult result = mockMvc.perform(put("/api/accounts/{id}/add_deposit", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"amount\": 200.0}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.balance").value(1200.0));
     }
 
     @Test
     void testWithdrawDeposit() throws Exception {
-        AccountDto accountDto = new AccountDto(1L, "John Doe", 800.0);
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 80_000);
+
+        when(accountService.withdrawDeposit(anyLong(), anyLong())).thenReturn(accountDto);
+
+        MvcResult result = mockMvc.perform(put("/api/accounts/{id}/withdraw_deposit", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 200.0}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(800.0));
+    }
 
-        when(accountService.withdrawDeposit(anyLong(), any(Double.class))).thenReturn(accountDto);
+    @Test
+    void testWithdrawDepositWithNullAmount() throws Exception {
+        mockMvc = MockMvcBuilders.standaloneSetup(accountController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
 
         mockMvc.perform(put("/api/accounts/{id}/withdraw_deposit", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("MALFORMED_REQUEST"));
+
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void testWithdrawDepositWithIdempotencyKey() throws Exception {
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 80_000);
+
+        when(idempotencyStore.execute(eq("key-1"), eq("withdraw_deposit 1 20000"), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(accountDto));
+
+        MvcResult result = mockMvc.perform(put("/api/accounts/{id}/withdraw_deposit", 1L)
+                        .header("Idempotency-Key", "key-1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"amount\": 200.0}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.balance").value(800.0));
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void testWithdrawDepositWithIdempotencyKeyInProgress() throws Exception {
+        mockMvc = MockMvcBuilders.standaloneSetup(accountController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        when(idempotencyStore.execute(eq("key-1"), eq("withdraw_deposit 1 20000"), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IdempotencyKeyInProgressException("still running")));
+
+        MvcResult result = mockMvc.perform(put("/api/accounts/{id}/withdraw_deposit", 1L)
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 200.0}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errorCode").value("IDEMPOTENCY_KEY_IN_PROGRESS"));
     }
 
     @Test
     void testGetAllAccounts() throws Exception {
-        AccountDto account1 = new AccountDto(1L, "John Doe", 1000.0);
-        AccountDto account2 = new AccountDto(2L, "Jane Smith", 1500.0);
+        AccountDto account1 = new AccountDto(1L, "John Doe", 100_000);
+        AccountDto account2 = new AccountDto(2L, "Jane Smith", 150_000);
         List<AccountDto> accounts = Arrays.asList(account1, account2);
 
         when(accountService.getAllAccounts()).thenReturn(accounts);
@@ -116,19 +308,220 @@ public class AccountControllerTest {
                 .andExpect(jsonPath("$[1].accountHolderName").value("Jane Smith"));
     }
 
+    @Test
+    void testGetAccountsPage() throws Exception {
+        AccountDto account1 = new AccountDto(1L, "John Doe", 100_000);
+        AccountDto account2 = new AccountDto(2L, "Jane Smith", 150_000);
+
+        when(accountService.getAccountsPage(eq(0L), eq(2)))
+                .thenReturn(new KeysetPage<>(Arrays.asList(account1, account2), 2L));
+
+        mockMvc.perform(get("/api/accounts").param("after", "0").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[1].id").value(2))
+                .andExpect(jsonPath("$.next").value(2));
+    }
+
+    @Test
+    void testGetAggregates() throws Exception {
+        when(accountService.getAggregates()).thenReturn(new AccountAggregatesDto(2, 150_050, List.of(
+                new AccountAggregatesDto.BalanceBucket(0, 100_000L, 0),
+                new AccountAggregatesDto.BalanceBucket(100_000, null, 2)), Instant.parse("2024-01-01T00:00:00Z")));
+
+        mockMvc.perform(get("/api/accounts/aggregates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountCount").value(2))
+                .andExpect(jsonPath("$.totalBalance").value(1500.50))
+                .andExpect(jsonPath("$.balanceHistogram[1].lowerBound").value(1000.00))
+                .andExpect(jsonPath("$.balanceHistogram[1].upperBound").doesNotExist())
+                .andExpect(jsonPath("$.balanceHistogram[1].count").value(2));
+    }
+
+    @Test
+    void testSearchAccounts() throws Exception {
+        AccountDto account = new AccountDto(7L, "John Doe", 100_000);
+
+        when(accountService.searchByHolderName("jo", "Jane", 3L, 50))
+                .thenReturn(new AccountSearchPage(List.of(account), "John Doe", 7L));
+
+        mockMvc.perform(get("/api/accounts/search").param("name", "jo").param("afterName", "Jane").param("afterId", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(7))
+                .andExpect(jsonPath("$.nextName").value("John Doe"))
+                .andExpect(jsonPath("$.nextId").value(7));
+    }
+
+    @Test
+    void testStreamAllAccounts() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<AccountDto> consumer = invocation.getArgument(0);
+            consumer.accept(new AccountDto(1L, "John Doe", 100_000));
+            consumer.accept(new AccountDto(2L, "Jane Smith", 150_000));
+            return null;
+        }).when(accountService).streamAllAccounts(any());
+
+        MvcResult result = mockMvc.perform(get("/api/accounts/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"accountHolderName\":\"John Doe\",\"balance\":1000.00}\n"
+                                + "{\"id\":2,\"accountHolderName\":\"Jane Smith\",\"balance\":1500.00}"));
+    }
+
+    @Test
+    void testExportAccounts_Gzip() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(2);
+            outputStream.write("id,account_holder_name,balance\r\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        }).when(accountService).exportAccountsCsv(eq(5L), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/accounts/export").param("fromId", "5").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"accounts.csv.gz\""))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("id,account_holder_name,balance\r\n", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
     @Test
     void testTransferMoney() throws Exception {
-        AccountDto accountDto1 = new AccountDto(1L, "John Doe", 1000.0);
-        AccountDto accountDto2 = new AccountDto(2L, "Jane Smith", 1500.0);
+        AccountDto accountDto1 = new AccountDto(1L, "John Doe", 100_000);
+        AccountDto accountDto2 = new AccountDto(2L, "Jane Smith", 150_000);
         List<AccountDto> accounts = Arrays.asList(accountDto1, accountDto2);
 
-        when(accountService.transferMoneyTo(anyLong(), anyLong(), any(Double.class))).thenReturn(accounts);
+        when(accountService.transferMoneyTo(anyLong(), anyLong(), anyLong())).thenReturn(accounts);
 
-        mockMvc.perform(put("/api/accounts/{id}/transfer_money", 1L)
+        MvcResult result = mockMvc.perform(put("/api/accounts/{id}/transfer_money", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"toAccountId\": 2, \"amount\": 200.0}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].balance").value(1000.0))
                 .andExpect(jsonPath("$[1].balance").value(1500.0));
     }
+
+    @Test
+    void testEnableHotMode() throws Exception {
+        when(accountService.enableHotMode(1L, 16)).thenReturn(new AccountDto(1L, "John Doe", 100_000));
+
+        mockMvc.perform(put("/api/accounts/{id}/hot_mode", 1L).param("slots", "16"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(1000.0));
+    }
+
+    @Test
+    void testDisableHotMode() throws Exception {
+        when(accountService.disableHotMode(1L)).thenReturn(new AccountDto(1L, "John Doe", 100_000));
+
+        mockMvc.perform(delete("/api/accounts/{id}/hot_mode", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    void testTransferBatch() throws Exception {
+        List<TransferResult> results = Arrays.asList(
+                new TransferResult(0, 1L, 2L, TransferResult.Status.COMPLETED, null),
+                new TransferResult(1, 1L, 3L, TransferResult.Status.INSUFFICIENT_FUNDS, "Insufficient money"));
+
+        when(accountService.transferBatch(eq(Arrays.asList(
+                new TransferRequest(1L, 2L, 20_000),
+                new TransferRequest(1L, 3L, 500_000))))).thenReturn(results);
+
+        mockMvc.perform(post("/api/accounts/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"fromAccountId\": 1, \"toAccountId\": 2, \"amount\": 200.0},"
+                                + "{\"fromAccountId\": 1, \"toAccountId\": 3, \"amount\": 5000.0}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$[1].status").value("INSUFFICIENT_FUNDS"))
+                .andExpect(jsonPath("$[1].message").value("Insufficient money"));
+    }
+
+    @Test
+    void testSubmitTransfer() throws Exception {
+        TransferStatusDto pending = new TransferStatusDto("t-1", 1L, 2L, 20_000,
+                TransferStatusDto.Status.PENDING, null, null);
+
+        when(transferDispatcher.submit(new TransferRequest(1L, 2L, 20_000))).thenReturn(pending);
+
+        mockMvc.perform(post("/api/accounts/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fromAccountId\": 1, \"toAccountId\": 2, \"amount\": 200.0}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/accounts/transfers/t-1"))
+                .andExpect(jsonPath("$.transferId").value("t-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    void testGetTransferStatus_ShouldCapWait() throws Exception {
+        TransferStatusDto completed = new TransferStatusDto("t-1", 1L, 2L, 20_000,
+                TransferStatusDto.Status.COMPLETED, List.of(new AccountDto(1L, "John Doe", 80_000)), null);
+
+        when(transferDispatcher.awaitStatus("t-1", Duration.ofSeconds(30)))
+                .thenReturn(Optional.of(CompletableFuture.completedFuture(completed)));
+
+        MvcResult result = mockMvc.perform(get("/api/accounts/transfers/{transferId}", "t-1")
+                        .param("waitMillis", "600000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.accounts[0].balance").value(800.0));
+    }
+
+    @Test
+    void testGetTransferStatus_WithUnknownId_ShouldReturnNotFound() throws Exception {
+        when(transferDispatcher.awaitStatus("missing", Duration.ZERO)).thenReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(get("/api/accounts/transfers/{transferId}", "missing"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testWithdrawDepositOverAccountLimit() throws Exception {
+        AdmissionControl admissionControl = new AdmissionControl(0.5, 1, 1000, 1000, 64, 1000);
+        accountController = new AccountController(accountService, ledgerService, objectMapper, depositCoalescer,
+                idempotencyStore, transferDispatcher, admissionControl, Duration.ofSeconds(30));
+        mockMvc = MockMvcBuilders.standaloneSetup(accountController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        when(accountService.withdrawDeposit(1L, 20_000)).thenReturn(new AccountDto(1L, "John Doe", 80_000));
+
+        mockMvc.perform(put("/api/accounts/{id}/withdraw_deposit", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 200.0}"))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(put("/api/accounts/{id}/withdraw_deposit", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 200.0}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.errorCode").value("RATE_LIMITED"));
+
+        verify(accountService, times(1)).withdrawDeposit(1L, 20_000);
+        assertEquals(0, admissionControl.getInFlight());
+    }
 }
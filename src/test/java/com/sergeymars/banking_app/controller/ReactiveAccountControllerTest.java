@@ -0,0 +1,119 @@
+package com.sergeymars.banking_app.controller;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.ReactiveExceptionHandler;
+import com.sergeymars.banking_app.service.ReactiveAccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveAccountControllerTest {
+
+    @Mock
+    private ReactiveAccountService reactiveAccountService;
+
+    @InjectMocks
+    private ReactiveAccountController reactiveAccountController;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(reactiveAccountController)
+                .controllerAdvice(new ReactiveExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testAddAccount() {
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 100_000);
+
+        when(reactiveAccountService.createAccount(any(AccountDto.class))).thenReturn(Mono.just(accountDto));
+
+        webTestClient.post().uri("/api/accounts")
+                .bodyValue(new AccountDto(null, "John Doe", 100_000))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.accountHolderName").isEqualTo("John Doe")
+                .jsonPath("$.balance").isEqualTo(1000.0);
+    }
+
+    @Test
+    void testGetAccountById_NotFound() {
+        when(reactiveAccountService.getAccountById(1L))
+                .thenReturn(Mono.error(new AccountNotFoundException("Account doesn't exist")));
+
+        webTestClient.get().uri("/api/accounts/1")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Account doesn't exist")
+                .jsonPath("$.errorCode").isEqualTo("ACCOUNT_NOT_FOUND");
+    }
+
+    @Test
+    void testAddDeposit() {
+        when(reactiveAccountService.addDeposit(1L, 50_000)).thenReturn(Mono.just(new AccountDto(1L, "John Doe", 150_000)));
+
+        webTestClient.put().uri("/api/accounts/1/add_deposit")
+                .bodyValue(Map.of("amount", 500.0))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.balance").isEqualTo(1500.0);
+    }
+
+    @Test
+    void testGetAllAccounts_Ndjson() {
+        when(reactiveAccountService.getAllAccounts()).thenReturn(Flux.just(
+                new AccountDto(1L, "John Doe", 100_000),
+                new AccountDto(2L, "Jane Smith", 200_000)));
+
+        List<AccountDto> accounts = webTestClient.get().uri("/api/accounts")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(AccountDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(List.of(
+                new AccountDto(1L, "John Doe", 100_000),
+                new AccountDto(2L, "Jane Smith", 200_000)), accounts);
+    }
+
+    @Test
+    void testTransferMoneyTo() {
+        when(reactiveAccountService.transferMoneyTo(1L, 2L, 30_000)).thenReturn(Mono.just(List.of(
+                new AccountDto(1L, "John Doe", 70_000),
+                new AccountDto(2L, "Jane Smith", 230_000))));
+
+        webTestClient.put().uri("/api/accounts/1/transfer_money")
+                .bodyValue(Map.of("toAccountId", 2, "amount", 300.0))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].balance").isEqualTo(700.0)
+                .jsonPath("$[1].balance").isEqualTo(2300.0);
+    }
+}
@@ -0,0 +1,81 @@
+package com.sergeymars.banking_app.engine;
+
+import com.sergeymars.banking_app.engine.BalanceJournal.JournalRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void replay_AfterReopen_ShouldReturnRecordsAfterCheckpoint() {
+        Path path = directory.resolve("balance.journal");
+        try (BalanceJournal journal = BalanceJournal.open(path, 4096)) {
+            journal.replay(0, record -> fail());
+            journal.reset();
+            journal.append(BalanceJournal.CREATE, 1, 0, 500, "Zoë");
+            journal.append(BalanceJournal.TRANSFER, 1, 2, 200, null);
+            journal.append(BalanceJournal.DELETE, 2, 0, 0, null);
+            journal.force();
+        }
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        try (BalanceJournal journal = BalanceJournal.open(path, 4096)) {
+            journal.replay(1, replayed::add);
+            assertEquals(3, journal.lastSequence());
+        }
+
+        assertEquals(List.of(new JournalRecord(2, BalanceJournal.TRANSFER, 1, 2, 200, null),
+                new JournalRecord(3, BalanceJournal.DELETE, 2, 0, 0, null)), replayed);
+        List<JournalRecord> all = new ArrayList<>();
+        try (BalanceJournal journal = BalanceJournal.open(path, 4096)) {
+            journal.replay(0, all::add);
+        }
+        assertEquals("Zoë", all.get(0).accountHolderName());
+    }
+
+    @Test
+    void replay_AfterReset_ShouldIgnoreOlderRecordsBehindTheNewOnes() {
+        Path path = directory.resolve("balance.journal");
+        try (BalanceJournal journal = BalanceJournal.open(path, 4096)) {
+            journal.replay(0, record -> fail());
+            journal.reset();
+            for (int i = 0; i < 5; i++) {
+                journal.append(BalanceJournal.DEPOSIT, 1, 0, 100, null);
+            }
+            journal.reset();
+            journal.append(BalanceJournal.WITHDRAW, 1, 0, 50, null);
+        }
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        try (BalanceJournal journal = BalanceJournal.open(path, 4096)) {
+            journal.replay(5, replayed::add);
+        }
+
+        assertEquals(List.of(new JournalRecord(6, BalanceJournal.WITHDRAW, 1, 0, 50, null)), replayed);
+    }
+
+    @Test
+    void hasRoom_ShouldTurnFalseWhenJournalIsFull() {
+        try (BalanceJournal journal = BalanceJournal.open(directory.resolve("small.journal"), 128)) {
+            journal.replay(0, record -> fail());
+            journal.reset();
+            int appended = 0;
+            while (journal.hasRoom(null)) {
+                journal.append(BalanceJournal.DEPOSIT, 1, 0, 1, null);
+                appended++;
+            }
+
+            assertEquals(2, appended);
+            assertFalse(journal.fits("x".repeat(100)));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.sergeymars.banking_app.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceStoreTest {
+
+    @Test
+    void add_BeyondInitialCapacity_ShouldKeepEveryAccountReachable() {
+        BalanceStore store = new BalanceStore(1);
+        for (long id = 1; id <= 1_000; id++) {
+            store.add(id * 7, "Holder " + id, id * 100);
+        }
+
+        assertEquals(1_000, store.size());
+        for (long id = 1; id <= 1_000; id++) {
+            int slot = store.slotOf(id * 7);
+            assertEquals(id * 7, store.idAt(slot));
+            assertEquals(id * 100, store.balanceAt(slot));
+        }
+        assertEquals(-1, store.slotOf(8));
+    }
+
+    @Test
+    void remove_ShouldHideAccountButKeepIdOrder() {
+        BalanceStore store = new BalanceStore(16);
+        store.add(10, "A", 1);
+        store.add(20, "B", 2);
+        store.add(30, "C", 3);
+
+        store.remove(store.slotOf(20));
+
+        assertEquals(-1, store.slotOf(20));
+        assertEquals(2, store.size());
+        assertEquals(1, store.slotAfter(10));
+        assertFalse(store.isLive(1));
+        assertEquals(2, store.slotAfter(20));
+        assertEquals(3, store.slotAfter(30));
+        assertThrows(IllegalStateException.class, () -> store.add(25, "D", 4));
+    }
+}
@@ -10,7 +10,7 @@ public class AccountMapperTest {
 
     @Test
     void testMapToAccount() {
-        AccountDto accountDto = new AccountDto(1L, "John Doe", 1000.0);
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 100_000);
 
         Account account = AccountMapper.mapToAccount(accountDto);
 
@@ -22,7 +22,7 @@ public class AccountMapperTest {
 
     @Test
     void testMapToAccountDto() {
-        Account account = new Account(1L, "John Doe", 1000.0);
+        Account account = new Account(1L, "John Doe", 100_000);
 
         AccountDto accountDto = AccountMapper.mapToAccountDto(account);
 
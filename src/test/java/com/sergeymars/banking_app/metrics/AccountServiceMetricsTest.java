@@ -0,0 +1,113 @@
+package com.sergeymars.banking_app.metrics;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import com.sergeymars.banking_app.repository.AccountRepository;
+import com.sergeymars.banking_app.service.AccountService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountServiceMetricsTest {
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountService instrumentedService;
+    private AccountRepository instrumentedRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AccountServiceMetrics accountServiceMetrics = new AccountServiceMetrics(meterRegistry);
+        instrumentedService = proxy(accountService, AccountService.class, accountServiceMetrics);
+        instrumentedRepository = proxy(accountRepository, AccountRepository.class, accountServiceMetrics);
+    }
+
+    @Test
+    void successfulOperation_ShouldBeTimedWithSuccessOutcome() {
+        when(accountService.getAccountById(1L)).thenReturn(new AccountDto(1L, "John Doe", 10_000));
+
+        instrumentedService.getAccountById(1L);
+        instrumentedService.getAccountById(1L);
+
+        assertEquals(2, operationTimer("getAccountById", "success").count());
+    }
+
+    @Test
+    void failedOperations_ShouldBeTaggedWithTheirOutcome() {
+        when(accountService.withdrawDeposit(1L, 1000)).thenThrow(new InsufficientFundsException("Insufficient money"));
+        when(accountService.withdrawDeposit(2L, 1000)).thenThrow(new AccountNotFoundException("Account doesn't exist"));
+        when(accountService.transferMoneyTo(1L, 1L, 1000)).thenThrow(new AccountException("Ids should be different"));
+        when(accountService.transferMoneyTo(1L, 2L, 1000)).thenThrow(new CannotAcquireLockException("deadlock"));
+
+        assertThrows(InsufficientFundsException.class, () -> instrumentedService.withdrawDeposit(1L, 1000));
+        assertThrows(AccountNotFoundException.class, () -> instrumentedService.withdrawDeposit(2L, 1000));
+        assertThrows(AccountException.class, () -> instrumentedService.transferMoneyTo(1L, 1L, 1000));
+        assertThrows(CannotAcquireLockException.class, () -> instrumentedService.transferMoneyTo(1L, 2L, 1000));
+
+        assertEquals(1, operationTimer("withdrawDeposit", "insufficient_funds").count());
+        assertEquals(1, operationTimer("withdrawDeposit", "not_found").count());
+        assertEquals(1, operationTimer("transferMoneyTo", "rejected").count());
+        assertEquals(1, operationTimer("transferMoneyTo", "conflict").count());
+    }
+
+    @Test
+    void repositoryCalls_ShouldCountAsDatabaseTimeOfTheEnclosingOperation() {
+        when(accountRepository.deposit(1L, 1000)).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return 1;
+        });
+        when(accountService.addDeposit(1L, 1000)).thenAnswer(invocation -> {
+            instrumentedRepository.deposit(1L, 1000);
+            Thread.sleep(20);
+            return new AccountDto(1L, "John Doe", 11_000);
+        });
+
+        instrumentedService.addDeposit(1L, 1000);
+
+        Timer total = operationTimer("addDeposit", "success");
+        Timer db = meterRegistry.get(AccountServiceMetrics.DB_TIMER).tag("operation", "addDeposit").timer();
+        assertTrue(db.totalTime(TimeUnit.MILLISECONDS) >= 20);
+        assertTrue(total.totalTime(TimeUnit.MILLISECONDS) >= db.totalTime(TimeUnit.MILLISECONDS) + 20);
+    }
+
+    @Test
+    void repositoryCallsOutsideOperations_ShouldNotBeRecorded() {
+        instrumentedRepository.deposit(1L, 1000);
+
+        assertTrue(meterRegistry.find(AccountServiceMetrics.DB_TIMER).timers().isEmpty());
+    }
+
+    private Timer operationTimer(String operation, String outcome) {
+        return meterRegistry.get(AccountServiceMetrics.OPERATION_TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+    private static <T> T proxy(T target, Class<T> type, AccountServiceMetrics aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(type);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+}
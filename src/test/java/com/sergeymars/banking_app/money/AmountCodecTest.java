@@ -0,0 +1,57 @@
+package com.sergeymars.banking_app.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.TransferMoneyRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmountCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serialize_ShouldWriteMinorUnitsAsDecimal() throws Exception {
+        assertEquals("{\"id\":1,\"accountHolderName\":\"John Doe\",\"balance\":1000.50}",
+                objectMapper.writeValueAsString(new AccountDto(1L, "John Doe", 100_050)));
+    }
+
+    @Test
+    void serialize_ShouldNotLetDigitsLeakBetweenAmounts() throws Exception {
+        assertEquals("[{\"id\":1,\"accountHolderName\":\"A\",\"balance\":-92233720368547758.08},"
+                        + "{\"id\":2,\"accountHolderName\":\"B\",\"balance\":0.05}]",
+                objectMapper.writeValueAsString(List.of(new AccountDto(1L, "A", Long.MIN_VALUE), new AccountDto(2L, "B", 5))));
+        assertEquals("0.05", Money.format(5));
+    }
+
+    @Test
+    void deserialize_ShouldReadDecimalIntegerAndStringAmounts() throws Exception {
+        assertEquals(new AccountDto(1L, "John Doe", 100_050), objectMapper.readValue(
+                "{\"id\":1,\"accountHolderName\":\"John Doe\",\"balance\":1000.5}", AccountDto.class));
+        assertEquals(new TransferMoneyRequest(2L, 30_000),
+                objectMapper.readValue("{\"toAccountId\":2,\"amount\":300}", TransferMoneyRequest.class));
+        assertEquals(new TransferMoneyRequest(2L, 1),
+                objectMapper.readValue("{\"toAccountId\":2,\"amount\":\"0.01\"}", TransferMoneyRequest.class));
+        assertEquals(new TransferMoneyRequest(2L, 0),
+                objectMapper.readValue("{\"toAccountId\":2}", TransferMoneyRequest.class));
+    }
+
+    @Test
+    void deserialize_ShouldRejectSubCentAmounts() {
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue(
+                "{\"toAccountId\":2,\"amount\":0.001}", TransferMoneyRequest.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue(
+                "{\"toAccountId\":2,\"amount\":100000000000000000000}", TransferMoneyRequest.class));
+    }
+
+    @Test
+    void deserialize_ShouldRejectNullAmounts() {
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue(
+                "{\"toAccountId\":2,\"amount\":null}", TransferMoneyRequest.class));
+    }
+}
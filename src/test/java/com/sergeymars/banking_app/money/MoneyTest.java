@@ -0,0 +1,56 @@
+package com.sergeymars.banking_app.money;
+
+import com.sergeymars.banking_app.exception.AccountException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    void arithmetic_ShouldFailInsteadOfOverflowing() {
+        assertEquals(300, Money.add(100, 200));
+        assertEquals(-100, Money.subtract(100, 200));
+        assertEquals(-100, Money.negate(100));
+        assertEquals(150_000, Money.ofUnits(1500));
+
+        assertThrows(AccountException.class, () -> Money.add(Long.MAX_VALUE, 1));
+        assertThrows(AccountException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+        assertThrows(AccountException.class, () -> Money.negate(Long.MIN_VALUE));
+        assertThrows(AccountException.class, () -> Money.ofUnits(Long.MAX_VALUE / 10));
+    }
+
+    @Test
+    void parse_ShouldReadDecimalsExactly() {
+        assertEquals(100_000, Money.parse("1000"));
+        assertEquals(100_050, Money.parse("1000.5"));
+        assertEquals(100_055, Money.parse("1000.55"));
+        assertEquals(100_055, Money.parse("1000.5500"));
+        assertEquals(10, Money.parse("0.1"));
+        assertEquals(50, Money.parse(".5"));
+        assertEquals(-1234, Money.parse("-12.34"));
+        assertEquals(120_000, Money.parse("1.2E3"));
+        assertEquals(Long.MAX_VALUE, Money.parse("92233720368547758.07"));
+        assertEquals(Long.MIN_VALUE, Money.parse("-92233720368547758.08"));
+    }
+
+    @Test
+    void parse_ShouldRejectWhatIsNotAnAmount() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("0.001"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.5E-3"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("92233720368547758.08"));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("12a"));
+    }
+
+    @Test
+    void format_ShouldAlwaysWriteTwoDecimals() {
+        assertEquals("1000.00", Money.format(100_000));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("0.00", Money.format(0));
+        assertEquals("-12.34", Money.format(-1234));
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+    }
+}
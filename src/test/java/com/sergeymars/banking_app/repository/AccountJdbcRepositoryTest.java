@@ -0,0 +1,69 @@
+package com.sergeymars.banking_app.repository;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.entity.Account;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(AccountJdbcRepository.class)
+public class AccountJdbcRepositoryTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountJdbcRepository accountJdbcRepository;
+
+    @Test
+    void streamAll_ShouldEmitAccountsInIdOrder() {
+        Account first = accountRepository.saveAndFlush(new Account(null, "John Doe", 10_000));
+        Account second = accountRepository.saveAndFlush(new Account(null, "Jane Smith", 5000));
+
+        List<AccountDto> streamed = new ArrayList<>();
+        accountJdbcRepository.streamAll(streamed::add);
+
+        assertEquals(List.of(
+                new AccountDto(first.getId(), "John Doe", 10_000),
+                new AccountDto(second.getId(), "Jane Smith", 5000)), streamed);
+    }
+
+    @Test
+    void lockBalancesAndUpdateBalances_ShouldRoundTrip() {
+        Account first = accountRepository.saveAndFlush(new Account(null, "John Doe", 10_000));
+        Account second = accountRepository.saveAndFlush(new Account(null, "Jane Smith", 5000));
+
+        Map<Long, Long> balances = accountJdbcRepository.lockBalances(List.of(first.getId(), second.getId(), -1L));
+
+        assertEquals(Map.of(first.getId(), 10_000L, second.getId(), 5000L), balances);
+
+        accountJdbcRepository.updateBalances(new TreeMap<>(Map.of(first.getId(), 7000L, second.getId(), 8000L)));
+
+        assertEquals(Map.of(first.getId(), 7000L, second.getId(), 8000L),
+                accountJdbcRepository.lockBalances(List.of(first.getId(), second.getId())));
+    }
+
+    @Test
+    void exportRange_ShouldOnlyHandAccountsWithinInclusiveBounds() {
+        Account first = accountRepository.saveAndFlush(new Account(null, "John Doe", 10_000));
+        Account second = accountRepository.saveAndFlush(new Account(null, "Jane Smith", 5000));
+        accountRepository.saveAndFlush(new Account(null, "Jim Beam", 2000));
+
+        List<AccountDto> exported = new ArrayList<>();
+        accountJdbcRepository.exportRange(first.getId(), second.getId(),
+                (id, name, balance) -> exported.add(new AccountDto(id, name, balance)));
+
+        assertEquals(List.of(
+                new AccountDto(first.getId(), "John Doe", 10_000),
+                new AccountDto(second.getId(), "Jane Smith", 5000)), exported);
+    }
+}
@@ -1,4 +1,141 @@
 package com.sergeymars.banking_app.repository;
 
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.VersionedAccount;
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.entity.AccountBalanceSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
 public class AccountRepositoryTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository accountBalanceSlotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        account = accountRepository.save(new Account(null, "John Doe", 10_000));
+    }
+
+    @Test
+    void deposit_ShouldAddAmountInPlace() {
+        int updated = accountRepository.deposit(account.getId(), 5000);
+
+        assertEquals(1, updated);
+        assertEquals(15_000, accountRepository.findById(account.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void deposit_UnknownAccount_ShouldUpdateNothing() {
+        assertEquals(0, accountRepository.deposit(account.getId() + 1000, 5000));
+    }
+
+    @Test
+    void withdraw_SufficientFunds_ShouldSubtractAmount() {
+        int updated = accountRepository.withdraw(account.getId(), 10_000);
+
+        assertEquals(1, updated);
+        assertEquals(0, accountRepository.findById(account.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void withdraw_InsufficientFunds_ShouldLeaveBalanceUntouched() {
+        int updated = accountRepository.withdraw(account.getId(), 10_001);
+
+        assertEquals(0, updated);
+        assertEquals(10_000, accountRepository.findById(account.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void rowVersion_ShouldMoveWithEveryWrite() {
+        long id = account.getId();
+        accountRepository.flush();
+        assertEquals(new AccountVersion(0, 0), accountRepository.findVersionById(id).orElseThrow());
+
+        accountRepository.deposit(id, 5000);
+        accountRepository.withdraw(id, 1_000_000);
+        assertEquals(new AccountVersion(1, 0), accountRepository.findVersionById(id).orElseThrow());
+
+        Account loaded = accountRepository.findById(id).orElseThrow();
+        loaded.setBalance(20_000);
+        accountRepository.flush();
+        assertEquals(new AccountVersion(2, 0), accountRepository.findVersionById(id).orElseThrow());
+    }
+
+    @Test
+    void findVersionedById_ShouldIncludeSlotBalance() {
+        accountBalanceSlotRepository.saveAndFlush(new AccountBalanceSlot(account.getId(), 0, 2500));
+
+        VersionedAccount versioned = accountRepository.findVersionedById(account.getId()).orElseThrow();
+
+        assertEquals(12_500, versioned.account().balance());
+        assertEquals(new AccountVersion(0, 2500), versioned.version());
+        assertEquals(versioned.version(), accountRepository.findVersionById(account.getId()).orElseThrow());
+    }
+
+    @Test
+    void findByIdGreaterThan_ShouldReturnNextKeysetPage() {
+        Account second = accountRepository.save(new Account(null, "Jane Smith", 1000));
+        accountRepository.save(new Account(null, "Jim Beam", 2000));
+
+        List<Account> page = accountRepository.findByIdGreaterThanOrderByIdAsc(account.getId(), Limit.of(1));
+
+        assertEquals(1, page.size());
+        assertEquals(second.getId(), page.get(0).getId());
+    }
+
+    @Test
+    void searchByHolderNameKey_ShouldMatchPrefixIgnoringCaseInKeyOrder() {
+        Account johnny = accountRepository.save(new Account(null, "johnny Cash", 1000));
+        Account second = accountRepository.save(new Account(null, "JOHN DOE", 2000));
+        accountRepository.save(new Account(null, "Jane Smith", 3000));
+        accountRepository.save(new Account(null, "Jo_hn", 4000));
+        accountRepository.flush();
+
+        List<Account> firstPage = accountRepository.searchByHolderNameKey(AccountRepository.prefixPattern("john"), "",
+                Long.MIN_VALUE, Limit.of(2));
+        List<Account> secondPage = accountRepository.searchByHolderNameKey(AccountRepository.prefixPattern("john"),
+                "john doe", second.getId(), Limit.of(2));
+
+        assertEquals(List.of(account.getId(), second.getId()), firstPage.stream().map(Account::getId).toList());
+        assertEquals(List.of(johnny.getId()), secondPage.stream().map(Account::getId).toList());
+        assertEquals("johnny cash", secondPage.get(0).getHolderNameKey());
+    }
+
+    @Test
+    void prefixPattern_ShouldMatchWildcardsLiterally() {
+        Account literal = accountRepository.saveAndFlush(new Account(null, "Jo_hn", 4000));
+
+        List<Account> found = accountRepository.searchByHolderNameKey(AccountRepository.prefixPattern("jo_"), "",
+                Long.MIN_VALUE, Limit.of(10));
+
+        assertEquals(List.of(literal.getId()), found.stream().map(Account::getId).toList());
+    }
+
+    @Test
+    void searchByHolderNameKey_ShouldRangeScanHolderNameIndex() {
+        String plan = jdbcTemplate.queryForObject("explain select id from accounts where holder_name_key like 'john%' "
+                + "escape '\\' and (holder_name_key > '' or (holder_name_key = '' and id > 0)) "
+                + "order by holder_name_key, id limit 10", String.class);
+
+        assertTrue(plan.toLowerCase().contains("idx_accounts_holder_name_key"), plan);
+        assertTrue(plan.contains("HOLDER_NAME_KEY >="), plan);
+    }
 }
@@ -0,0 +1,100 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountAggregatesDto;
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository;
+import com.sergeymars.banking_app.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(AccountJdbcRepository.class)
+class AccountAggregatesTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountJdbcRepository accountJdbcRepository;
+
+    private AccountAggregates accountAggregates;
+
+    @BeforeEach
+    void setUp() {
+        // Buckets: [0, 100.00), [100.00, 1000.00), [1000.00, ...)
+        accountAggregates = new AccountAggregates(accountJdbcRepository, new long[]{100_000, 10_000}, 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountRepository.deleteAll();
+    }
+
+    // The reconciliation reads on threads of its own, so these tests commit their accounts.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void reconcile_ShouldComputeValuesFromDatabaseInChunks() {
+        accountRepository.saveAllAndFlush(List.of(new Account(null, "A", 5_000), new Account(null, "B", 10_000),
+                new Account(null, "C", 50_000), new Account(null, "D", 200_000), new Account(null, "E", 0)));
+
+        assertTrue(accountAggregates.reconcile());
+
+        AccountAggregatesDto aggregates = accountAggregates.snapshot();
+        assertEquals(5, aggregates.accountCount());
+        assertEquals(265_000, aggregates.totalBalance());
+        assertEquals(List.of(2L, 2L, 1L), aggregates.balanceHistogram().stream().map(AccountAggregatesDto.BalanceBucket::count).toList());
+        assertEquals(List.of(0L, 10_000L, 100_000L),
+                aggregates.balanceHistogram().stream().map(AccountAggregatesDto.BalanceBucket::lowerBound).toList());
+        assertNotNull(aggregates.reconciledAt());
+        assertFalse(accountAggregates.reconcile());
+        assertEquals(0, accountAggregates.getCorrectionCount());
+    }
+
+    @Test
+    void mutations_ShouldOnlyCountOnceCommitted() {
+        accountAggregates.accountsCreated(List.of(5_000L, 20_000L));
+        accountAggregates.balanceChanged(5_000, 15_000);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        TestTransaction.start();
+        accountAggregates.accountDeleted(20_000);
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+
+        AccountAggregatesDto aggregates = accountAggregates.snapshot();
+        assertEquals(2, aggregates.accountCount());
+        assertEquals(35_000, aggregates.totalBalance());
+        assertEquals(List.of(0L, 2L, 0L), aggregates.balanceHistogram().stream().map(AccountAggregatesDto.BalanceBucket::count).toList());
+        assertNull(aggregates.reconciledAt());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void reconcile_AfterDrift_ShouldCorrectValues() {
+        accountRepository.saveAndFlush(new Account(null, "A", 5_000));
+        accountAggregates.reconcile();
+        // A write this node never saw.
+        accountRepository.saveAndFlush(new Account(null, "B", 150_000));
+        accountAggregates.accountsCreated(List.of(1L));
+
+        assertTrue(accountAggregates.reconcile());
+
+        AccountAggregatesDto aggregates = accountAggregates.snapshot();
+        assertEquals(2, aggregates.accountCount());
+        assertEquals(155_000, aggregates.totalBalance());
+        assertEquals(List.of(1L, 0L, 1L), aggregates.balanceHistogram().stream().map(AccountAggregatesDto.BalanceBucket::count).toList());
+        assertEquals(1, accountAggregates.getCorrectionCount());
+    }
+}
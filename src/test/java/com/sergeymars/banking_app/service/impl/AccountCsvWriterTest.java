@@ -0,0 +1,59 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountCsvWriterTest {
+
+    @Test
+    void writeRow_ShouldFormatAmountsAndQuoteOnlyWhenNeeded() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AccountCsvWriter writer = new AccountCsvWriter(outputStream, 0);
+
+        writer.writeHeader();
+        writer.writeRow(1, "John Doe", 100_050);
+        writer.writeRow(2, "Doe, \"Jane\"", -5);
+        writer.writeRow(Long.MAX_VALUE, null, 0);
+        writer.flush();
+
+        assertEquals("id,account_holder_name,balance\r\n"
+                        + "1,John Doe,1000.50\r\n"
+                        + "2,\"Doe, \"\"Jane\"\"\",-0.05\r\n"
+                        + "9223372036854775807,,0.00\r\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+        assertEquals(3, writer.getRowCount());
+    }
+
+    @Test
+    void writeRow_ShouldEncodeNamesAsUtf8() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AccountCsvWriter writer = new AccountCsvWriter(outputStream, 0);
+        String name = "Zoë Ñúñez 李雷 😀";
+
+        writer.writeRow(1, name, 100);
+        writer.flush();
+
+        assertArrayEquals(("1," + name + ",1.00\r\n").getBytes(StandardCharsets.UTF_8), outputStream.toByteArray());
+    }
+
+    @Test
+    void writeRow_ManyRows_ShouldSpillBufferWithoutLosingBytes() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AccountCsvWriter writer = new AccountCsvWriter(outputStream, 1024);
+        StringBuilder expected = new StringBuilder();
+
+        for (int i = 0; i < 5000; i++) {
+            writer.writeRow(i, "Holder " + i, i * 101L);
+            expected.append(i).append(",Holder ").append(i).append(',')
+                    .append(Money.format(i * 101L)).append("\r\n");
+        }
+        writer.flush();
+
+        assertEquals(expected.toString(), outputStream.toString(StandardCharsets.UTF_8));
+    }
+}
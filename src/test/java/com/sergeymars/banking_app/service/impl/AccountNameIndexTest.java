@@ -0,0 +1,99 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository;
+import com.sergeymars.banking_app.repository.AccountRepository;
+import com.sergeymars.banking_app.service.impl.AccountNameIndex.Entry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({AccountJdbcRepository.class, RetryingTransactionExecutor.class})
+class AccountNameIndexTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountJdbcRepository accountJdbcRepository;
+
+    @Autowired
+    private RetryingTransactionExecutor retryingTransactionExecutor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private AccountNameIndex accountNameIndex;
+
+    @BeforeEach
+    void setUp() {
+        accountNameIndex = new AccountNameIndex(accountRepository, accountJdbcRepository, retryingTransactionExecutor, true);
+    }
+
+    // The backfill runs in transactions of its own, like at startup.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void load_ShouldBackfillMissingKeysAndIndexEveryAccount() {
+        Account john = accountRepository.saveAndFlush(new Account(null, "John Doe", 1000));
+        Account jane = accountRepository.saveAndFlush(new Account(null, "Jane Smith", 2000));
+        jdbcTemplate.update("update accounts set holder_name_key = null where id = ?", jane.getId());
+
+        accountNameIndex.load();
+
+        assertTrue(accountNameIndex.isReady());
+        assertEquals("jane smith", jdbcTemplate.queryForObject(
+                "select holder_name_key from accounts where id = ?", String.class, jane.getId()));
+        assertEquals(List.of(new Entry("jane smith", jane.getId()), new Entry("john doe", john.getId())),
+                accountNameIndex.search("j", "", Long.MIN_VALUE, 10));
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void search_ShouldWalkPrefixRangeAfterCursor() {
+        accountNameIndex.addAfterCommit(List.of(
+                new Account(1L, "Johnny Cash", 100, 0, "johnny cash", 0),
+                new Account(2L, "John Doe", 100, 0, "john doe", 0),
+                new Account(3L, "John Doe", 100, 0, "john doe", 0),
+                new Account(4L, "Jane Smith", 100, 0, "jane smith", 0),
+                new Account(5L, "Joan", 100, 0, "joan", 0)));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertEquals(List.of(new Entry("john doe", 2L), new Entry("john doe", 3L)),
+                accountNameIndex.search("john", "", Long.MIN_VALUE, 2));
+        assertEquals(List.of(new Entry("john doe", 3L), new Entry("johnny cash", 1L)),
+                accountNameIndex.search("john", "john doe", 2L, 10));
+        assertEquals(List.of(), accountNameIndex.search("john", "johnny cash", 1L, 10));
+    }
+
+    @Test
+    void removeAfterCommit_ShouldOnlyApplyWhenTransactionCommits() {
+        Account john = new Account(1L, "John Doe", 100, 0, "john doe", 0);
+        accountNameIndex.addAfterCommit(List.of(john));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        TestTransaction.start();
+        accountNameIndex.removeAfterCommit(john);
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+        assertEquals(1, accountNameIndex.size());
+
+        TestTransaction.start();
+        accountNameIndex.removeAfterCommit(john);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertEquals(0, accountNameIndex.size());
+    }
+}
@@ -1,20 +1,38 @@
 package com.sergeymars.banking_app.service.impl;
+import com.sergeymars.banking_app.cache.AccountCache;
 import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountSearchPage;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferResult;
 import com.sergeymars.banking_app.entity.Account;
 import com.sergeymars.banking_app.exception.AccountException;
 import com.sergeymars.banking_app.mapper.AccountMapper;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository;
 import com.sergeymars.banking_app.repository.AccountRepository;
+import com.sergeymars.banking_app.service.LedgerService;
 import com.sergeymars.banking_app.service.impl.AccountServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +43,27 @@ class AccountServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountJdbcRepository accountJdbcRepository;
+
+    @Mock
+    private RetryingTransactionExecutor retryingTransactionExecutor;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private HotAccountBalances hotAccountBalances;
+
+    @Mock
+    private AccountNameIndex accountNameIndex;
+
+    @Mock
+    private AccountAggregates accountAggregates;
+
+    @Spy
+    private AccountCache accountCache = new AccountCache(100, Duration.ofMinutes(1));
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -36,9 +75,9 @@ class AccountServiceImplTest {
         account = new Account();
         account.setId(1L);
         account.setAccountHolderName("John Doe");
-        account.setBalance(100.0);
+        account.setBalance(10_000);
 
-        accountDto = new AccountDto(1L, "John Doe", 100.0);
+        accountDto = new AccountDto(1L, "John Doe", 10_000);
     }
 
     @Test
@@ -52,6 +91,34 @@ class AccountServiceImplTest {
         verify(accountRepository, times(1)).save(any(Account.class));
     }
 
+    @Test
+    void createAccounts_ShouldSaveInChunksIgnoringClientIds() {
+        List<AccountDto> accountDtos = new ArrayList<>();
+        for (long i = 0; i < AccountServiceImpl.IMPORT_CHUNK_SIZE + 1; i++) {
+            accountDtos.add(new AccountDto(i, "Holder " + i, 1000));
+        }
+        runInTransaction();
+        when(accountRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<AccountDto> result = accountService.createAccounts(accountDtos);
+
+        assertEquals(accountDtos.size(), result.size());
+        assertTrue(result.stream().allMatch(dto -> dto.id() == null));
+        verify(accountRepository, times(2)).saveAll(anyList());
+        verify(ledgerService, times(2)).recordOpenings(anyList());
+    }
+
+    @Test
+    void importAccounts_ShouldReturnCreatedCount() {
+        runInTransaction();
+        when(accountRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        long created = accountService.importAccounts(List.of(accountDto, accountDto, accountDto).iterator());
+
+        assertEquals(3, created);
+        verify(accountRepository, times(1)).saveAll(anyList());
+    }
+
     @Test
     void getAccountById_AccountExists_ShouldReturnAccountDto() {
         when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
@@ -63,6 +130,53 @@ class AccountServiceImplTest {
         verify(accountRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getAccountById_RepeatedReads_ShouldHitCache() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+
+        accountService.getAccountById(1L);
+        AccountDto result = accountService.getAccountById(1L);
+
+        assertEquals(accountDto, result);
+        verify(accountRepository, times(1)).findById(1L);
+        assertEquals(1, accountCache.getHitCount());
+    }
+
+    @Test
+    void getAccountVersion_CachedAccount_ShouldNotQueryVersion() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        account.setVersion(3);
+        accountService.getAccountById(1L);
+
+        AccountVersion version = accountService.getAccountVersion(1L);
+
+        assertEquals(new AccountVersion(3, 0), version);
+        verify(accountRepository, never()).findVersionById(1L);
+    }
+
+    @Test
+    void getAccountVersion_NotCached_ShouldQueryVersion() {
+        when(accountRepository.findVersionById(1L)).thenReturn(Optional.of(new AccountVersion(3, 0)));
+
+        AccountVersion version = accountService.getAccountVersion(1L);
+
+        assertEquals(new AccountVersion(3, 0), version);
+        verify(accountRepository, never()).findById(1L);
+    }
+
+    @Test
+    void addDeposit_ShouldEvictCachedAccount() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        accountService.getAccountById(1L);
+        when(accountRepository.deposit(1L, 5000)).thenReturn(1);
+        account.setBalance(15_000);
+
+        accountService.addDeposit(1L, 5000);
+
+        assertEquals(new AccountDto(1L, "John Doe", 15_000), accountService.getAccountById(1L));
+        verify(accountCache, times(1)).evictAfterCompletion(1L);
+    }
+
     @Test
     void getAccountById_AccountDoesNotExist_ShouldThrowException() {
         when(accountRepository.findById(1L)).thenReturn(Optional.empty());
@@ -75,24 +189,120 @@ class AccountServiceImplTest {
 
     @Test
     void addDeposit_ShouldIncreaseBalance() {
+        when(accountRepository.deposit(1L, 5000)).thenReturn(1);
+        account.setBalance(15_000);
         when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
-        when(accountRepository.save(account)).thenReturn(account);
 
-        AccountDto result = accountService.addDeposit(1L, 50.0);
+        AccountDto result = accountService.addDeposit(1L, 5000);
 
-        assertEquals(new AccountDto(1L, "John Doe", 150.0), result);
-        verify(accountRepository, times(1)).findById(1L);
-        verify(accountRepository, times(1)).save(account);
+        assertEquals(new AccountDto(1L, "John Doe", 15_000), result);
+        verify(accountRepository, times(1)).deposit(1L, 5000);
+        verify(ledgerService, times(1)).recordDeposit(1L, 5000);
+        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountAggregates, times(1)).balanceChanged(10_000, 15_000);
     }
 
     @Test
-    void withdrawDeposit_InsufficientFunds_ShouldThrowException() {
+    void addDeposits_ShouldMergeDepositsIntoOneUpdatePerAccount() {
+        runInTransaction();
+        Account other = new Account(2L, "Jane Smith", 5000);
+        List<DepositRequest> deposits = List.of(
+                new DepositRequest(2L, 500),
+                new DepositRequest(1L, 1000),
+                new DepositRequest(2L, 1500),
+                new DepositRequest(3L, 100),
+                new DepositRequest(1L, 2000));
+        when(accountRepository.deposit(1L, 3000)).thenReturn(1);
+        when(accountRepository.deposit(2L, 2000)).thenReturn(1);
+        when(accountRepository.deposit(3L, 100)).thenReturn(0);
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account, other));
+
+        Map<Long, AccountDto> result = accountService.addDeposits(deposits);
+
+        assertEquals(Map.of(1L, accountDto, 2L, new AccountDto(2L, "Jane Smith", 5000)), result);
+        verify(accountRepository, times(3)).deposit(anyLong(), anyLong());
+        verify(ledgerService, times(1)).recordDeposits(List.of(
+                new DepositRequest(2L, 500),
+                new DepositRequest(1L, 1000),
+                new DepositRequest(2L, 1500),
+                new DepositRequest(1L, 2000)));
+        verify(accountCache, times(1)).evictAfterCompletion(Set.of(1L, 2L));
+    }
+
+    @Test
+    void addDeposit_AccountDoesNotExist_ShouldThrowException() {
+        when(accountRepository.deposit(1L, 5000)).thenReturn(0);
+
+        AccountException exception = assertThrows(AccountException.class, () -> accountService.addDeposit(1L, 5000));
+
+        assertEquals("Account doesn't exist", exception.getMessage());
+        verify(accountRepository, never()).findById(1L);
+    }
+
+    @Test
+    void addDeposit_HotAccount_ShouldCreditSlotInsteadOfAccountRow() {
+        account.setBalanceSlots(4);
+        when(hotAccountBalances.credit(1L, 5000)).thenReturn(true);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findWithSlotBalanceById(1L)).thenReturn(Optional.of(new AccountDto(1L, "John Doe", 15_000)));
+
+        AccountDto result = accountService.addDeposit(1L, 5000);
+
+        assertEquals(new AccountDto(1L, "John Doe", 15_000), result);
+        verify(accountRepository, never()).deposit(anyLong(), anyLong());
+        verify(ledgerService, times(1)).recordDeposit(1L, 5000);
+    }
+
+    @Test
+    void withdrawDeposit_HotAccountShortOnRowBalance_ShouldDrainSlots() {
+        account.setBalanceSlots(4);
+        when(accountRepository.withdraw(1L, 13_000)).thenReturn(0);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(hotAccountBalances.drain(1L)).thenReturn(5000L);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findWithSlotBalanceById(1L)).thenReturn(Optional.of(new AccountDto(1L, "John Doe", 2000)));
+
+        AccountDto result = accountService.withdrawDeposit(1L, 13_000);
+
+        assertEquals(2000, account.getBalance());
+        assertEquals(new AccountDto(1L, "John Doe", 2000), result);
+        verify(ledgerService, times(1)).recordWithdrawal(1L, 13_000);
+    }
+
+    @Test
+    void withdrawDeposit_ShouldDecreaseBalance() {
+        when(accountRepository.withdraw(1L, 4000)).thenReturn(1);
+        account.setBalance(6000);
         when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
 
-        AccountException exception = assertThrows(AccountException.class, () -> accountService.withdrawDeposit(1L, 200.0));
+        AccountDto result = accountService.withdrawDeposit(1L, 4000);
+
+        assertEquals(new AccountDto(1L, "John Doe", 6000), result);
+        verify(accountRepository, times(1)).withdraw(1L, 4000);
+        verify(ledgerService, times(1)).recordWithdrawal(1L, 4000);
+        verify(accountRepository, never()).findByIdForUpdate(1L);
+    }
+
+    @Test
+    void withdrawDeposit_InsufficientFunds_ShouldThrowException() {
+        when(accountRepository.withdraw(1L, 20_000)).thenReturn(0);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+
+        AccountException exception = assertThrows(AccountException.class, () -> accountService.withdrawDeposit(1L, 20_000));
 
         assertEquals("Insufficient money", exception.getMessage());
-        verify(accountRepository, times(1)).findById(1L);
+        verify(accountRepository, times(1)).withdraw(1L, 20_000);
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    void withdrawDeposit_AccountDoesNotExist_ShouldThrowException() {
+        when(accountRepository.withdraw(1L, 20_000)).thenReturn(0);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
+
+        AccountException exception = assertThrows(AccountException.class, () -> accountService.withdrawDeposit(1L, 20_000));
+
+        assertEquals("Account doesn't exist", exception.getMessage());
     }
 
     @Test
@@ -107,40 +317,242 @@ class AccountServiceImplTest {
         verify(accountRepository, times(1)).findAll();
     }
 
+    @Test
+    void getAccountsPage_MoreRowsThanLimit_ShouldReturnNextCursor() {
+        Account second = new Account(2L, "Jane Smith", 5000);
+        Account third = new Account(3L, "Jim Beam", 1000);
+        when(accountRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+                .thenReturn(List.of(account, second, third));
+
+        KeysetPage<AccountDto> result = accountService.getAccountsPage(null, 2);
+
+        assertEquals(List.of(accountDto, new AccountDto(2L, "Jane Smith", 5000)), result.content());
+        assertEquals(2L, result.next());
+    }
+
+    @Test
+    void getAccountsPage_LastPage_ShouldReturnNoCursor() {
+        when(accountRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(11)))
+                .thenReturn(List.of(account));
+
+        KeysetPage<AccountDto> result = accountService.getAccountsPage(0L, 10);
+
+        assertEquals(List.of(accountDto), result.content());
+        assertNull(result.next());
+    }
+
+    @Test
+    void searchByHolderName_ShouldMatchLowercasedPrefixAndReturnNextCursor() {
+        Account second = new Account(2L, "John Smith", 5000);
+        Account third = new Account(3L, "Johnny Cash", 1000);
+        when(accountRepository.searchByHolderNameKey("jo\\_%", "", Long.MIN_VALUE, Limit.of(3)))
+                .thenReturn(List.of(account, second, third));
+
+        AccountSearchPage result = accountService.searchByHolderName("JO_", null, null, 2);
+
+        assertEquals(List.of(accountDto, new AccountDto(2L, "John Smith", 5000)), result.content());
+        assertEquals("John Smith", result.nextName());
+        assertEquals(2L, result.nextId());
+    }
+
+    @Test
+    void searchByHolderName_WithReadyIndex_ShouldSkipDeletedAccounts() {
+        Account third = new Account(3L, "Johnny Cash", 1000);
+        when(accountNameIndex.isReady()).thenReturn(true);
+        when(accountNameIndex.search("john", "john doe", 1L, 2)).thenReturn(List.of(
+                new AccountNameIndex.Entry("john smith", 2L), new AccountNameIndex.Entry("johnny cash", 3L)));
+        when(accountNameIndex.search("john", "johnny cash", 3L, 1)).thenReturn(List.of());
+        when(accountRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(third));
+
+        AccountSearchPage result = accountService.searchByHolderName("John", "John Doe", 1L, 1);
+
+        assertEquals(List.of(new AccountDto(3L, "Johnny Cash", 1000)), result.content());
+        assertNull(result.nextName());
+        assertNull(result.nextId());
+        verify(accountRepository, never()).searchByHolderNameKey(anyString(), anyString(), anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void searchByHolderName_BlankName_ShouldThrow() {
+        assertThrows(AccountException.class, () -> accountService.searchByHolderName(" ", null, null, 10));
+    }
+
+    @Test
+    void getAccountsPage_LimitAboveMaximum_ShouldBeCapped() {
+        when(accountRepository.findByIdGreaterThanOrderByIdAsc(5L, Limit.of(AccountServiceImpl.MAX_PAGE_SIZE + 1)))
+                .thenReturn(List.of());
+
+        KeysetPage<AccountDto> result = accountService.getAccountsPage(5L, Integer.MAX_VALUE);
+
+        assertTrue(result.content().isEmpty());
+        assertNull(result.next());
+    }
+
+    @Test
+    void streamAllAccounts_ShouldDelegateToJdbcCursor() {
+        doAnswer(invocation -> {
+            java.util.function.Consumer<AccountDto> consumer = invocation.getArgument(0);
+            consumer.accept(accountDto);
+            return null;
+        }).when(accountJdbcRepository).streamAll(any());
+
+        List<AccountDto> result = new ArrayList<>();
+        accountService.streamAllAccounts(result::add);
+
+        assertEquals(List.of(accountDto), result);
+        verify(accountRepository, never()).findAll();
+    }
+
     @Test
     void transferMoneyTo_InsufficientFunds_ShouldThrowException() {
         Account toAccount = new Account();
         toAccount.setId(2L);
         toAccount.setAccountHolderName("Jane Smith");
-        toAccount.setBalance(50.0);
+        toAccount.setBalance(5000);
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+        runInTransaction();
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
 
-        AccountException exception = assertThrows(AccountException.class, () -> accountService.transferMoneyTo(1L, 2L, 200.0));
+        AccountException exception = assertThrows(AccountException.class, () -> accountService.transferMoneyTo(1L, 2L, 20_000));
 
         assertEquals("Insufficient money", exception.getMessage());
-        verify(accountRepository, times(1)).findById(1L);
-        verify(accountRepository, times(1)).findById(2L);
+        verify(accountRepository, times(1)).findByIdForUpdate(1L);
+        verify(accountRepository, times(1)).findByIdForUpdate(2L);
+    }
+
+    @Test
+    void transferMoneyTo_ShouldLockAccountsInAscendingIdOrder() {
+        Account toAccount = new Account(2L, "Jane Smith", 5000);
+
+        runInTransaction();
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+
+        List<AccountDto> result = accountService.transferMoneyTo(2L, 1L, 3000);
+
+        assertEquals(List.of(new AccountDto(2L, "Jane Smith", 2000), new AccountDto(1L, "John Doe", 13_000)), result);
+        verify(ledgerService, times(1)).recordTransfers(List.of(new TransferRequest(2L, 1L, 3000)));
+        verify(accountAggregates, times(1)).balanceChanged(5000, 2000);
+        verify(accountAggregates, times(1)).balanceChanged(10_000, 13_000);
+        var inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).findByIdForUpdate(1L);
+        inOrder.verify(accountRepository).findByIdForUpdate(2L);
+    }
+
+    @Test
+    void transferMoneyTo_HotTarget_ShouldLockOnlySourceAndCreditSlot() {
+        runInTransaction();
+        when(hotAccountBalances.isHot(2L)).thenReturn(true);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(hotAccountBalances.credit(2L, 3000)).thenReturn(true);
+        when(accountRepository.findWithSlotBalanceById(2L)).thenReturn(Optional.of(new AccountDto(2L, "Jane Smith", 8000)));
+
+        List<AccountDto> result = accountService.transferMoneyTo(1L, 2L, 3000);
+
+        assertEquals(List.of(new AccountDto(1L, "John Doe", 7000), new AccountDto(2L, "Jane Smith", 8000)), result);
+        verify(accountRepository, never()).findByIdForUpdate(2L);
+        verify(ledgerService, times(1)).recordTransfers(List.of(new TransferRequest(1L, 2L, 3000)));
+    }
+
+    @Test
+    void enableHotMode_ShouldLockAccountAndCreateSlots() {
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        doAnswer(invocation -> {
+            account.setBalanceSlots(invocation.getArgument(1));
+            return null;
+        }).when(hotAccountBalances).enable(account, 8);
+        when(accountRepository.findWithSlotBalanceById(1L)).thenReturn(Optional.of(accountDto));
+
+        AccountDto result = accountService.enableHotMode(1L, 8);
+
+        assertEquals(accountDto, result);
+        verify(hotAccountBalances, times(1)).enable(account, 8);
+    }
+
+    @Test
+    void singleOperations_WithNonPositiveAmount_ShouldThrowException() {
+        assertEquals("Amount should be positive",
+                assertThrows(AccountException.class, () -> accountService.addDeposit(1L, 0)).getMessage());
+        assertEquals("Amount should be positive",
+                assertThrows(AccountException.class, () -> accountService.withdrawDeposit(1L, -1000)).getMessage());
+        assertEquals("Amount should be positive",
+                assertThrows(AccountException.class, () -> accountService.transferMoneyTo(1L, 2L, -1000)).getMessage());
+        verifyNoInteractions(accountRepository, retryingTransactionExecutor);
+    }
+
+    @Test
+    void transferMoneyTo_SameLargeIds_ShouldThrowException() {
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.transferMoneyTo(Long.valueOf(1000L), Long.valueOf(1000L), 1000));
+
+        assertEquals("Ids should be different", exception.getMessage());
+        verifyNoInteractions(accountRepository, retryingTransactionExecutor);
+    }
+
+    @Test
+    void transferMoneyTo_TargetDoesNotExist_ShouldThrowException() {
+        runInTransaction();
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.empty());
+
+        AccountException exception = assertThrows(AccountException.class, () -> accountService.transferMoneyTo(1L, 2L, 1000));
+
+        assertEquals("Account want you transfer money doesn't exist to", exception.getMessage());
+    }
+
+    @Test
+    void transferBatch_ShouldApplyValidItemsAndReportRejectedOnes() {
+        runInTransaction();
+        Map<Long, Long> balances = new HashMap<>(Map.of(1L, 10_000L, 2L, 5000L));
+        when(accountJdbcRepository.lockBalances(List.of(1L, 2L, 3L))).thenReturn(balances);
+
+        List<TransferResult> results = accountService.transferBatch(List.of(
+                new TransferRequest(1L, 2L, 7000),
+                new TransferRequest(1L, 2L, 4000),
+                new TransferRequest(2L, 3L, 1000),
+                new TransferRequest(2L, 2L, 1000),
+                new TransferRequest(2L, 1L, 12_000)
+        ));
+
+        assertEquals(List.of(
+                TransferResult.Status.COMPLETED,
+                TransferResult.Status.INSUFFICIENT_FUNDS,
+                TransferResult.Status.ACCOUNT_NOT_FOUND,
+                TransferResult.Status.INVALID,
+                TransferResult.Status.COMPLETED
+        ), results.stream().map(TransferResult::status).toList());
+        verify(accountJdbcRepository, times(1)).updateBalances(new TreeMap<>(Map.of(1L, 15_000L, 2L, 0L)));
+        verify(ledgerService, times(1)).recordTransfers(List.of(
+                new TransferRequest(1L, 2L, 7000),
+                new TransferRequest(2L, 1L, 12_000)));
     }
 
     @Test
     void deleteAccount_AccountExists_ShouldDeleteAccount() {
-        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
 
         accountService.deleteAccount(1L);
 
-        verify(accountRepository, times(1)).existsById(1L);
-        verify(accountRepository, times(1)).deleteById(1L);
+        verify(accountRepository, times(1)).delete(account);
+        verify(accountAggregates, times(1)).accountDeleted(10_000);
+        verify(accountNameIndex, times(1)).removeAfterCommit(account);
+        verify(hotAccountBalances, times(1)).remove(1L);
+        verify(accountCache, times(1)).evict(1L);
     }
 
     @Test
     void deleteAccount_AccountDoesNotExist_ShouldThrowException() {
-        when(accountRepository.existsById(1L)).thenReturn(false);
+        when(accountRepository.findById(1L)).thenReturn(Optional.empty());
 
         AccountException exception = assertThrows(AccountException.class, () -> accountService.deleteAccount(1L));
 
         assertEquals("Account doesn't exist", exception.getMessage());
-        verify(accountRepository, times(1)).existsById(1L);
+        verify(accountRepository, never()).delete(any(Account.class));
+    }
+
+    private void runInTransaction() {
+        when(retryingTransactionExecutor.execute(any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.exception.RateLimitedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+    // A nanoTime reading can be anything, negative included.
+    private static final long START = -5_000_000_000L;
+
+    @Test
+    void testAccountBucketAllowsBurstThenRefills() {
+        AdmissionControl admissionControl = new AdmissionControl(10, 3, 1000, 1000, 64, 1000);
+        AtomicLong now = new AtomicLong(START);
+        admissionControl.setTicker(now::get);
+
+        for (int i = 0; i < 3; i++) {
+            admissionControl.run(1L, () -> { });
+        }
+        RateLimitedException exception = assertThrows(RateLimitedException.class, () -> admissionControl.run(1L, () -> { }));
+        assertEquals(Duration.ofMillis(100), exception.getRetryAfter());
+        // Another account has a bucket of its own.
+        admissionControl.run(2L, () -> { });
+
+        now.addAndGet(Duration.ofMillis(100).toNanos());
+        admissionControl.run(1L, () -> { });
+        assertThrows(RateLimitedException.class, () -> admissionControl.run(1L, () -> { }));
+        assertEquals(2, admissionControl.getRejectedCount());
+    }
+
+    @Test
+    void testGlobalBucketCoversAllAccounts() {
+        AdmissionControl admissionControl = new AdmissionControl(1000, 1000, 1, 2, 64, 1000);
+        admissionControl.setTicker(() -> START);
+
+        admissionControl.run(1L, () -> { });
+        admissionControl.run(null, () -> { });
+        RateLimitedException exception = assertThrows(RateLimitedException.class, () -> admissionControl.run(3L, () -> { }));
+        assertEquals(Duration.ofSeconds(1), exception.getRetryAfter());
+    }
+
+    @Test
+    void testGlobalRejectionRefundsAccountToken() {
+        AdmissionControl admissionControl = new AdmissionControl(0.5, 1, 1, 1, 64, 1000);
+        AtomicLong now = new AtomicLong(START);
+        admissionControl.setTicker(now::get);
+
+        admissionControl.run(1L, () -> { });
+        assertThrows(RateLimitedException.class, () -> admissionControl.run(2L, () -> { }));
+
+        // Account 2 was only turned away by the global bucket, so its own token is still there.
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        admissionControl.run(2L, () -> { });
+    }
+
+    @Test
+    void testConcurrencyLimitHeldUntilActionCompletes() {
+        AdmissionControl admissionControl = new AdmissionControl(1000, 1000, 1000, 1000, 2, 1000);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+
+        CompletableFuture<String> firstResult = admissionControl.runAsync(1L, () -> first);
+        admissionControl.runAsync(2L, () -> second);
+        assertThrows(RateLimitedException.class, () -> admissionControl.run(3L, () -> { }));
+        assertEquals(2, admissionControl.getInFlight());
+
+        first.complete("done");
+        assertEquals("done", firstResult.join());
+        assertEquals(1, admissionControl.getInFlight());
+        assertEquals("sync", admissionControl.run(3L, () -> "sync"));
+        assertThrows(IllegalStateException.class, () -> admissionControl.run(3L, () -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertEquals(1, admissionControl.getInFlight());
+        second.completeExceptionally(new IllegalStateException("failed"));
+        assertEquals(0, admissionControl.getInFlight());
+    }
+
+    @Test
+    void testTrackedAccountsStayBounded() {
+        AdmissionControl admissionControl = new AdmissionControl(1000, 1000, 1_000_000, 1_000_000, 64, 100);
+
+        for (long id = 1; id <= 10_000; id++) {
+            admissionControl.run(id, () -> { });
+        }
+        admissionControl.cleanUp();
+        assertEquals(0, admissionControl.getRejectedCount());
+        assertTrue(admissionControl.getTrackedAccounts() <= 100);
+    }
+}
@@ -0,0 +1,146 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.service.AccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DepositCoalescerTest {
+
+    @Mock
+    private AccountService accountService;
+
+    private DepositCoalescer depositCoalescer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        depositCoalescer.shutdown();
+    }
+
+    @Test
+    void addDeposit_Disabled_ShouldCallServiceDirectly() throws Exception {
+        depositCoalescer = new DepositCoalescer(accountService, false, Duration.ofMillis(5), 10);
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 15_000);
+        when(accountService.addDeposit(1L, 5000)).thenReturn(accountDto);
+
+        assertEquals(accountDto, depositCoalescer.addDeposit(1L, 5000).get());
+        verify(accountService, never()).addDeposits(any());
+    }
+
+    @Test
+    void addDeposit_FullBatch_ShouldBeWrittenWithoutWaitingForWindow() throws Exception {
+        depositCoalescer = new DepositCoalescer(accountService, true, Duration.ofMinutes(1), 3);
+        AccountDto first = new AccountDto(1L, "John Doe", 13_000);
+        AccountDto second = new AccountDto(2L, "Jane Smith", 7000);
+        when(accountService.addDeposits(List.of(
+                new DepositRequest(1L, 1000),
+                new DepositRequest(2L, 2000),
+                new DepositRequest(1L, 2000))))
+                .thenReturn(Map.of(1L, first, 2L, second));
+
+        CompletableFuture<AccountDto> a = depositCoalescer.addDeposit(1L, 1000);
+        CompletableFuture<AccountDto> b = depositCoalescer.addDeposit(2L, 2000);
+        CompletableFuture<AccountDto> c = depositCoalescer.addDeposit(1L, 2000);
+
+        assertEquals(first, a.get(5, TimeUnit.SECONDS));
+        assertEquals(second, b.get(5, TimeUnit.SECONDS));
+        assertEquals(first, c.get(5, TimeUnit.SECONDS));
+        assertEquals(1, depositCoalescer.getBatchCount());
+        assertEquals(3, depositCoalescer.getDepositCount());
+    }
+
+    @Test
+    void addDeposit_AfterShutdown_ShouldBeWrittenByCaller() throws Exception {
+        depositCoalescer = new DepositCoalescer(accountService, true, Duration.ofMinutes(1), 10);
+        depositCoalescer.shutdown();
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 11_000);
+        when(accountService.addDeposits(List.of(new DepositRequest(1L, 1000)))).thenReturn(Map.of(1L, accountDto));
+
+        assertEquals(accountDto, depositCoalescer.addDeposit(1L, 1000).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void addDeposit_NonPositiveAmount_ShouldBeRejectedBeforeQueueing() {
+        depositCoalescer = new DepositCoalescer(accountService, true, Duration.ofMinutes(1), 1);
+
+        assertEquals("Amount should be positive",
+                assertThrows(AccountException.class, () -> depositCoalescer.addDeposit(1L, 0)).getMessage());
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void addDeposit_PartialBatch_ShouldBeWrittenAfterWindow() throws Exception {
+        depositCoalescer = new DepositCoalescer(accountService, true, Duration.ofMillis(20), 100);
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 11_000);
+        when(accountService.addDeposits(List.of(new DepositRequest(1L, 1000)))).thenReturn(Map.of(1L, accountDto));
+
+        assertEquals(accountDto, depositCoalescer.addDeposit(1L, 1000).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void addDeposit_MissingAccount_ShouldFailOnlyItsCallers() throws Exception {
+        depositCoalescer = new DepositCoalescer(accountService, true, Duration.ofMinutes(1), 2);
+        AccountDto accountDto = new AccountDto(1L, "John Doe", 11_000);
+        when(accountService.addDeposits(any())).thenReturn(Map.of(1L, accountDto));
+
+        CompletableFuture<AccountDto> existing = depositCoalescer.addDeposit(1L, 1000);
+        CompletableFuture<AccountDto> missing = depositCoalescer.addDeposit(9L, 1000);
+
+        assertEquals(accountDto, existing.get(5, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AccountException.class, exception.getCause());
+        assertEquals("Account doesn't exist", exception.getCause().getMessage());
+    }
+
+    @Test
+    void addDeposit_BatchWithDatabaseDown_ShouldFailEveryCaller() {
+        depositCoalescer = new DepositCoalescer(accountService, true, Duration.ofMinutes(1), 2);
+        CannotCreateTransactionException failure = new CannotCreateTransactionException("database is down");
+        when(accountService.addDeposits(any())).thenThrow(failure);
+
+        CompletableFuture<AccountDto> a = depositCoalescer.addDeposit(1L, 1000);
+        CompletableFuture<AccountDto> b = depositCoalescer.addDeposit(2L, 1000);
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> a.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> b.get(5, TimeUnit.SECONDS)).getCause());
+        verify(accountService, never()).addDeposit(any(), anyLong());
+    }
+
+    @Test
+    void addDeposit_PoisonedDepositInBatch_ShouldFailOnlyItsCaller() throws Exception {
+        depositCoalescer = new DepositCoalescer(accountService, true, Duration.ofMinutes(1), 3);
+        AccountException overflow = new AccountException("Amount is out of range");
+        AccountDto first = new AccountDto(1L, "John Doe", 11_000);
+        AccountDto third = new AccountDto(3L, "Jane Smith", 6_000);
+        when(accountService.addDeposits(any())).thenThrow(overflow);
+        when(accountService.addDeposit(1L, 1000)).thenReturn(first);
+        when(accountService.addDeposit(2L, Long.MAX_VALUE)).thenThrow(overflow);
+        when(accountService.addDeposit(3L, 1000)).thenReturn(third);
+
+        CompletableFuture<AccountDto> a = depositCoalescer.addDeposit(1L, 1000);
+        CompletableFuture<AccountDto> poisoned = depositCoalescer.addDeposit(2L, Long.MAX_VALUE);
+        CompletableFuture<AccountDto> c = depositCoalescer.addDeposit(3L, 1000);
+
+        assertEquals(first, a.get(5, TimeUnit.SECONDS));
+        assertEquals(third, c.get(5, TimeUnit.SECONDS));
+        assertSame(overflow, assertThrows(ExecutionException.class, () -> poisoned.get(5, TimeUnit.SECONDS)).getCause());
+    }
+}
@@ -0,0 +1,124 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.EndOfDayReport;
+import com.sergeymars.banking_app.entity.EndOfDayChunk;
+import com.sergeymars.banking_app.exception.EndOfDayConflictException;
+import com.sergeymars.banking_app.repository.EndOfDayChunkRepository;
+import com.sergeymars.banking_app.service.AccountService;
+import com.sergeymars.banking_app.service.LedgerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+// 3650 bps a year over 365 days is 0.1% a day.
+@SpringBootTest(properties = {
+        "banking.eod.interest-rate-bps=3650",
+        "banking.eod.maintenance-fee=50",
+        "banking.eod.chunk-size=2",
+        "banking.eod.parallelism=3"
+})
+class EndOfDayBatchTest {
+
+    @Autowired
+    private EndOfDayBatch endOfDayBatch;
+
+    @Autowired
+    private EndOfDayChunkRepository endOfDayChunkRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @SpyBean
+    private LedgerService ledgerService;
+
+    @Test
+    void run_ShouldApplyInterestAndFeeOncePerBusinessDate() {
+        Long rich = accountService.createAccount(new AccountDto(null, "Rich", 100_000)).id();
+        Long poor = accountService.createAccount(new AccountDto(null, "Poor", 30)).id();
+        Long empty = accountService.createAccount(new AccountDto(null, "Empty", 0)).id();
+        LocalDate businessDate = LocalDate.of(2024, 1, 1);
+
+        EndOfDayReport report = endOfDayBatch.run(businessDate);
+
+        assertEquals(0, report.failedChunks());
+        assertEquals(report.totalChunks(), report.skippedChunks() + report.chunks().size());
+        assertEquals(100_050, accountService.getAccountById(rich).balance());
+        assertEquals(0, accountService.getAccountById(poor).balance());
+        assertEquals(0, accountService.getAccountById(empty).balance());
+        for (Long id : List.of(rich, poor, empty)) {
+            assertEquals(accountService.getAccountById(id).balance(), ledgerService.getLedgerBalance(id));
+        }
+
+        EndOfDayReport rerun = endOfDayBatch.run(businessDate);
+
+        assertEquals(rerun.totalChunks(), rerun.skippedChunks());
+        assertTrue(rerun.chunks().isEmpty());
+        assertEquals(100_050, accountService.getAccountById(rich).balance());
+    }
+
+    @Test
+    void run_ShouldResumeAfterCheckpointedChunks() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(accountService.createAccount(new AccountDto(null, "Holder " + i, 10_000)).id());
+        }
+        LocalDate businessDate = LocalDate.of(2024, 1, 2);
+        // A previous run got as far as the chunk holding the first account before it died.
+        long chunkFrom = Math.floorDiv(ids.get(0), 2) * 2;
+        endOfDayChunkRepository.save(new EndOfDayChunk(null, businessDate, chunkFrom, chunkFrom + 1, 1, 10, 50, 1, Instant.now()));
+
+        EndOfDayReport report = endOfDayBatch.run(businessDate);
+
+        assertTrue(report.skippedChunks() >= 1);
+        assertEquals(10_000, accountService.getAccountById(ids.get(0)).balance());
+        assertEquals(9_960, accountService.getAccountById(ids.get(3)).balance());
+        assertTrue(report.chunks().stream().noneMatch(chunk -> chunk.fromId() == chunkFrom));
+    }
+
+    @Test
+    void run_WithCheckpointsOfAnotherChunkSize_ShouldRefuseToResume() {
+        Long id = accountService.createAccount(new AccountDto(null, "Resumed", 10_000)).id();
+        LocalDate businessDate = LocalDate.of(2024, 1, 3);
+        // A previous run with a chunk size of 4 got as far as the chunk holding the account.
+        long chunkFrom = Math.floorDiv(id, 4) * 4;
+        endOfDayChunkRepository.save(new EndOfDayChunk(null, businessDate, chunkFrom, chunkFrom + 3, 1, 10, 50, 1, Instant.now()));
+
+        assertThrows(EndOfDayConflictException.class, () -> endOfDayBatch.run(businessDate));
+        assertEquals(10_000, accountService.getAccountById(id).balance());
+    }
+
+    @Test
+    void run_WhenLedgerInsertViolatesConstraint_ShouldCountChunksAsFailed() {
+        Long id = accountService.createAccount(new AccountDto(null, "Broken", 10_000)).id();
+        LocalDate businessDate = LocalDate.of(2024, 1, 4);
+        doThrow(new DataIntegrityViolationException("ledger_entries check"))
+                .when(ledgerService).recordEndOfDay(any(), any());
+
+        EndOfDayReport report = endOfDayBatch.run(businessDate);
+
+        assertEquals(report.totalChunks(), report.failedChunks());
+        assertEquals(0, report.skippedChunks());
+        assertTrue(endOfDayChunkRepository.findRangesByBusinessDate(businessDate).isEmpty());
+        assertEquals(10_000, accountService.getAccountById(id).balance());
+    }
+
+    @Test
+    void interest_ShouldRoundDownWithoutOverflow() {
+        assertEquals(0, endOfDayBatch.interest(999));
+        assertEquals(1, endOfDayBatch.interest(1_000));
+        assertEquals(0, endOfDayBatch.interest(-1_000_000));
+        assertEquals(Long.MAX_VALUE / 1_000, endOfDayBatch.interest(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,92 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.repository.AccountBalanceSlotRepository;
+import com.sergeymars.banking_app.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(HotAccountBalances.class)
+class HotAccountBalancesTest {
+
+    @Autowired
+    private HotAccountBalances hotAccountBalances;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository accountBalanceSlotRepository;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        account = accountRepository.saveAndFlush(new Account(null, "Merchant", 10_000));
+    }
+
+    @Test
+    void credit_HotAccount_ShouldLandInSlotsAndShowInVisibleBalance() {
+        hotAccountBalances.enable(account, 4);
+        accountRepository.flush();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(hotAccountBalances.credit(account.getId(), 500));
+        }
+
+        assertEquals(4, accountBalanceSlotRepository.findByAccountIdForUpdate(account.getId()).size());
+        assertEquals(5000, hotAccountBalances.slotTotal(account.getId()));
+        assertEquals(15_000, accountRepository.findWithSlotBalanceById(account.getId()).orElseThrow().balance());
+        assertEquals(Map.of(account.getId(), 5000L), hotAccountBalances.slotTotals(List.of(account.getId())));
+    }
+
+    @Test
+    void credit_RegularAccount_ShouldFallBackToAccountRow() {
+        assertFalse(hotAccountBalances.credit(account.getId(), 500));
+    }
+
+    @Test
+    void drain_ShouldEmptySlotsAndReturnTheirTotal() {
+        hotAccountBalances.enable(account, 2);
+        hotAccountBalances.credit(account.getId(), 3000);
+        hotAccountBalances.credit(account.getId(), 2000);
+
+        assertEquals(5000, hotAccountBalances.drain(account.getId()));
+        accountBalanceSlotRepository.flush();
+        assertEquals(0, hotAccountBalances.slotTotal(account.getId()));
+    }
+
+    @Test
+    void disable_ShouldFoldSlotsIntoAccountBalance() {
+        hotAccountBalances.enable(account, 3);
+        hotAccountBalances.credit(account.getId(), 2500);
+
+        Account locked = accountRepository.findByIdForUpdate(account.getId()).orElseThrow();
+        hotAccountBalances.disable(locked);
+        accountRepository.flush();
+
+        assertEquals(12_500, locked.getBalance());
+        assertEquals(0, locked.getBalanceSlots());
+        assertFalse(hotAccountBalances.isHot(account.getId()));
+        assertTrue(accountBalanceSlotRepository.findByAccountIdForUpdate(account.getId()).isEmpty());
+    }
+
+    @Test
+    void refresh_ShouldLoadHotAccountsFromDatabase() {
+        account.setBalanceSlots(2);
+        accountRepository.saveAndFlush(account);
+
+        hotAccountBalances.refresh();
+
+        assertTrue(hotAccountBalances.isHot(account.getId()));
+    }
+}
@@ -0,0 +1,244 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.exception.IdempotencyKeyException;
+import com.sergeymars.banking_app.exception.IdempotencyKeyInProgressException;
+import com.sergeymars.banking_app.repository.IdempotencyKeyRepository;
+import com.sergeymars.banking_app.service.AccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest(properties = "banking.idempotency.pending-wait=200ms")
+class IdempotencyStoreTest {
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private RetryingTransactionExecutor retryingTransactionExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JavaType accountType;
+    private Long accountId;
+
+    @BeforeEach
+    void setUp() {
+        accountType = objectMapper.constructType(AccountDto.class);
+        accountId = accountService.createAccount(new AccountDto(null, "Holder", 100_000)).id();
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyStore.setClock(Clock.systemUTC());
+        idempotencyStore.evictCache();
+    }
+
+    @Test
+    void execute_WithSameKey_ShouldWithdrawOnceAndReplayResponse() {
+        String key = UUID.randomUUID().toString();
+
+        AccountDto first = withdraw(key, 10_000);
+        AccountDto replayed = withdraw(key, 10_000);
+        idempotencyStore.evictCache();
+        AccountDto fromTable = withdraw(key, 10_000);
+
+        assertEquals(90_000, first.balance());
+        assertEquals(first, replayed);
+        assertEquals(first, fromTable);
+        assertEquals(90_000, accountService.getAccountById(accountId).balance());
+    }
+
+    @Test
+    void execute_WithKeyOfDifferentRequest_ShouldThrow() {
+        String key = UUID.randomUUID().toString();
+        withdraw(key, 10_000);
+
+        assertThrows(IdempotencyKeyException.class, () -> withdraw(key, 20_000));
+        assertEquals(90_000, accountService.getAccountById(accountId).balance());
+    }
+
+    @Test
+    void execute_WhenOperationFails_ShouldNotStoreKey() {
+        String key = UUID.randomUUID().toString();
+
+        assertThrows(RuntimeException.class, () -> withdraw(key, 1_000_000));
+
+        assertTrue(idempotencyKeyRepository.findById(key).isEmpty());
+        assertEquals(90_000, withdraw(key, 10_000).balance());
+    }
+
+    @Test
+    void execute_WithConcurrentDuplicates_ShouldWithdrawOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AccountDto>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return withdraw(key, 10_000);
+            }));
+        }
+        start.countDown();
+        for (Future<AccountDto> future : futures) {
+            assertEquals(90_000, future.get().balance());
+        }
+        pool.shutdown();
+
+        assertEquals(90_000, accountService.getAccountById(accountId).balance());
+    }
+
+    @Test
+    void execute_WithDuplicateOfRunningRequest_ShouldWaitWithoutBlockingAndShareResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String fingerprint = "withdraw_deposit " + accountId + " 10000";
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<AccountDto> first = pool.submit(() -> idempotencyStore.execute(key, fingerprint, accountType, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return accountService.withdrawDeposit(accountId, 10_000);
+        }).join());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<AccountDto> duplicate = idempotencyStore.execute(key, fingerprint, accountType,
+                () -> accountService.withdrawDeposit(accountId, 10_000));
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        assertEquals(90_000, first.get().balance());
+        assertEquals(first.get(), duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(90_000, accountService.getAccountById(accountId).balance());
+        pool.shutdown();
+    }
+
+    @Test
+    void execute_WithDuplicateOfSlowRequest_ShouldReportInProgressAfterPendingWait() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String fingerprint = "withdraw_deposit " + accountId + " 10000";
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<AccountDto> first = pool.submit(() -> idempotencyStore.execute(key, fingerprint, accountType, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return accountService.withdrawDeposit(accountId, 10_000);
+        }).join());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<AccountDto> duplicate = idempotencyStore.execute(key, fingerprint, accountType,
+                () -> accountService.withdrawDeposit(accountId, 10_000));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> duplicate.get(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertInstanceOf(IdempotencyKeyInProgressException.class, failure.getCause());
+        assertEquals(90_000, first.get().balance());
+        pool.shutdown();
+    }
+
+    @Test
+    void execute_WhenStoringResponseHitsLockFailure_ShouldRunOperationOnce() {
+        IdempotencyKeyRepository flaky = mock(IdempotencyKeyRepository.class, delegatesTo(idempotencyKeyRepository));
+        doThrow(new CannotAcquireLockException("lock timeout"))
+                .doAnswer(delegatesTo(idempotencyKeyRepository))
+                .when(flaky).complete(anyString(), anyString());
+        IdempotencyStore store = new IdempotencyStore(flaky, retryingTransactionExecutor, objectMapper,
+                100, Duration.ofHours(1), 100, Duration.ofMillis(200));
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+
+        AccountDto response = store.execute(key, "withdraw_deposit " + accountId + " 10000", accountType, () -> {
+            runs.incrementAndGet();
+            return accountService.withdrawDeposit(accountId, 10_000);
+        }).join();
+
+        assertEquals(1, runs.get());
+        assertEquals(90_000, response.balance());
+        assertEquals(90_000, accountService.getAccountById(accountId).balance());
+        assertNotNull(idempotencyKeyRepository.findById(key).orElseThrow().getResponseBody());
+    }
+
+    @Test
+    void execute_WhileKeyIsReserved_ShouldNotRunAndReportInProgress() {
+        String key = UUID.randomUUID().toString();
+        String fingerprint = "withdraw_deposit " + accountId + " 10000";
+        Instant now = Instant.now();
+        retryingTransactionExecutor.execute(() -> idempotencyKeyRepository.insert(key, fingerprint, null, now, now.plus(Duration.ofDays(1))));
+
+        assertThrows(IdempotencyKeyInProgressException.class, () -> withdraw(key, 10_000));
+        assertThrows(IdempotencyKeyException.class, () -> withdraw(key, 20_000));
+        assertEquals(100_000, accountService.getAccountById(accountId).balance());
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteOnlyExpiredKeys() {
+        String key = UUID.randomUUID().toString();
+        withdraw(key, 10_000);
+
+        assertEquals(0, idempotencyStore.purgeExpired());
+
+        idempotencyStore.setClock(Clock.fixed(Instant.now().plus(Duration.ofDays(2)), ZoneOffset.UTC));
+        assertTrue(idempotencyStore.purgeExpired() >= 1);
+        assertTrue(idempotencyKeyRepository.findById(key).isEmpty());
+
+        // Past its expiry the key is free again, so the same request moves the money a second time.
+        assertEquals(80_000, withdraw(key, 10_000).balance());
+    }
+
+    private AccountDto withdraw(String key, long amount) {
+        try {
+            return idempotencyStore.execute(key, "withdraw_deposit " + accountId + " " + amount, accountType,
+                    () -> accountService.withdrawDeposit(accountId, amount)).join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
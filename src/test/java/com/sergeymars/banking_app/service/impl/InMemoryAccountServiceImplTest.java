@@ -0,0 +1,288 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountSearchPage;
+import com.sergeymars.banking_app.dto.AccountVersion;
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferResult;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import com.sergeymars.banking_app.exception.OperationNotAvailableException;
+import com.sergeymars.banking_app.repository.AccountJdbcRepository;
+import com.sergeymars.banking_app.repository.AccountRepository;
+import com.sergeymars.banking_app.repository.InMemoryAccountRepository;
+import com.sergeymars.banking_app.repository.JournalCheckpointRepository;
+import com.sergeymars.banking_app.service.AccountService;
+import com.sergeymars.banking_app.service.LedgerService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("in-memory")
+class InMemoryAccountServiceImplTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalPath(DynamicPropertyRegistry registry) {
+        registry.add("banking.in-memory.journal-path", () -> journalDirectory.resolve("balance.journal").toString());
+    }
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountJdbcRepository accountJdbcRepository;
+
+    @Autowired
+    private InMemoryAccountRepository inMemoryAccountRepository;
+
+    @Autowired
+    private JournalCheckpointRepository journalCheckpointRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private RetryingTransactionExecutor retryingTransactionExecutor;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void accountService_ShouldBeTheInMemoryEngine() {
+        assertInstanceOf(InMemoryAccountServiceImpl.class, AopTestUtils.getUltimateTargetObject(accountService));
+    }
+
+    @Test
+    void depositAndWithdraw_ShouldChangeBalance() {
+        Long id = accountService.createAccount(new AccountDto(null, "John", 10_000)).id();
+
+        assertEquals(15_000, accountService.addDeposit(id, 5_000).balance());
+        assertEquals(12_000, accountService.withdrawDeposit(id, 3_000).balance());
+        assertEquals(12_000, accountService.getAccountById(id).balance());
+        InsufficientFundsException exception = assertThrows(InsufficientFundsException.class,
+                () -> accountService.withdrawDeposit(id, 20_000));
+        assertEquals("Insufficient money", exception.getMessage());
+        assertEquals(12_000, accountService.getAccountById(id).balance());
+    }
+
+    @Test
+    void missingAccount_ShouldThrowLikeTheDatabaseService() {
+        AccountException exception = assertThrows(AccountNotFoundException.class, () -> accountService.getAccountById(-1L));
+        assertEquals("Account doesn't exist", exception.getMessage());
+        assertThrows(AccountNotFoundException.class, () -> accountService.addDeposit(-1L, 5_000));
+        assertThrows(AccountNotFoundException.class, () -> accountService.withdrawDeposit(-1L, 5_000));
+        assertThrows(AccountNotFoundException.class, () -> accountService.deleteAccount(-1L));
+    }
+
+    @Test
+    void transferMoneyTo_ShouldMoveMoneyAndRejectInvalidTransfers() {
+        Long fromId = accountService.createAccount(new AccountDto(null, "From", 10_000)).id();
+        Long toId = accountService.createAccount(new AccountDto(null, "To", 10_000)).id();
+
+        List<AccountDto> result = accountService.transferMoneyTo(fromId, toId, 4_000);
+
+        assertEquals(6_000, result.get(0).balance());
+        assertEquals(14_000, result.get(1).balance());
+        assertEquals("Ids should be different",
+                assertThrows(AccountException.class, () -> accountService.transferMoneyTo(fromId, fromId, 1)).getMessage());
+        assertEquals("Amount should be positive",
+                assertThrows(AccountException.class, () -> accountService.transferMoneyTo(fromId, toId, -1)).getMessage());
+        assertEquals("Amount should be positive",
+                assertThrows(AccountException.class, () -> accountService.addDeposit(fromId, 0)).getMessage());
+        assertEquals("Amount should be positive",
+                assertThrows(AccountException.class, () -> accountService.withdrawDeposit(fromId, -1)).getMessage());
+        assertEquals("Insufficient money",
+                assertThrows(AccountException.class, () -> accountService.transferMoneyTo(fromId, toId, 20_000)).getMessage());
+        assertEquals("Account want you transfer money doesn't exist to",
+                assertThrows(AccountException.class, () -> accountService.transferMoneyTo(fromId, -1L, 1_000)).getMessage());
+    }
+
+    @Test
+    void transferBatch_ShouldApplyValidItemsAndReportRejectedOnes() {
+        Long first = accountService.createAccount(new AccountDto(null, "First", 10_000)).id();
+        Long second = accountService.createAccount(new AccountDto(null, "Second", 1_000)).id();
+
+        List<TransferResult> results = accountService.transferBatch(List.of(
+                new TransferRequest(first, second, 3_000),
+                new TransferRequest(second, first, 50_000),
+                new TransferRequest(first, -1L, 100),
+                new TransferRequest(first, first, 100)));
+
+        assertEquals(List.of(TransferResult.Status.COMPLETED, TransferResult.Status.INSUFFICIENT_FUNDS,
+                        TransferResult.Status.ACCOUNT_NOT_FOUND, TransferResult.Status.INVALID),
+                results.stream().map(TransferResult::status).toList());
+        assertEquals(7_000, accountService.getAccountById(first).balance());
+        assertEquals(4_000, accountService.getAccountById(second).balance());
+    }
+
+    @Test
+    void addDeposits_ShouldSkipMissingAccounts() {
+        Long id = accountService.createAccount(new AccountDto(null, "Deposits", 0)).id();
+
+        Map<Long, AccountDto> accounts = accountService.addDeposits(List.of(
+                new DepositRequest(id, 100), new DepositRequest(-1L, 100), new DepositRequest(id, 250)));
+
+        assertEquals(Map.of(id, new AccountDto(id, "Deposits", 350)), accounts);
+    }
+
+    @Test
+    void createAccounts_WithOneInvalidAccount_ShouldCreateNone() {
+        String prefix = "Batch " + UUID.randomUUID();
+        List<AccountDto> accounts = List.of(new AccountDto(null, prefix + " valid", 1_000),
+                new AccountDto(null, prefix + " " + "x".repeat(InMemoryAccountServiceImpl.MAX_HOLDER_NAME_LENGTH), 1_000));
+
+        assertEquals("Account holder name is too long",
+                assertThrows(AccountException.class, () -> accountService.createAccounts(accounts)).getMessage());
+        assertEquals("Account holder name is too long",
+                assertThrows(AccountException.class, () -> accountService.importAccounts(accounts.iterator())).getMessage());
+        assertTrue(accountService.searchByHolderName(prefix, null, null, 10).content().isEmpty());
+    }
+
+    @Test
+    void withdrawDeposit_WithConcurrentDuplicateKeys_ShouldWithdrawOnce() throws Exception {
+        Long id = accountService.createAccount(new AccountDto(null, "Keyed", 100_000)).id();
+        String key = UUID.randomUUID().toString();
+        JavaType accountType = objectMapper.constructType(AccountDto.class);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AccountDto>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return idempotencyStore.execute(key, "withdraw_deposit " + id + " 10000", accountType,
+                        () -> accountService.withdrawDeposit(id, 10_000)).join();
+            }));
+        }
+        start.countDown();
+        for (Future<AccountDto> future : futures) {
+            assertEquals(90_000, future.get().balance());
+        }
+        pool.shutdown();
+
+        assertEquals(90_000, accountService.getAccountById(id).balance());
+    }
+
+    @Test
+    void aggregatesAndHotMode_ShouldNotBeAvailable() {
+        Long id = accountService.createAccount(new AccountDto(null, "Unavailable", 10_000)).id();
+
+        assertThrows(OperationNotAvailableException.class, () -> accountService.getAggregates());
+        assertThrows(OperationNotAvailableException.class, () -> accountService.enableHotMode(id, 4));
+        assertThrows(OperationNotAvailableException.class, () -> accountService.disableHotMode(id));
+    }
+
+    @Test
+    void pagingAndSearch_ShouldFollowIdAndNameOrder() {
+        String prefix = "Engine " + UUID.randomUUID();
+        List<AccountDto> created = accountService.createAccounts(List.of(
+                new AccountDto(null, prefix + " b", 1), new AccountDto(null, prefix.toUpperCase() + " A", 2),
+                new AccountDto(null, prefix + " c", 3)));
+        accountService.deleteAccount(created.get(2).id());
+
+        KeysetPage<AccountDto> page = accountService.getAccountsPage(created.get(0).id() - 1, 1);
+        AccountSearchPage search = accountService.searchByHolderName(prefix, null, null, 1);
+        AccountSearchPage nextSearch = accountService.searchByHolderName(prefix, search.nextName(), search.nextId(), 5);
+
+        assertEquals(List.of(created.get(0)), page.content());
+        assertEquals(created.get(0).id(), page.next());
+        assertEquals(List.of(created.get(1)), search.content());
+        assertEquals(List.of(created.get(0)), nextSearch.content());
+        assertNull(nextSearch.nextId());
+    }
+
+    @Test
+    void persister_ShouldWriteBalancesAndLedgerToDatabase() throws InterruptedException {
+        Long fromId = accountService.createAccount(new AccountDto(null, "Persisted", 10_000)).id();
+        Long toId = accountService.createAccount(new AccountDto(null, "Persisted too", 0)).id();
+        accountService.transferMoneyTo(fromId, toId, 2_500);
+        accountService.addDeposit(toId, 500);
+
+        awaitDatabaseBalance(toId, 3_000);
+
+        assertEquals(7_500, accountRepository.findById(fromId).orElseThrow().getBalance());
+        assertEquals(7_500, ledgerService.getLedgerBalance(fromId));
+        assertEquals(3_000, ledgerService.getLedgerBalance(toId));
+    }
+
+    // A second engine over a journal of its own; its persister never gets to run before the crash.
+    @Test
+    void start_AfterCrash_ShouldReplayJournalIntoMemoryAndDatabase() throws InterruptedException {
+        String journal = journalDirectory.resolve("crash-" + UUID.randomUUID() + ".journal").toString();
+        InMemoryAccountServiceImpl engine = newEngine(journal);
+        engine.start();
+        Long fromId = engine.createAccount(new AccountDto(null, "Crash from", 10_000)).id();
+        Long toId = engine.createAccount(new AccountDto(null, "Crash to", 0)).id();
+        engine.transferMoneyTo(fromId, toId, 4_000);
+        engine.withdrawDeposit(fromId, 1_000);
+        engine.halt();
+        assertTrue(accountRepository.findById(fromId).isEmpty());
+
+        InMemoryAccountServiceImpl recovered = newEngine(journal);
+        recovered.start();
+        try {
+            assertEquals(5_000, recovered.getAccountById(fromId).balance());
+            assertEquals(4_000, recovered.getAccountById(toId).balance());
+            assertEquals(5_000, accountRepository.findById(fromId).orElseThrow().getBalance());
+            assertEquals(4_000, ledgerService.getLedgerBalance(toId));
+            assertEquals(4, recovered.getPersistedSequence());
+            assertEquals(new AccountVersion(2, 0), recovered.getAccountVersion(fromId));
+            assertEquals(2, accountRepository.findById(fromId).orElseThrow().getVersion());
+
+            recovered.addDeposit(toId, 100);
+            assertEquals(new AccountVersion(2, 0), recovered.getVersionedAccount(toId).version());
+        } finally {
+            recovered.shutdown();
+        }
+        assertEquals(4_100, accountRepository.findById(toId).orElseThrow().getBalance());
+        assertEquals(2, accountRepository.findById(toId).orElseThrow().getVersion());
+    }
+
+    private InMemoryAccountServiceImpl newEngine(String journal) {
+        return new InMemoryAccountServiceImpl(accountJdbcRepository, inMemoryAccountRepository, journalCheckpointRepository,
+                ledgerService, retryingTransactionExecutor, journal, 1 << 20, true, 16, 10_000, Duration.ofHours(1));
+    }
+
+    private void awaitDatabaseBalance(Long id, long balance) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (accountRepository.findById(id).map(account -> account.getBalance() == balance).orElse(false)) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Account " + id + " never reached " + balance + " in the database");
+    }
+}
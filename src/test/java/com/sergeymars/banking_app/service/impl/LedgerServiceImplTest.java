@@ -0,0 +1,110 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.DepositRequest;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.dto.LedgerEntryDto;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.entity.Account;
+import com.sergeymars.banking_app.entity.LedgerEntry;
+import com.sergeymars.banking_app.entity.LedgerEntryType;
+import com.sergeymars.banking_app.repository.BalanceSnapshotRepository;
+import com.sergeymars.banking_app.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(LedgerServiceImpl.class)
+class LedgerServiceImplTest {
+
+    @Autowired
+    private LedgerServiceImpl ledgerService;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Test
+    void getLedgerBalance_ShouldCombineSnapshotAndLaterEntries() {
+        ledgerService.recordOpenings(List.of(new Account(1L, "John Doe", 10_000)));
+        ledgerService.recordDeposit(1L, 5000);
+        ledgerService.snapshot(1L);
+        ledgerService.recordWithdrawal(1L, 3000);
+        ledgerService.recordTransfers(List.of(new TransferRequest(2L, 1L, 500)));
+
+        assertEquals(12_500, ledgerService.getLedgerBalance(1L));
+        assertEquals(15_000, balanceSnapshotRepository.findFirstByAccountIdOrderBySequenceNumberDesc(1L)
+                .orElseThrow().getBalance());
+        assertEquals(-500, ledgerService.getLedgerBalance(2L));
+    }
+
+    @Test
+    void snapshot_ShouldChainOnPreviousSnapshot() {
+        ledgerService.recordDeposit(1L, 1000);
+        ledgerService.snapshot(1L);
+        ledgerService.recordDeposit(1L, 2000);
+        ledgerService.snapshot(1L);
+        ledgerService.snapshot(1L);
+
+        var latest = balanceSnapshotRepository.findFirstByAccountIdOrderBySequenceNumberDesc(1L).orElseThrow();
+        assertEquals(2, latest.getSequenceNumber());
+        assertEquals(3000, latest.getBalance());
+        assertEquals(1, latest.getEntryCount());
+        assertEquals(2, latest.getLastSequenceNumber());
+        assertEquals(0, ledgerEntryRepository.sumAfter(1L, latest.getLastSequenceNumber()));
+        assertEquals(3000, ledgerService.getLedgerBalance(1L));
+    }
+
+    @Test
+    void snapshot_ShouldLeaveEntriesUntouched() {
+        ledgerService.recordDeposit(1L, 1000);
+        ledgerService.recordDeposits(List.of(new DepositRequest(1L, 2000), new DepositRequest(2L, 500)));
+        var before = ledgerEntryRepository.findAll(Sort.by("id"));
+
+        ledgerService.snapshot(1L);
+
+        assertEquals(List.of(1L, 2L, 1L), before.stream().map(LedgerEntry::getSequenceNumber).toList());
+        assertEquals(before.stream().map(LedgerEntry::getSequenceNumber).toList(),
+                ledgerEntryRepository.findAll(Sort.by("id")).stream().map(LedgerEntry::getSequenceNumber).toList());
+        assertEquals(2, balanceSnapshotRepository.findFirstByAccountIdOrderBySequenceNumberDesc(1L)
+                .orElseThrow().getLastSequenceNumber());
+    }
+
+    @Test
+    void getTransactions_ShouldPageNewestFirst() {
+        ledgerService.recordDeposit(1L, 1000);
+        ledgerService.recordDeposit(1L, 2000);
+        ledgerService.recordWithdrawal(1L, 500);
+        ledgerService.recordDeposit(2L, 9900);
+
+        KeysetPage<LedgerEntryDto> first = ledgerService.getTransactions(1L, null, 2);
+        KeysetPage<LedgerEntryDto> second = ledgerService.getTransactions(1L, first.next(), 2);
+
+        assertEquals(List.of(LedgerEntryType.WITHDRAWAL, LedgerEntryType.DEPOSIT),
+                first.content().stream().map(LedgerEntryDto::type).toList());
+        assertEquals(-500, first.content().get(0).amount());
+        assertNotNull(first.next());
+        assertEquals(1, second.content().size());
+        assertEquals(1000, second.content().get(0).amount());
+        assertNull(second.next());
+    }
+
+    @Test
+    void findAccountIdsWithUnsnapshottedEntries_ShouldApplyThreshold() {
+        ledgerService.recordDeposit(1L, 1000);
+        ledgerService.recordDeposit(1L, 1000);
+        ledgerService.recordDeposit(2L, 1000);
+
+        assertEquals(List.of(1L), ledgerEntryRepository.findAccountIdsWithUnsnapshottedEntries(List.of(1L, 2L), 2));
+        ledgerService.snapshot(1L);
+        assertEquals(List.of(), ledgerEntryRepository.findAccountIdsWithUnsnapshottedEntries(List.of(1L, 2L), 2));
+    }
+}
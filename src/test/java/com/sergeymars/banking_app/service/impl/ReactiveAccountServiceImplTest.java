@@ -0,0 +1,211 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import com.sergeymars.banking_app.service.LedgerService;
+import com.sergeymars.banking_app.service.ReactiveAccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("reactive")
+class ReactiveAccountServiceImplTest {
+
+    @Autowired
+    private ReactiveAccountService reactiveAccountService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void createAccount_ShouldAssignIdAndRecordOpening() {
+        AccountDto created = create("John Doe", 10_000);
+
+        assertNotNull(created.id());
+        StepVerifier.create(reactiveAccountService.getAccountById(created.id()))
+                .expectNext(new AccountDto(created.id(), "John Doe", 10_000))
+                .verifyComplete();
+        assertEquals(10_000, ledgerService.getLedgerBalance(created.id()));
+    }
+
+    @Test
+    void addDeposit_ShouldIncreaseBalance() {
+        Long id = create("John Doe", 10_000).id();
+
+        StepVerifier.create(reactiveAccountService.addDeposit(id, 5000))
+                .expectNext(new AccountDto(id, "John Doe", 15_000))
+                .verifyComplete();
+        assertEquals(15_000, ledgerService.getLedgerBalance(id));
+    }
+
+    @Test
+    void addDeposit_AccountDoesNotExist_ShouldFail() {
+        StepVerifier.create(reactiveAccountService.addDeposit(Long.MAX_VALUE, 5000))
+                .expectErrorSatisfies(error -> {
+                    assertInstanceOf(AccountNotFoundException.class, error);
+                    assertEquals("Account doesn't exist", error.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    void withdrawDeposit_InsufficientFunds_ShouldFailAndKeepBalance() {
+        Long id = create("John Doe", 10_000).id();
+
+        StepVerifier.create(reactiveAccountService.withdrawDeposit(id, 20_000))
+                .expectError(InsufficientFundsException.class)
+                .verify();
+        StepVerifier.create(reactiveAccountService.getAccountById(id))
+                .expectNext(new AccountDto(id, "John Doe", 10_000))
+                .verifyComplete();
+        assertEquals(10_000, ledgerService.getLedgerBalance(id));
+    }
+
+    @Test
+    void withdrawDeposit_HotAccountShortOnRowBalance_ShouldDrainSlots() {
+        Long id = create("Merchant", 1000).id();
+        addSlot(id, 0, 3000);
+        addSlot(id, 1, 2000);
+
+        StepVerifier.create(reactiveAccountService.withdrawDeposit(id, 4500))
+                .expectNext(new AccountDto(id, "Merchant", 1500))
+                .verifyComplete();
+        StepVerifier.create(reactiveAccountService.withdrawDeposit(id, 2000))
+                .expectError(InsufficientFundsException.class)
+                .verify();
+    }
+
+    @Test
+    void transferMoneyTo_ShouldMoveMoneyInBothDirections() {
+        Long first = create("John Doe", 10_000).id();
+        Long second = create("Jane Smith", 5000).id();
+
+        StepVerifier.create(reactiveAccountService.transferMoneyTo(first, second, 3000))
+                .expectNext(List.of(new AccountDto(first, "John Doe", 7000), new AccountDto(second, "Jane Smith", 8000)))
+                .verifyComplete();
+        StepVerifier.create(reactiveAccountService.transferMoneyTo(second, first, 8000))
+                .expectNext(List.of(new AccountDto(second, "Jane Smith", 0), new AccountDto(first, "John Doe", 15_000)))
+                .verifyComplete();
+        assertEquals(15_000, ledgerService.getLedgerBalance(first));
+        assertEquals(0, ledgerService.getLedgerBalance(second));
+    }
+
+    @Test
+    void transferMoneyTo_InvalidRequests_ShouldFail() {
+        Long id = create("John Doe", 10_000).id();
+
+        StepVerifier.create(reactiveAccountService.transferMoneyTo(id, id, 1000))
+                .expectErrorMessage("Ids should be different")
+                .verify();
+        StepVerifier.create(reactiveAccountService.transferMoneyTo(id, Long.MAX_VALUE, -1000))
+                .expectErrorMessage("Amount should be positive")
+                .verify();
+        StepVerifier.create(reactiveAccountService.addDeposit(id, 0))
+                .expectErrorMessage("Amount should be positive")
+                .verify();
+        StepVerifier.create(reactiveAccountService.withdrawDeposit(id, -1000))
+                .expectErrorMessage("Amount should be positive")
+                .verify();
+        StepVerifier.create(reactiveAccountService.transferMoneyTo(id, Long.MAX_VALUE, 1000))
+                .expectErrorMessage("Account want you transfer money doesn't exist to")
+                .verify();
+        StepVerifier.create(reactiveAccountService.transferMoneyTo(Long.MAX_VALUE, id, 1000))
+                .expectErrorMessage("Account from you want transfer money doesn't exist")
+                .verify();
+    }
+
+    @Test
+    void concurrentTransfers_ShouldPreserveTotalMoney() {
+        List<Long> ids = Flux.range(0, 4)
+                .concatMap(i -> reactiveAccountService.createAccount(new AccountDto(null, "Holder " + i, 100_000)))
+                .map(AccountDto::id)
+                .collectList()
+                .block();
+
+        Flux.range(0, 200)
+                .flatMap(i -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    Long from = ids.get(random.nextInt(ids.size()));
+                    Long to = ids.get(random.nextInt(ids.size()));
+                    return reactiveAccountService.transferMoneyTo(from, to, random.nextInt(1, 200))
+                            .onErrorResume(AccountException.class, e -> Mono.empty());
+                }, 16)
+                .blockLast();
+
+        long total = 0;
+        for (Long id : ids) {
+            long balance = reactiveAccountService.getAccountById(id).block().balance();
+            assertTrue(balance >= 0);
+            assertEquals(balance, ledgerService.getLedgerBalance(id));
+            total += balance;
+        }
+        assertEquals(400_000, total);
+    }
+
+    @Test
+    void getAllAccounts_ShouldStreamEveryAccount() {
+        Long id = create("John Doe", 10_000).id();
+
+        StepVerifier.create(reactiveAccountService.getAllAccounts().filter(account -> account.id().equals(id)))
+                .expectNext(new AccountDto(id, "John Doe", 10_000))
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteAccount_ShouldRemoveAccount() {
+        Long id = create("John Doe", 10_000).id();
+
+        StepVerifier.create(reactiveAccountService.deleteAccount(id)).verifyComplete();
+        StepVerifier.create(reactiveAccountService.getAccountById(id))
+                .expectError(AccountNotFoundException.class)
+                .verify();
+        StepVerifier.create(reactiveAccountService.deleteAccount(id))
+                .expectError(AccountNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getAccountsPage_ShouldReturnNextCursorUntilLastPage() {
+        Long first = create("Page one", 100).id();
+        Long second = create("Page two", 200).id();
+        Long third = create("Page three", 300).id();
+
+        KeysetPage<AccountDto> page = reactiveAccountService.getAccountsPage(first - 1, 2).block();
+        assertEquals(List.of(first, second), page.content().stream().map(AccountDto::id).toList());
+        assertEquals(second, page.next());
+
+        KeysetPage<AccountDto> last = reactiveAccountService.getAccountsPage(second, 2).block();
+        assertEquals(third, last.content().get(0).id());
+        assertNull(last.next());
+    }
+
+    private AccountDto create(String name, long balance) {
+        return reactiveAccountService.createAccount(new AccountDto(null, name, balance)).block();
+    }
+
+    private void addSlot(Long accountId, int slot, long balance) {
+        databaseClient.sql("insert into account_balance_slots (account_id, slot, balance_minor) values (:accountId, :slot, :balance)")
+                .bind("accountId", accountId)
+                .bind("slot", slot)
+                .bind("balance", balance)
+                .then()
+                .block();
+    }
+}
@@ -0,0 +1,255 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sergeymars.banking_app.cache.AccountCache;
+import com.sergeymars.banking_app.config.AccountShards;
+import com.sergeymars.banking_app.config.AccountShards.Shard;
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.AccountSearchPage;
+import com.sergeymars.banking_app.dto.KeysetPage;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.AccountNotFoundException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import com.sergeymars.banking_app.exception.OperationNotAvailableException;
+import com.sergeymars.banking_app.repository.ShardedAccountRepository;
+import com.sergeymars.banking_app.repository.ShardedAccountRepository.PendingSaga;
+import com.sergeymars.banking_app.service.AccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("sharded")
+class ShardedAccountServiceImplTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountShards accountShards;
+
+    @Autowired
+    private ShardedAccountRepository shardedAccountRepository;
+
+    @Autowired
+    private TransferSaga transferSaga;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void tearDown() {
+        transferSaga.setClock(Clock.systemUTC());
+    }
+
+    @Test
+    void createAccounts_ShouldSpreadAccountsOverShards() {
+        List<AccountDto> created = accountService.createAccounts(List.of(
+                new AccountDto(null, "A", 100), new AccountDto(null, "B", 200), new AccountDto(null, "C", 300)));
+
+        assertEquals(3, created.stream().map(account -> accountShards.forAccount(account.id())).distinct().count());
+        for (AccountDto account : created) {
+            assertEquals(account, shardedAccountRepository.findById(accountShards.forAccount(account.id()), account.id()).orElseThrow());
+        }
+    }
+
+    @Test
+    void transferMoneyTo_WithinShard_ShouldMoveMoney() {
+        List<AccountDto> accounts = createOnOneShard(2);
+        Long fromId = accounts.get(0).id();
+        Long toId = accounts.get(1).id();
+
+        List<AccountDto> result = accountService.transferMoneyTo(fromId, toId, 4_000);
+
+        assertEquals(6_000, result.get(0).balance());
+        assertEquals(14_000, result.get(1).balance());
+        assertThrows(InsufficientFundsException.class, () -> accountService.transferMoneyTo(fromId, toId, 100_000));
+        assertEquals(6_000, accountService.getAccountById(fromId).balance());
+    }
+
+    @Test
+    void transferMoneyTo_AcrossShards_ShouldCompleteSaga() {
+        Long fromId = accountService.createAccount(new AccountDto(null, "From", 10_000)).id();
+        Long toId = accountOnOtherShard(fromId, 10_000);
+
+        List<AccountDto> result = accountService.transferMoneyTo(fromId, toId, 2_500);
+
+        assertEquals(7_500, result.get(0).balance());
+        assertEquals(12_500, result.get(1).balance());
+        assertThrows(InsufficientFundsException.class, () -> accountService.transferMoneyTo(fromId, toId, 100_000));
+        assertEquals(7_500, accountService.getAccountById(fromId).balance());
+    }
+
+    @Test
+    void transferMoneyTo_AcrossShardsToMissingAccount_ShouldThrow() {
+        Long fromId = accountService.createAccount(new AccountDto(null, "From", 10_000)).id();
+        long missingId = fromId + 1 + 3L * 1_000_000;
+
+        assertThrows(AccountNotFoundException.class, () -> accountService.transferMoneyTo(fromId, missingId, 2_500));
+        assertEquals(10_000, accountService.getAccountById(fromId).balance());
+    }
+
+    @Test
+    void singleOperations_WithNonPositiveAmount_ShouldThrow() {
+        Long fromId = accountService.createAccount(new AccountDto(null, "From", 10_000)).id();
+        Long toId = accountService.createAccount(new AccountDto(null, "To", 10_000)).id();
+
+        assertThrows(AccountException.class, () -> accountService.addDeposit(fromId, -2_500));
+        assertThrows(AccountException.class, () -> accountService.withdrawDeposit(fromId, -2_500));
+        assertThrows(AccountException.class, () -> accountService.transferMoneyTo(fromId, toId, -2_500));
+        assertEquals(10_000, accountService.getAccountById(fromId).balance());
+        assertEquals(10_000, accountService.getAccountById(toId).balance());
+    }
+
+    @Test
+    void withdrawDeposit_WithConcurrentDuplicateKeys_ShouldWithdrawOnce() throws Exception {
+        Long id = accountService.createAccount(new AccountDto(null, "Holder", 100_000)).id();
+        String key = UUID.randomUUID().toString();
+        JavaType accountType = objectMapper.constructType(AccountDto.class);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AccountDto>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return idempotencyStore.execute(key, "withdraw_deposit " + id + " 10000", accountType,
+                        () -> accountService.withdrawDeposit(id, 10_000)).join();
+            }));
+        }
+        start.countDown();
+        for (Future<AccountDto> future : futures) {
+            assertEquals(90_000, future.get().balance());
+        }
+        pool.shutdown();
+
+        assertEquals(90_000, accountService.getAccountById(id).balance());
+    }
+
+    @Test
+    void aggregatesAndHotMode_ShouldNotBeAvailable() {
+        Long id = accountService.createAccount(new AccountDto(null, "Holder", 10_000)).id();
+
+        assertThrows(OperationNotAvailableException.class, () -> accountService.getAggregates());
+        assertThrows(OperationNotAvailableException.class, () -> accountService.enableHotMode(id, 4));
+        assertThrows(OperationNotAvailableException.class, () -> accountService.disableHotMode(id));
+    }
+
+    @Test
+    void recover_AfterCrashBeforeCredit_ShouldCreditOnce() {
+        Long fromId = accountService.createAccount(new AccountDto(null, "From", 10_000)).id();
+        Long toId = accountOnOtherShard(fromId, 10_000);
+        Shard fromShard = accountShards.forAccount(fromId);
+        // The process died right after step 1: the source is debited and the saga logged.
+        shardedAccountRepository.withdraw(fromShard, fromId, 3_000);
+        shardedAccountRepository.insertSaga(fromShard, new PendingSaga(UUID.randomUUID().toString(), fromId, toId, 3_000),
+                TransferSaga.DEBITED, Instant.now());
+
+        assertEquals(0, transferSaga.recover());
+        transferSaga.setClock(Clock.fixed(Instant.now().plus(Duration.ofMinutes(5)), ZoneOffset.UTC));
+        assertEquals(1, transferSaga.recover());
+        assertEquals(0, transferSaga.recover());
+
+        accountCache.evictAll();
+        assertEquals(7_000, accountService.getAccountById(fromId).balance());
+        assertEquals(13_000, accountService.getAccountById(toId).balance());
+    }
+
+    @Test
+    void recover_WhenTargetWasDeleted_ShouldRefundSource() {
+        Long fromId = accountService.createAccount(new AccountDto(null, "From", 10_000)).id();
+        Long toId = accountOnOtherShard(fromId, 10_000);
+        Shard fromShard = accountShards.forAccount(fromId);
+        String sagaId = UUID.randomUUID().toString();
+        shardedAccountRepository.withdraw(fromShard, fromId, 3_000);
+        shardedAccountRepository.insertSaga(fromShard, new PendingSaga(sagaId, fromId, toId, 3_000),
+                TransferSaga.DEBITED, Instant.now());
+        accountService.deleteAccount(toId);
+
+        transferSaga.setClock(Clock.fixed(Instant.now().plus(Duration.ofMinutes(5)), ZoneOffset.UTC));
+        transferSaga.recover();
+
+        accountCache.evictAll();
+        assertEquals(10_000, accountService.getAccountById(fromId).balance());
+        assertEquals(TransferSaga.COMPENSATED, shardedAccountRepository.findSagaState(fromShard, sagaId).orElseThrow());
+    }
+
+    @Test
+    void getAccountsPage_ShouldMergeShardsInIdOrder() {
+        accountService.createAccounts(List.of(
+                new AccountDto(null, "A", 100), new AccountDto(null, "B", 200), new AccountDto(null, "C", 300),
+                new AccountDto(null, "D", 400), new AccountDto(null, "E", 500)));
+
+        List<Long> all = accountService.getAllAccounts().stream().map(AccountDto::id).toList();
+        List<Long> paged = new ArrayList<>();
+        KeysetPage<AccountDto> page = accountService.getAccountsPage(null, 2);
+        page.content().forEach(account -> paged.add(account.id()));
+        while (page.next() != null) {
+            page = accountService.getAccountsPage(page.next(), 2);
+            page.content().forEach(account -> paged.add(account.id()));
+        }
+
+        assertEquals(all.stream().sorted().toList(), all);
+        assertEquals(all, paged);
+    }
+
+    @Test
+    void searchByHolderName_ShouldMergeShardsInNameOrder() {
+        String prefix = "Search " + UUID.randomUUID();
+        List<AccountDto> created = accountService.createAccounts(List.of(
+                new AccountDto(null, prefix + " c", 100), new AccountDto(null, prefix.toUpperCase() + " A", 200),
+                new AccountDto(null, prefix + " b", 300), new AccountDto(null, prefix + " a", 400)));
+
+        List<Long> found = new ArrayList<>();
+        AccountSearchPage page = accountService.searchByHolderName(prefix.toLowerCase(), null, null, 3);
+        page.content().forEach(account -> found.add(account.id()));
+        page = accountService.searchByHolderName(prefix.toLowerCase(), page.nextName(), page.nextId(), 3);
+        page.content().forEach(account -> found.add(account.id()));
+
+        assertEquals(List.of(created.get(1).id(), created.get(3).id(), created.get(2).id(), created.get(0).id()), found);
+        assertNull(page.nextId());
+    }
+
+    private List<AccountDto> createOnOneShard(int count) {
+        List<AccountDto> sameShard = new ArrayList<>();
+        while (sameShard.size() < count) {
+            AccountDto created = accountService.createAccount(new AccountDto(null, "Holder", 10_000));
+            if (sameShard.isEmpty() || accountShards.forAccount(created.id()).equals(accountShards.forAccount(sameShard.get(0).id()))) {
+                sameShard.add(created);
+            }
+        }
+        return sameShard;
+    }
+
+    private Long accountOnOtherShard(Long accountId, long balance) {
+        while (true) {
+            AccountDto created = accountService.createAccount(new AccountDto(null, "To", balance));
+            if (!accountShards.forAccount(created.id()).equals(accountShards.forAccount(accountId))) {
+                return created.id();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.service.AccountService;
+import com.sergeymars.banking_app.service.LedgerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransferConcurrencyTest {
+
+    private static final int ACCOUNTS = 8;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 150;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Test
+    void randomConcurrentTransfers_ShouldPreserveTotalMoney() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            ids.add(accountService.createAccount(new AccountDto(null, "Holder " + i, 100_000)).id());
+        }
+        long totalBefore = totalBalance(ids);
+
+        AtomicInteger completed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    Long from = ids.get(random.nextInt(ACCOUNTS));
+                    Long to = ids.get(random.nextInt(ACCOUNTS));
+                    if (from.equals(to)) {
+                        continue;
+                    }
+                    try {
+                        accountService.transferMoneyTo(from, to, random.nextInt(1, 200));
+                        completed.incrementAndGet();
+                    } catch (AccountException e) {
+                        assertEquals("Insufficient money", e.getMessage());
+                    }
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+
+        assertTrue(completed.get() > 0);
+        assertEquals(totalBefore, totalBalance(ids));
+        for (Long id : ids) {
+            long balance = accountService.getAccountById(id).balance();
+            assertTrue(balance >= 0);
+            assertEquals(balance, ledgerService.getLedgerBalance(id));
+        }
+    }
+
+    private long totalBalance(List<Long> ids) {
+        long total = 0;
+        for (Long id : ids) {
+            total += accountService.getAccountById(id).balance();
+        }
+        return total;
+    }
+}
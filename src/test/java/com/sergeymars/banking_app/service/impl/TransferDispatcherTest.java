@@ -0,0 +1,172 @@
+package com.sergeymars.banking_app.service.impl;
+
+import com.sergeymars.banking_app.dto.AccountDto;
+import com.sergeymars.banking_app.dto.TransferRequest;
+import com.sergeymars.banking_app.dto.TransferStatusDto;
+import com.sergeymars.banking_app.exception.AccountException;
+import com.sergeymars.banking_app.exception.InsufficientFundsException;
+import com.sergeymars.banking_app.exception.TransferQueueFullException;
+import com.sergeymars.banking_app.service.AccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferDispatcherTest {
+
+    @Mock
+    private AccountService accountService;
+
+    private TransferDispatcher transferDispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        transferDispatcher.shutdown();
+    }
+
+    @Test
+    void submit_ShouldRunTransferAndReportCompletion() throws Exception {
+        transferDispatcher = newDispatcher(2, 10);
+        List<AccountDto> accounts = List.of(new AccountDto(1L, "John Doe", 80_000), new AccountDto(2L, "Jane Smith", 20_000));
+        when(accountService.transferMoneyTo(1L, 2L, 20_000)).thenReturn(accounts);
+
+        TransferStatusDto pending = transferDispatcher.submit(new TransferRequest(1L, 2L, 20_000));
+        TransferStatusDto status = transferDispatcher.awaitStatus(pending.transferId(), Duration.ofSeconds(5))
+                .orElseThrow().get(5, TimeUnit.SECONDS);
+
+        assertEquals(TransferStatusDto.Status.PENDING, pending.status());
+        assertEquals(TransferStatusDto.Status.COMPLETED, status.status());
+        assertEquals(accounts, status.accounts());
+    }
+
+    @Test
+    void submit_WhenTransferFails_ShouldReportMessage() throws Exception {
+        transferDispatcher = newDispatcher(2, 10);
+        when(accountService.transferMoneyTo(1L, 2L, 20_000)).thenThrow(new InsufficientFundsException("Insufficient money"));
+
+        TransferStatusDto pending = transferDispatcher.submit(new TransferRequest(1L, 2L, 20_000));
+        TransferStatusDto status = transferDispatcher.awaitStatus(pending.transferId(), Duration.ofSeconds(5))
+                .orElseThrow().get(5, TimeUnit.SECONDS);
+
+        assertEquals(TransferStatusDto.Status.FAILED, status.status());
+        assertEquals("Insufficient money", status.message());
+    }
+
+    @Test
+    void submit_WithInvalidTransfer_ShouldThrow() {
+        transferDispatcher = newDispatcher(2, 10);
+
+        assertThrows(AccountException.class, () -> transferDispatcher.submit(new TransferRequest(1L, 1L, 20_000)));
+        assertThrows(AccountException.class, () -> transferDispatcher.submit(new TransferRequest(1L, 2L, 0)));
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldReject() throws Exception {
+        transferDispatcher = newDispatcher(1, 1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(accountService.transferMoneyTo(anyLong(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return List.of();
+        });
+
+        transferDispatcher.submit(new TransferRequest(1L, 2L, 100));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        TransferStatusDto queued = transferDispatcher.submit(new TransferRequest(1L, 2L, 100));
+
+        assertThrows(TransferQueueFullException.class, () -> transferDispatcher.submit(new TransferRequest(1L, 2L, 100)));
+        assertEquals(1, transferDispatcher.getRejectedCount());
+        assertEquals(1, transferDispatcher.getQueuedCount());
+
+        // The wait runs out while the transfer is still queued, so the pending status comes back.
+        assertEquals(TransferStatusDto.Status.PENDING, transferDispatcher.awaitStatus(queued.transferId(), Duration.ofMillis(10))
+                .orElseThrow().get(5, TimeUnit.SECONDS).status());
+        release.countDown();
+    }
+
+    @Test
+    void awaitStatus_WhenStatusCacheIsFull_ShouldStillFindPendingTransfer() throws Exception {
+        transferDispatcher = new TransferDispatcher(accountService, 2, 100, Duration.ofMinutes(10), 2, Duration.ofSeconds(10));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(accountService.transferMoneyTo(eq(1L), anyLong(), anyLong())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return List.of();
+        });
+        when(accountService.transferMoneyTo(eq(2L), anyLong(), anyLong())).thenReturn(List.of());
+
+        TransferStatusDto blocked = transferDispatcher.submit(new TransferRequest(1L, 3L, 100));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        TransferStatusDto last = null;
+        for (int i = 0; i < 20; i++) {
+            last = transferDispatcher.submit(new TransferRequest(2L, 3L, 100));
+        }
+        transferDispatcher.awaitStatus(last.transferId(), Duration.ofSeconds(5)).orElseThrow().get(5, TimeUnit.SECONDS);
+        transferDispatcher.cleanUp();
+
+        assertEquals(TransferStatusDto.Status.PENDING, transferDispatcher.awaitStatus(blocked.transferId(), Duration.ZERO)
+                .orElseThrow().get().status());
+        release.countDown();
+        assertEquals(TransferStatusDto.Status.COMPLETED, transferDispatcher.awaitStatus(blocked.transferId(), Duration.ofSeconds(5))
+                .orElseThrow().get(5, TimeUnit.SECONDS).status());
+    }
+
+    @Test
+    void submit_SameSourceAccount_ShouldRunInSubmissionOrder() throws Exception {
+        transferDispatcher = newDispatcher(4, 100);
+        List<Long> amounts = new ArrayList<>();
+        when(accountService.transferMoneyTo(eq(1L), anyLong(), anyLong())).thenAnswer(invocation -> {
+            amounts.add(invocation.getArgument(2));
+            return List.of();
+        });
+
+        List<TransferStatusDto> submitted = new ArrayList<>();
+        for (long amount = 1; amount <= 50; amount++) {
+            submitted.add(transferDispatcher.submit(new TransferRequest(1L, 1 + amount, amount)));
+        }
+        transferDispatcher.awaitStatus(submitted.get(49).transferId(), Duration.ofSeconds(5))
+                .orElseThrow().get(5, TimeUnit.SECONDS);
+
+        assertEquals(50, amounts.size());
+        for (int i = 0; i < amounts.size(); i++) {
+            assertEquals(i + 1, amounts.get(i));
+        }
+    }
+
+    @Test
+    void shutdown_ShouldFinishQueuedTransfersAndRejectNewOnes() throws Exception {
+        transferDispatcher = newDispatcher(1, 10);
+        when(accountService.transferMoneyTo(anyLong(), anyLong(), anyLong())).thenReturn(List.of());
+
+        List<TransferStatusDto> submitted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            submitted.add(transferDispatcher.submit(new TransferRequest(1L, 2L, 100)));
+        }
+        transferDispatcher.shutdown();
+
+        verify(accountService, times(5)).transferMoneyTo(1L, 2L, 100);
+        for (TransferStatusDto pending : submitted) {
+            assertEquals(TransferStatusDto.Status.COMPLETED, transferDispatcher.awaitStatus(pending.transferId(), Duration.ZERO)
+                    .orElseThrow().get().status());
+        }
+        assertThrows(TransferQueueFullException.class, () -> transferDispatcher.submit(new TransferRequest(1L, 2L, 100)));
+    }
+
+    private TransferDispatcher newDispatcher(int partitions, int queueCapacity) {
+        return new TransferDispatcher(accountService, partitions, queueCapacity, Duration.ofMinutes(10), 1000, Duration.ofSeconds(10));
+    }
+}